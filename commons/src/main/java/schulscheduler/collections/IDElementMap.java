@@ -2,100 +2,281 @@ package schulscheduler.collections;
 
 import schulscheduler.model.base.IDElement;
 
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Like a HashMap, but only hashes the ID of the key. This means that the other contents of the key object can be
  * modified without messing up the hashes.
+ * <p>
+ * The entries are stored densely in parallel arrays (in insertion order, until something is removed), and an
+ * open-addressing table with linear probing maps the primitive IDs to positions in these arrays. Hence lookups do not
+ * box the ID, and iterating over the map or its views just walks the arrays. The views returned by {@link #keySet()},
+ * {@link #values()} and {@link #entrySet()} are live and created only once per map.
  */
 @SuppressWarnings("NullableProblems")
-public class IDElementMap<K extends IDElement, V> implements Map<K, V> {
+public class IDElementMap<K extends IDElement, V> extends AbstractMap<K, V> {
 
-    private static class IDEntry<K extends IDElement, V> implements Map.Entry<K, V> {
-        private final K key;
-        private V value;
+    private static final int DEFAULT_CAPACITY = 8;
 
-        private IDEntry(K key, V value) {
-            this.key = key;
-            this.value = value;
+    /**
+     * Marks an empty slot in {@link #table}.
+     */
+    private static final int EMPTY = -1;
+
+    // These always contain the entries at positions 0 to size-1.
+    private int[] ids;
+    private K[] keys;
+    private V[] values;
+    private int size;
+
+    /**
+     * Open-addressing hash table that contains the position of each entry in the arrays above, or {@link #EMPTY}. Its
+     * length is a power of two and at least twice the capacity of the arrays.
+     */
+    private int[] table;
+
+    /**
+     * Incremented on every structural modification, to detect concurrent modifications while iterating.
+     */
+    private int modCount;
+
+    private Set<K> keySetView;
+    private Collection<V> valuesView;
+    private Set<Entry<K, V>> entrySetView;
+
+    public IDElementMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of entries that can be added without growing the internal arrays.
+     */
+    @SuppressWarnings("unchecked")
+    public IDElementMap(int expectedSize) {
+        final int capacity = Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(expectedSize, 1) - 1) << 1);
+        ids = new int[capacity];
+        keys = (K[]) new IDElement[capacity];
+        values = (V[]) new Object[capacity];
+        table = new int[capacity * 2];
+        Arrays.fill(table, EMPTY);
+    }
+
+    private static int hash(int id, int mask) {
+        // Fibonacci hashing, so that consecutive IDs are spread over the table.
+        final int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return The position of the entry with the given ID, or -1.
+     */
+    private int indexOf(int id) {
+        final int mask = table.length - 1;
+        for (int slot = hash(id, mask); ; slot = (slot + 1) & mask) {
+            final int index = table[slot];
+            if (index == EMPTY) return -1;
+            if (ids[index] == id) return index;
         }
+    }
 
-        @Override
-        public K getKey() {
-            return key;
+    private int indexOf(Object key) {
+        return key instanceof IDElement ? indexOf(((IDElement) key).getId().intValue()) : -1;
+    }
+
+    /**
+     * @return The slot in {@link #table} that points to the given position.
+     */
+    private int slotOf(int index) {
+        final int mask = table.length - 1;
+        int slot = hash(ids[index], mask);
+        while (table[slot] != index) {
+            slot = (slot + 1) & mask;
         }
+        return slot;
+    }
 
-        @Override
-        public V getValue() {
-            return value;
+    private void insertIntoTable(int id, int index) {
+        final int mask = table.length - 1;
+        int slot = hash(id, mask);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
         }
+        table[slot] = index;
+    }
 
-        @Override
-        public V setValue(V value) {
-            V oldValue = this.value;
-            this.value = value;
-            return oldValue;
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        table = new int[capacity * 2];
+        Arrays.fill(table, EMPTY);
+        for (int i = 0; i < size; i++) {
+            insertIntoTable(ids[i], i);
         }
     }
 
-    // These two always contain exactly the same keys, hence they also always have the same size.
-//    private final Map<Integer, K> keyMap = new HashMap<>();
-//    private final Map<Integer, V> valueMap = new HashMap<>();
+    /**
+     * Removes the entry at the given position. The last entry is moved into its place.
+     */
+    private V removeAt(int index) {
+        final V oldValue = values[index];
+        deleteSlot(slotOf(index));
+        final int last = --size;
+        if (index != last) {
+            table[slotOf(last)] = index;
+            ids[index] = ids[last];
+            keys[index] = keys[last];
+            values[index] = values[last];
+        }
+        keys[last] = null;
+        values[last] = null;
+        modCount++;
+        return oldValue;
+    }
 
-    private final Map<Integer, IDEntry<K, V>> entryMap = new HashMap<>();
+    /**
+     * Empties the given slot and moves later entries of the same probe sequence back, so that lookups do not need
+     * tombstones.
+     */
+    private void deleteSlot(int slot) {
+        final int mask = table.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; table[next] != EMPTY; next = (next + 1) & mask) {
+            final int home = hash(ids[table[next]], mask);
+            // The entry can be moved into the hole if its home slot is not between the hole and its current slot.
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    /**
+     * @param id The ID of a key.
+     * @return True if this map contains a key with the given ID.
+     */
+    public boolean containsId(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * @param id The ID of a key.
+     * @return The value for the key with the given ID, or null.
+     */
+    public V getById(int id) {
+        final int index = indexOf(id);
+        return index < 0 ? null : values[index];
+    }
 
     @Override
     public int size() {
-        return entryMap.size();
+        return size;
     }
 
     @Override
     public boolean isEmpty() {
-        return entryMap.isEmpty();
+        return size == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        return key instanceof IDElement && entryMap.containsKey(((IDElement) key).getId());
+        return indexOf(key) >= 0;
     }
 
     @Override
     public boolean containsValue(Object value) {
         if (value == null) return false;
-        return entryMap.values().stream().anyMatch(entry -> value.equals(entry.value));
+        for (int i = 0; i < size; i++) {
+            if (value.equals(values[i])) return true;
+        }
+        return false;
     }
 
     @Override
     public V get(Object key) {
-        if (!(key instanceof IDElement)) return null;
-        IDEntry<K, V> entry = entryMap.get(((IDElement) key).getId());
-        return entry == null ? null : entry.value;
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        final int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
     }
 
     @Override
     public V put(K key, V value) {
-//        K previousKey = keyMap.put(key.getId(), key);
-//        if (previousKey != null && !previousKey.equals(key)) {
-//            throw new IllegalArgumentException("Got two keys with the same ID " + key.getId());
-//        }
-//        return valueMap.put(key.getId(), value);
-        IDEntry<K, V> previousEntry = entryMap.put(key.getId(), new IDEntry<>(key, value));
-        if (previousEntry == null) return null;
-        if (!previousEntry.key.equals(key)) {
-            throw new IllegalArgumentException("Got two keys with the same ID " + key.getId());
+        final int id = key.getId();
+        final int index = indexOf(id);
+        if (index >= 0) {
+            if (!keys[index].equals(key)) {
+                throw new IllegalArgumentException("Got two keys with the same ID " + id);
+            }
+            final V oldValue = values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        keys[size] = key;
+        values[size] = value;
+        insertIntoTable(id, size);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        final int index = indexOf(key.getId().intValue());
+        if (index >= 0 && values[index] != null) {
+            return values[index];
         }
-        return previousEntry.value;
+        final V value = mappingFunction.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        final int index = indexOf(key.getId().intValue());
+        if (index < 0 || values[index] == null) {
+            put(key, value);
+            return value;
+        }
+        final V newValue = remappingFunction.apply(values[index], value);
+        if (newValue == null) {
+            removeAt(indexOf(key.getId().intValue()));
+        } else {
+            put(key, newValue);
+        }
+        return newValue;
     }
 
     @Override
     public V remove(Object key) {
-        if (!(key instanceof IDElement)) return null;
-        IDEntry<K, V> entry = entryMap.remove(((IDElement) key).getId());
-        return entry == null ? null : entry.value;
+        final int index = indexOf(key);
+        return index < 0 ? null : removeAt(index);
     }
 
     @Override
@@ -105,21 +286,218 @@ public class IDElementMap<K extends IDElement, V> implements Map<K, V> {
 
     @Override
     public void clear() {
-        entryMap.clear();
+        if (size == 0) return;
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        final int expectedModCount = modCount;
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], values[i]);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
     }
 
     @Override
     public Set<K> keySet() {
-        return entryMap.values().stream().map(e -> e.key).collect(Collectors.toUnmodifiableSet());
+        if (keySetView == null) {
+            keySetView = new AbstractSet<>() {
+                @Override
+                public Iterator<K> iterator() {
+                    return new IndexIterator<>() {
+                        @Override
+                        K get(int index) {
+                            return keys[index];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    final int index = indexOf(o);
+                    if (index < 0) return false;
+                    removeAt(index);
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    IDElementMap.this.clear();
+                }
+            };
+        }
+        return keySetView;
     }
 
     @Override
     public Collection<V> values() {
-        return entryMap.values().stream().map(e -> e.value).collect(Collectors.toUnmodifiableList());
+        if (valuesView == null) {
+            valuesView = new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new IndexIterator<>() {
+                        @Override
+                        V get(int index) {
+                            return IDElementMap.this.values[index];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsValue(o);
+                }
+
+                @Override
+                public void clear() {
+                    IDElementMap.this.clear();
+                }
+            };
+        }
+        return valuesView;
     }
 
     @Override
     public Set<Entry<K, V>> entrySet() {
-        return entryMap.values().stream().collect(Collectors.toUnmodifiableSet());
+        if (entrySetView == null) {
+            entrySetView = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new IndexIterator<>() {
+                        @Override
+                        Entry<K, V> get(int index) {
+                            return new IDEntry(index);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Entry)) return false;
+                    final Entry<?, ?> entry = (Entry<?, ?>) o;
+                    final int index = indexOf(entry.getKey());
+                    return index >= 0 && Objects.equals(values[index], entry.getValue());
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    if (!contains(o)) return false;
+                    removeAt(indexOf(((Entry<?, ?>) o).getKey()));
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    IDElementMap.this.clear();
+                }
+            };
+        }
+        return entrySetView;
+    }
+
+    /**
+     * Walks over the positions 0 to size-1. When an element is removed, the last entry is moved into its place, so
+     * that position is visited again.
+     */
+    private abstract class IndexIterator<T> implements Iterator<T> {
+        private int next = 0;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next >= size) throw new NoSuchElementException();
+            lastReturned = next++;
+            return get(lastReturned);
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            next = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * An entry that reads and writes through to the position it was created for. Like the entries of most maps, it is
+     * only valid until the map is structurally modified.
+     */
+    private class IDEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        private IDEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public K getKey() {
+            return keys[index];
+        }
+
+        @Override
+        public V getValue() {
+            return values[index];
+        }
+
+        @Override
+        public V setValue(V value) {
+            final V oldValue = values[index];
+            values[index] = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            final Entry<?, ?> entry = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
     }
 }
@@ -76,7 +76,7 @@ public class IDElementSet<V extends IDElement> implements Set<V> {
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        return innerMap.keySet().stream().filter(k -> !c.contains(k)).anyMatch(this::remove);
+        return innerMap.keySet().removeIf(k -> !c.contains(k));
     }
 
     @Override
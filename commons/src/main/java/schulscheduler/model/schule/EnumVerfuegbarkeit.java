@@ -2,6 +2,8 @@ package schulscheduler.model.schule;
 
 import schulscheduler.i18n.EnumMessages;
 
+import javax.annotation.Nullable;
+
 /**
  * Verfügbarkeiten eines Lehrers zu einem bestimmten Zeitpunkt.
  */
@@ -23,4 +25,15 @@ public enum EnumVerfuegbarkeit {
         return this.toString;
     }
 
+    /**
+     * @return Die restriktivere der beiden Verfügbarkeiten (NICHT vor EINGESCHRAENKT vor NORMAL), wobei null (kein
+     * Eintrag) am wenigsten restriktiv ist.
+     */
+    @Nullable
+    public static EnumVerfuegbarkeit restriktivere(@Nullable EnumVerfuegbarkeit a, @Nullable EnumVerfuegbarkeit b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
 }
@@ -1,5 +1,6 @@
 package schulscheduler.model.schule;
 
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleListProperty;
@@ -12,6 +13,10 @@ import javax.annotation.Nonnull;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlIDREF;
 import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @XmlRootElement(name = "lehrer")
@@ -22,26 +27,58 @@ public class Lehrer extends KuerzelElement {
     private final SimpleListProperty<LehrerVerfuegbarkeit> verfuegbarkeit = new SimpleListProperty<>(this, "verfuegbarkeit", FXCollections.observableArrayList());
     private final SimpleBooleanProperty freierTag = new SimpleBooleanProperty(this, "freierTag");
 
+    /**
+     * Index über {@link #verfuegbarkeit} für {@link #getVerfuegbar(Zeitslot)}, mit den Einträgen pro Zeitslot (gleich
+     * im Sinne von {@link Zeitslot#equals(Object)}). Wird bei Bedarf aufgebaut und bei jeder Änderung der Liste
+     * verworfen. Null, solange es keinen gültigen Index gibt.
+     */
+    private volatile Map<Zeitslot, List<LehrerVerfuegbarkeit>> verfuegbarkeitIndex;
+
     public Lehrer() {
+        verfuegbarkeit.addListener((InvalidationListener) observable -> verfuegbarkeitIndex = null);
     }
 
     public Lehrer(String name, String kuerzel) {
         super(name, kuerzel);
+        verfuegbarkeit.addListener((InvalidationListener) observable -> verfuegbarkeitIndex = null);
     }
 
     /**
      * Ermittelt die Verfügbarkeit des Lehrers zu einem bestimmten Zeitpunkt.
      *
      * @param zeitslot Der Zeitpunkt, zu dem die Verfügbarkeit ermittelt werden soll.
-     * @return Die Verfügbarkeit des Lehrers zum gegebenen Zeitpunkt, oder null, wenn kein Eintrag gefunden wurde.
+     * @return Die Verfügbarkeit des Lehrers zum gegebenen Zeitpunkt, oder null, wenn kein Eintrag gefunden wurde. Gibt
+     * es mehrere Einträge für denselben Zeitslot, gilt der restriktivste, siehe
+     * {@link EnumVerfuegbarkeit#restriktivere(EnumVerfuegbarkeit, EnumVerfuegbarkeit)}.
      */
     public EnumVerfuegbarkeit getVerfuegbar(@Nonnull Zeitslot zeitslot) {
-        for (LehrerVerfuegbarkeit eintrag : this.verfuegbarkeit) {
+        Map<Zeitslot, List<LehrerVerfuegbarkeit>> index = getVerfuegbarkeitIndex();
+        List<LehrerVerfuegbarkeit> eintraege = index == null ? this.verfuegbarkeit : index.get(zeitslot);
+        if (eintraege == null) return null;
+        EnumVerfuegbarkeit result = null;
+        for (LehrerVerfuegbarkeit eintrag : eintraege) {
             if (zeitslot.equals(eintrag.getZeitslot())) {
-                return eintrag.getVerfuegbarkeit();
+                result = EnumVerfuegbarkeit.restriktivere(result, eintrag.getVerfuegbarkeit());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Den (ggf. neu aufgebauten) {@link #verfuegbarkeitIndex}, oder null wenn noch nicht alle Einträge einen
+     * Zeitslot haben (z.B. während die Zeitslot-Referenzen beim Laden noch nicht aufgelöst sind).
+     */
+    private Map<Zeitslot, List<LehrerVerfuegbarkeit>> getVerfuegbarkeitIndex() {
+        Map<Zeitslot, List<LehrerVerfuegbarkeit>> index = verfuegbarkeitIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            for (LehrerVerfuegbarkeit eintrag : this.verfuegbarkeit) {
+                if (eintrag.getZeitslot() == null) return null;
+                index.computeIfAbsent(eintrag.getZeitslot(), zeitslot -> new ArrayList<>(1)).add(eintrag);
             }
+            verfuegbarkeitIndex = index;
         }
-        return null;
+        return index;
     }
 
     @XmlElement(name = "deputat")
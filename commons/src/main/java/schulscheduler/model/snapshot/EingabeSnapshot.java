@@ -0,0 +1,457 @@
+package schulscheduler.model.snapshot;
+
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.model.base.IDElement;
+import schulscheduler.model.eingabe.BerechnungsParameter;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.eingabe.EnumGewichtung;
+import schulscheduler.model.schule.EnumVerfuegbarkeit;
+import schulscheduler.model.schule.EnumWochentag;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.unterricht.Kopplung;
+import schulscheduler.model.unterricht.Unterrichtseinheit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Unveränderliche Momentaufnahme der für die Stundenplanung relevanten Teile von {@link Eingabedaten}. Die Elemente
+ * sind einfache Objekte ohne JavaFX-Properties, die sich gegenseitig über Ordinalzahlen (den Index in der jeweiligen
+ * Liste dieser Momentaufnahme) referenzieren, und können daher ohne Synchronisierung von beliebigen Threads gelesen
+ * werden. Die IDs entsprechen denen der ursprünglichen Elemente, sodass Ergebnisse wieder zugeordnet werden können.
+ * <p>
+ * Eine Momentaufnahme wird mit {@link #of(Eingabedaten)} in einem Durchlauf erzeugt. Spätere Änderungen der Eingabe
+ * wirken sich nicht auf sie aus.
+ */
+public final class EingabeSnapshot {
+
+    private final List<Zeitslot> zeitslots;
+    private final List<Klasse> klassen;
+    private final List<Lehrer> lehrer;
+    private final List<Fach> faecher;
+    private final List<Einheit> einheiten;
+    private final EnumGewichtung harteFaecherFolgen;
+    private final EnumGewichtung weicheNachmittagsFaecher;
+
+    private EingabeSnapshot(List<Zeitslot> zeitslots, List<Klasse> klassen, List<Lehrer> lehrer, List<Fach> faecher,
+                            List<Einheit> einheiten, EnumGewichtung harteFaecherFolgen,
+                            EnumGewichtung weicheNachmittagsFaecher) {
+        this.zeitslots = Collections.unmodifiableList(zeitslots);
+        this.klassen = Collections.unmodifiableList(klassen);
+        this.lehrer = Collections.unmodifiableList(lehrer);
+        this.faecher = Collections.unmodifiableList(faecher);
+        this.einheiten = Collections.unmodifiableList(einheiten);
+        this.harteFaecherFolgen = harteFaecherFolgen;
+        this.weicheNachmittagsFaecher = weicheNachmittagsFaecher;
+    }
+
+    /**
+     * Erzeugt eine Momentaufnahme. Die Eingabe darf währenddessen nicht verändert werden, d.h. der Aufruf sollte auf
+     * dem Thread erfolgen, der die Eingabe verändert (in der Regel der JavaFX-Thread), oder während sie gesperrt ist.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @return Eine neue Momentaufnahme.
+     * @throws IllegalArgumentException Wenn die Eingabe auf Elemente verweist, die nicht in ihren Listen enthalten sind.
+     */
+    @Nonnull
+    public static EingabeSnapshot of(@Nonnull Eingabedaten eingabe) {
+        return new Builder(eingabe).build();
+    }
+
+    /**
+     * @return Alle Zeitslots, chronologisch sortiert. Der Index ist die Ordinalzahl des Zeitslots.
+     */
+    @Nonnull
+    public List<Zeitslot> getZeitslots() {
+        return zeitslots;
+    }
+
+    /**
+     * @return Alle Klassen in der Reihenfolge der Eingabe.
+     */
+    @Nonnull
+    public List<Klasse> getKlassen() {
+        return klassen;
+    }
+
+    /**
+     * @return Alle Lehrer in der Reihenfolge der Eingabe.
+     */
+    @Nonnull
+    public List<Lehrer> getLehrer() {
+        return lehrer;
+    }
+
+    /**
+     * @return Alle Fächer in der Reihenfolge der Eingabe.
+     */
+    @Nonnull
+    public List<Fach> getFaecher() {
+        return faecher;
+    }
+
+    /**
+     * @return Alle Zuweisungen und danach alle Kopplungen, jeweils in der Reihenfolge der Eingabe. Die Wochenstunden
+     * der Zuweisungen sind die in der Eingabe angegebenen, also noch nicht um die Kopplungen reduziert.
+     */
+    @Nonnull
+    public List<Einheit> getEinheiten() {
+        return einheiten;
+    }
+
+    @Nullable
+    public EnumGewichtung getHarteFaecherFolgen() {
+        return harteFaecherFolgen;
+    }
+
+    @Nullable
+    public EnumGewichtung getWeicheNachmittagsFaecher() {
+        return weicheNachmittagsFaecher;
+    }
+
+    /**
+     * Gemeinsame Basis der Elemente: Die Ordinalzahl innerhalb der Momentaufnahme und die ID des ursprünglichen
+     * Elements.
+     */
+    public abstract static class Element implements IDElement {
+        private final int index;
+        private final int id;
+
+        private Element(int index, int id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        /**
+         * @return Der Index in der entsprechenden Liste der Momentaufnahme.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return Die ID des ursprünglichen Elements der Eingabe.
+         */
+        @Override
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + " " + id;
+        }
+    }
+
+    public static final class Zeitslot extends Element {
+        private final EnumWochentag wochentag;
+        private final int stundeNummer;
+        private final EnumGewichtung unterrichtsprioritaet;
+        private final boolean gesperrt;
+        private final int doppelstunde;
+
+        private Zeitslot(int index, schulscheduler.model.schule.Zeitslot zeitslot, int doppelstunde) {
+            super(index, zeitslot.getId());
+            if (zeitslot.getStunde() == null) {
+                throw new IllegalArgumentException(zeitslot.toLongString() + " hat keine Stunde");
+            }
+            this.wochentag = zeitslot.getWochentag();
+            this.stundeNummer = zeitslot.getStunde().getNummer();
+            this.unterrichtsprioritaet = zeitslot.getStunde().getUnterrichtsprioritaet();
+            this.gesperrt = zeitslot.isGesperrt();
+            this.doppelstunde = doppelstunde;
+        }
+
+        public EnumWochentag getWochentag() {
+            return wochentag;
+        }
+
+        public int getStundeNummer() {
+            return stundeNummer;
+        }
+
+        public EnumGewichtung getUnterrichtsprioritaet() {
+            return unterrichtsprioritaet;
+        }
+
+        public boolean isGesperrt() {
+            return gesperrt;
+        }
+
+        /**
+         * @return Die Ordinalzahl des anderen Zeitslots, mit dem dieser eine Doppelstunde bildet, oder -1.
+         */
+        public int getDoppelstunde() {
+            return doppelstunde;
+        }
+    }
+
+    public static final class Klasse extends Element {
+        private Klasse(int index, int id) {
+            super(index, id);
+        }
+    }
+
+    public static final class Fach extends Element {
+        private final boolean hart;
+
+        private Fach(int index, int id, boolean hart) {
+            super(index, id);
+            this.hart = hart;
+        }
+
+        public boolean isHart() {
+            return hart;
+        }
+    }
+
+    public static final class Lehrer extends Element {
+        private final EnumVerfuegbarkeit[] verfuegbarkeit;
+
+        private Lehrer(int index, int id, EnumVerfuegbarkeit[] verfuegbarkeit) {
+            super(index, id);
+            this.verfuegbarkeit = verfuegbarkeit;
+        }
+
+        /**
+         * @param slotIdx Die Ordinalzahl eines Zeitslots.
+         * @return Die Verfügbarkeit des Lehrers, oder null wenn es keinen Eintrag gibt. Bei mehreren Einträgen für
+         * denselben Zeitslot gilt, wie bei {@link schulscheduler.model.schule.Lehrer#getVerfuegbar}, der restriktivste.
+         */
+        @Nullable
+        public EnumVerfuegbarkeit getVerfuegbarkeit(int slotIdx) {
+            return verfuegbarkeit[slotIdx];
+        }
+    }
+
+    /**
+     * Eine Zuweisung oder Kopplung. Klassen, Lehrer und Fächer werden über ihre Ordinalzahlen referenziert, jeweils
+     * ohne Duplikate und ohne leere Einträge.
+     */
+    public static final class Einheit extends Element {
+        private final boolean kopplung;
+        private final int wochenstunden;
+        private final int[] fixeStunden;
+        private final int[] klassen;
+        private final int[] lehrer;
+        private final int[] faecher;
+        private final int[] zuweisungen;
+        private final boolean hart;
+
+        private Einheit(int index, int id, boolean kopplung, int wochenstunden, int[] fixeStunden, int[] klassen,
+                        int[] lehrer, int[] faecher, int[] zuweisungen, boolean hart) {
+            super(index, id);
+            this.kopplung = kopplung;
+            this.wochenstunden = wochenstunden;
+            this.fixeStunden = fixeStunden;
+            this.klassen = klassen;
+            this.lehrer = lehrer;
+            this.faecher = faecher;
+            this.zuweisungen = zuweisungen;
+            this.hart = hart;
+        }
+
+        /**
+         * @return True für eine Kopplung, false für eine Zuweisung.
+         */
+        public boolean isKopplung() {
+            return kopplung;
+        }
+
+        public int getWochenstunden() {
+            return wochenstunden;
+        }
+
+        public int getNumFixeStunden() {
+            return fixeStunden.length;
+        }
+
+        /**
+         * @param i Ein Index kleiner als {@link #getNumFixeStunden()}.
+         * @return Die Ordinalzahl des Zeitslots der i-ten fixen Stunde.
+         */
+        public int getFixeStunde(int i) {
+            return fixeStunden[i];
+        }
+
+        public int getNumKlassen() {
+            return klassen.length;
+        }
+
+        public int getKlasse(int i) {
+            return klassen[i];
+        }
+
+        public boolean hasKlasse(int klasseIdx) {
+            return contains(klassen, klasseIdx);
+        }
+
+        public int getNumLehrer() {
+            return lehrer.length;
+        }
+
+        public int getLehrer(int i) {
+            return lehrer[i];
+        }
+
+        public int getNumFaecher() {
+            return faecher.length;
+        }
+
+        public int getFach(int i) {
+            return faecher[i];
+        }
+
+        /**
+         * @return Bei Kopplungen die Anzahl der gekoppelten Zuweisungen, sonst 0.
+         */
+        public int getNumZuweisungen() {
+            return zuweisungen.length;
+        }
+
+        /**
+         * @param i Ein Index kleiner als {@link #getNumZuweisungen()}.
+         * @return Die Ordinalzahl der i-ten gekoppelten Zuweisung in {@link EingabeSnapshot#getEinheiten()}.
+         */
+        public int getZuweisung(int i) {
+            return zuweisungen[i];
+        }
+
+        /**
+         * @return True wenn mindestens eines der unterrichteten Fächer hart ist.
+         */
+        public boolean isHart() {
+            return hart;
+        }
+
+        private static boolean contains(int[] values, int value) {
+            for (int v : values) {
+                if (v == value) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sammelt die Ordinalzahlen aller Elemente der Eingabe und erzeugt dann die Momentaufnahme.
+     */
+    private static final class Builder {
+        private final Eingabedaten eingabe;
+        private final Map<Integer, Integer> zeitslotIndex = new HashMap<>();
+        private final Map<Integer, Integer> klassenIndex = new HashMap<>();
+        private final Map<Integer, Integer> lehrerIndex = new HashMap<>();
+        private final Map<Integer, Integer> faecherIndex = new HashMap<>();
+        private final Map<Integer, Integer> zuweisungenIndex = new HashMap<>();
+
+        private Builder(Eingabedaten eingabe) {
+            this.eingabe = Objects.requireNonNull(eingabe);
+        }
+
+        private static void fillIndex(Map<Integer, Integer> index, List<? extends BaseElement> elements) {
+            for (int i = 0; i < elements.size(); i++) {
+                index.put(elements.get(i).getId(), i);
+            }
+        }
+
+        private static int indexOf(Map<Integer, Integer> index, BaseElement element) {
+            final Integer result = index.get(element.getId());
+            if (result == null) {
+                throw new IllegalArgumentException(element.toLongString() + " ist nicht Teil der Eingabe");
+            }
+            return result;
+        }
+
+        /**
+         * @return Die Ordinalzahlen der Elemente in der Reihenfolge ihres ersten Auftretens, ohne Duplikate und null.
+         */
+        private static int[] indicesOf(Map<Integer, Integer> index, Stream<? extends BaseElement> elements) {
+            return elements.filter(Objects::nonNull).mapToInt(element -> indexOf(index, element)).distinct().toArray();
+        }
+
+        private EingabeSnapshot build() {
+            final List<schulscheduler.model.schule.Zeitslot> sortedZeitslots = new ArrayList<>(eingabe.getZeitslots());
+            sortedZeitslots.sort(null);
+            fillIndex(zeitslotIndex, sortedZeitslots);
+            final Map<schulscheduler.model.schule.Zeitslot, Integer> zeitslotIndexByEquals = new HashMap<>();
+            for (int slotIdx = 0; slotIdx < sortedZeitslots.size(); slotIdx++) {
+                zeitslotIndexByEquals.putIfAbsent(sortedZeitslots.get(slotIdx), slotIdx);
+            }
+            fillIndex(klassenIndex, eingabe.getKlassen());
+            fillIndex(lehrerIndex, eingabe.getLehrer());
+            fillIndex(faecherIndex, eingabe.getFaecher());
+            fillIndex(zuweisungenIndex, eingabe.getZuweisungen());
+
+            final List<Zeitslot> zeitslots = new ArrayList<>(sortedZeitslots.size());
+            for (int z1 = 0; z1 < sortedZeitslots.size(); z1++) {
+                int doppelstunde = -1;
+                for (int z2 = 0; z2 < sortedZeitslots.size(); z2++) {
+                    if (sortedZeitslots.get(z1).isDoppelstundeWith(sortedZeitslots.get(z2))) {
+                        doppelstunde = z2;
+                        break;
+                    }
+                }
+                zeitslots.add(new Zeitslot(z1, sortedZeitslots.get(z1), doppelstunde));
+            }
+
+            final List<Klasse> klassen = new ArrayList<>(eingabe.getKlassen().size());
+            for (int i = 0; i < eingabe.getKlassen().size(); i++) {
+                klassen.add(new Klasse(i, eingabe.getKlassen().get(i).getId()));
+            }
+
+            final List<Fach> faecher = new ArrayList<>(eingabe.getFaecher().size());
+            for (int i = 0; i < eingabe.getFaecher().size(); i++) {
+                final schulscheduler.model.schule.Fach fach = eingabe.getFaecher().get(i);
+                faecher.add(new Fach(i, fach.getId(), fach.isHart()));
+            }
+
+            final List<Lehrer> lehrer = new ArrayList<>(eingabe.getLehrer().size());
+            for (int i = 0; i < eingabe.getLehrer().size(); i++) {
+                final schulscheduler.model.schule.Lehrer original = eingabe.getLehrer().get(i);
+                final EnumVerfuegbarkeit[] verfuegbarkeit = new EnumVerfuegbarkeit[zeitslots.size()];
+                for (LehrerVerfuegbarkeit eintrag : original.getVerfuegbarkeit()) {
+                    // Wie bei Lehrer#getVerfuegbar über Zeitslot#equals, nicht über die ID.
+                    final Integer slotIdx = zeitslotIndexByEquals.get(eintrag.getZeitslot());
+                    if (slotIdx == null) {
+                        throw new IllegalArgumentException(eintrag.getZeitslot() + " ist nicht Teil der Eingabe");
+                    }
+                    verfuegbarkeit[slotIdx] = EnumVerfuegbarkeit.restriktivere(verfuegbarkeit[slotIdx],
+                            eintrag.getVerfuegbarkeit());
+                }
+                lehrer.add(new Lehrer(i, original.getId(), verfuegbarkeit));
+            }
+
+            final List<Einheit> einheiten = new ArrayList<>();
+            for (Unterrichtseinheit zuweisung : eingabe.getZuweisungen()) {
+                einheiten.add(createEinheit(einheiten.size(), zuweisung, new int[0], faecher));
+            }
+            for (Kopplung kopplung : eingabe.getKopplungen()) {
+                final int[] zuweisungen = kopplung.getZuweisungen().stream()
+                        .mapToInt(zuweisung -> indexOf(zuweisungenIndex, zuweisung)).toArray();
+                einheiten.add(createEinheit(einheiten.size(), kopplung, zuweisungen, faecher));
+            }
+
+            final BerechnungsParameter parameter = eingabe.getParameter();
+            return new EingabeSnapshot(zeitslots, klassen, lehrer, faecher, einheiten,
+                    parameter == null ? null : parameter.getHarteFaecherFolgen(),
+                    parameter == null ? null : parameter.getWeicheNachmittagsFaecher());
+        }
+
+        private Einheit createEinheit(int index, Unterrichtseinheit einheit, int[] zuweisungen, List<Fach> faecher) {
+            final int[] fixeStunden = einheit.getFixeStunden().stream()
+                    .mapToInt(zeitslot -> indexOf(zeitslotIndex, zeitslot)).toArray();
+            final int[] fachIndices = indicesOf(faecherIndex, einheit.getAllFaecher());
+            final boolean hart = Arrays.stream(fachIndices).anyMatch(fachIdx -> faecher.get(fachIdx).isHart());
+            return new Einheit(index, einheit.getId(), einheit instanceof Kopplung, einheit.getWochenstunden(),
+                    fixeStunden, indicesOf(klassenIndex, einheit.getAllKlassen()),
+                    indicesOf(lehrerIndex, einheit.getAllLehrer()), fachIndices, zuweisungen, hart);
+        }
+    }
+}
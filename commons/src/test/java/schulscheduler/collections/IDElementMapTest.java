@@ -0,0 +1,86 @@
+package schulscheduler.collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.schule.Fach;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class IDElementMapTest {
+
+    private static Fach createFach(int id) {
+        Fach fach = new Fach();
+        fach.setId(id);
+        return fach;
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        List<Fach> faecher = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            faecher.add(createFach(i * 7)); // Nicht fortlaufend, damit es Kollisionen gibt.
+        }
+        Map<Fach, Integer> map = new IDElementMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 20000; step++) {
+            Fach fach = faecher.get(random.nextInt(faecher.size()));
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(fach), is(expected.remove(fach.getId())));
+            } else {
+                assertThat(map.put(fach, step), is(expected.put(fach.getId(), step)));
+            }
+            assertThat(map.size(), is(expected.size()));
+        }
+        for (Fach fach : faecher) {
+            assertThat(map.get(fach), is(expected.get(fach.getId())));
+            assertThat(map.containsKey(fach), is(expected.containsKey(fach.getId())));
+        }
+        Map<Integer, Integer> iterated = new HashMap<>();
+        map.forEach((fach, value) -> iterated.put(fach.getId(), value));
+        assertThat(iterated, is(expected));
+    }
+
+    @Test
+    public void testLiveViews() {
+        Map<Fach, String> map = new IDElementMap<>();
+        Set<Fach> keySet = map.keySet();
+        assertThat(keySet.isEmpty(), is(true));
+        Fach a = createFach(1);
+        Fach b = createFach(2);
+        Fach c = createFach(3);
+        map.put(a, "a");
+        map.put(b, "b");
+        map.put(c, "c");
+        assertThat(map.keySet() == keySet, is(true));
+        assertThat(keySet, is(Set.of(a, b, c)));
+        assertThat(new HashSet<>(map.values()), is(Set.of("a", "b", "c")));
+
+        // Entfernen während der Iteration darf kein Element überspringen.
+        Set<Fach> seen = new HashSet<>();
+        for (Iterator<Map.Entry<Fach, String>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Fach, String> entry = it.next();
+            seen.add(entry.getKey());
+            if (entry.getKey() != b) {
+                it.remove();
+            } else {
+                entry.setValue("B");
+            }
+        }
+        assertThat(seen, is(Set.of(a, b, c)));
+        assertThat(keySet, is(Set.of(b)));
+        assertThat(map.get(b), is("B"));
+        assertThat(map.get(a), is(nullValue()));
+    }
+
+}
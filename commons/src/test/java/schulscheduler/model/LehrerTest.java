@@ -0,0 +1,77 @@
+package schulscheduler.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import javafx.collections.FXCollections;
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.schule.EnumVerfuegbarkeit;
+import schulscheduler.model.schule.EnumWochentag;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.schule.Stunde;
+import schulscheduler.model.schule.Zeitslot;
+
+public class LehrerTest {
+
+    @Test
+    public void testGetVerfuegbar() {
+        Stunde stunde1 = new Stunde(1);
+        Zeitslot mo1 = new Zeitslot(stunde1, EnumWochentag.MONTAG);
+        Zeitslot di1 = new Zeitslot(stunde1, EnumWochentag.DIENSTAG);
+
+        Lehrer lehrer = new Lehrer();
+        assertThat(lehrer.getVerfuegbar(mo1), is(nullValue()));
+
+        LehrerVerfuegbarkeit eintragMo1 = new LehrerVerfuegbarkeit(mo1, EnumVerfuegbarkeit.NICHT);
+        lehrer.getVerfuegbarkeit().add(eintragMo1);
+        assertThat(lehrer.getVerfuegbar(mo1), is(EnumVerfuegbarkeit.NICHT));
+        assertThat(lehrer.getVerfuegbar(di1), is(nullValue()));
+
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(di1, EnumVerfuegbarkeit.EINGESCHRAENKT));
+        assertThat(lehrer.getVerfuegbar(di1), is(EnumVerfuegbarkeit.EINGESCHRAENKT));
+
+        eintragMo1.setVerfuegbarkeit(EnumVerfuegbarkeit.NORMAL);
+        assertThat(lehrer.getVerfuegbar(mo1), is(EnumVerfuegbarkeit.NORMAL));
+
+        lehrer.getVerfuegbarkeit().remove(eintragMo1);
+        assertThat(lehrer.getVerfuegbar(mo1), is(nullValue()));
+
+        lehrer.setVerfuegbarkeit(FXCollections.observableArrayList(eintragMo1));
+        assertThat(lehrer.getVerfuegbar(mo1), is(EnumVerfuegbarkeit.NORMAL));
+        assertThat(lehrer.getVerfuegbar(di1), is(nullValue()));
+    }
+
+    @Test
+    public void testGetVerfuegbarMehrereEintraege() {
+        Stunde stunde1 = new Stunde(1);
+        Zeitslot mo1 = new Zeitslot(stunde1, EnumWochentag.MONTAG);
+        Zeitslot mo1Kopie = new Zeitslot(stunde1, EnumWochentag.MONTAG);
+
+        Lehrer lehrer = new Lehrer();
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(mo1, EnumVerfuegbarkeit.EINGESCHRAENKT));
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(mo1Kopie, EnumVerfuegbarkeit.NICHT));
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(mo1, EnumVerfuegbarkeit.NORMAL));
+
+        // Der restriktivste Eintrag gilt, und Zeitslots werden über equals verglichen, nicht über die ID.
+        assertThat(lehrer.getVerfuegbar(mo1), is(EnumVerfuegbarkeit.NICHT));
+        assertThat(lehrer.getVerfuegbar(new Zeitslot(stunde1, EnumWochentag.MONTAG)), is(EnumVerfuegbarkeit.NICHT));
+    }
+
+    @Test
+    public void testGetVerfuegbarWithUnresolvedZeitslot() {
+        Zeitslot mo1 = new Zeitslot(new Stunde(1), EnumWochentag.MONTAG);
+        LehrerVerfuegbarkeit eintrag = new LehrerVerfuegbarkeit();
+        eintrag.setVerfuegbarkeit(EnumVerfuegbarkeit.NICHT);
+
+        Lehrer lehrer = new Lehrer();
+        lehrer.getVerfuegbarkeit().add(eintrag);
+        assertThat(lehrer.getVerfuegbar(mo1), is(nullValue()));
+
+        // Wie beim Laden: Die Referenz wird erst nachträglich aufgelöst, ohne dass sich die Liste ändert.
+        eintrag.setZeitslot(mo1);
+        assertThat(lehrer.getVerfuegbar(mo1), is(EnumVerfuegbarkeit.NICHT));
+    }
+
+}
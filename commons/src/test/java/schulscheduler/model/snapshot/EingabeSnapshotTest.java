@@ -0,0 +1,94 @@
+package schulscheduler.model.snapshot;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.schule.EnumVerfuegbarkeit;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.schule.Zeitslot;
+import schulscheduler.model.unterricht.Zuweisung;
+import schulscheduler.testutils.TestData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EingabeSnapshotTest {
+
+    @Test
+    public void testSnapshot() throws Exception {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        EingabeSnapshot snapshot = EingabeSnapshot.of(eingabe);
+        assertThat(snapshot.getKlassen().size(), is(eingabe.getKlassen().size()));
+        assertThat(snapshot.getLehrer().size(), is(eingabe.getLehrer().size()));
+        assertThat(snapshot.getEinheiten().size(),
+                is(eingabe.getZuweisungen().size() + eingabe.getKopplungen().size()));
+
+        List<Zeitslot> zeitslots = new ArrayList<>(eingabe.getZeitslots());
+        zeitslots.sort(null);
+        for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+            EingabeSnapshot.Zeitslot slot = snapshot.getZeitslots().get(slotIdx);
+            assertThat(slot.getIndex(), is(slotIdx));
+            assertThat(slot.getId(), is(zeitslots.get(slotIdx).getId()));
+            assertThat(slot.getStundeNummer(), is(zeitslots.get(slotIdx).getStunde().getNummer()));
+            int doppelstunde = slot.getDoppelstunde();
+            if (doppelstunde >= 0) {
+                assertThat(zeitslots.get(slotIdx).isDoppelstundeWith(zeitslots.get(doppelstunde)), is(true));
+                assertThat(snapshot.getZeitslots().get(doppelstunde).getDoppelstunde(), is(slotIdx));
+            }
+        }
+
+        for (int i = 0; i < eingabe.getZuweisungen().size(); i++) {
+            Zuweisung zuweisung = eingabe.getZuweisungen().get(i);
+            EingabeSnapshot.Einheit einheit = snapshot.getEinheiten().get(i);
+            assertThat(einheit.getId(), is(zuweisung.getId()));
+            assertThat(einheit.isKopplung(), is(false));
+            assertThat(einheit.getWochenstunden(), is(zuweisung.getWochenstunden()));
+            assertThat(einheit.getNumFixeStunden(), is(zuweisung.getFixeStunden().size()));
+            assertThat(snapshot.getKlassen().get(einheit.getKlasse(0)).getId(), is(zuweisung.getKlasse().getId()));
+            assertThat(einheit.isHart(), is(zuweisung.isHart()));
+        }
+        for (int i = 0; i < eingabe.getKopplungen().size(); i++) {
+            EingabeSnapshot.Einheit einheit = snapshot.getEinheiten().get(eingabe.getZuweisungen().size() + i);
+            assertThat(einheit.isKopplung(), is(true));
+            assertThat(einheit.getNumZuweisungen(), is(eingabe.getKopplungen().get(i).getZuweisungen().size()));
+        }
+    }
+
+    @Test
+    public void testVerfuegbarkeitWieLehrer() throws Exception {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Lehrer lehrer = eingabe.getLehrer().get(0);
+        Zeitslot zeitslot = eingabe.getZeitslots().get(0);
+        // Ein späterer, restriktiverer Eintrag auf einer gleichen Zeitslot-Instanz darf nicht verloren gehen.
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(zeitslot, EnumVerfuegbarkeit.EINGESCHRAENKT));
+        lehrer.getVerfuegbarkeit().add(new LehrerVerfuegbarkeit(
+                new Zeitslot(zeitslot.getStunde(), zeitslot.getWochentag()), EnumVerfuegbarkeit.NICHT));
+
+        EingabeSnapshot snapshot = EingabeSnapshot.of(eingabe);
+        List<Zeitslot> zeitslots = new ArrayList<>(eingabe.getZeitslots());
+        zeitslots.sort(null);
+        for (int lehrerIdx = 0; lehrerIdx < eingabe.getLehrer().size(); lehrerIdx++) {
+            for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+                assertThat(snapshot.getLehrer().get(lehrerIdx).getVerfuegbarkeit(slotIdx),
+                        is(eingabe.getLehrer().get(lehrerIdx).getVerfuegbar(zeitslots.get(slotIdx))));
+            }
+        }
+        assertThat(lehrer.getVerfuegbar(zeitslot), is(EnumVerfuegbarkeit.NICHT));
+    }
+
+    @Test
+    public void testUnaffectedByChanges() throws Exception {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        EingabeSnapshot snapshot = EingabeSnapshot.of(eingabe);
+        Zuweisung zuweisung = eingabe.getZuweisungen().get(0);
+        int wochenstunden = zuweisung.getWochenstunden();
+        zuweisung.setWochenstunden(wochenstunden + 1);
+        eingabe.getKlassen().remove(0);
+        assertThat(snapshot.getEinheiten().get(0).getWochenstunden(), is(wochenstunden));
+        assertThat(snapshot.getKlassen().size(), is(eingabe.getKlassen().size() + 1));
+    }
+
+}
@@ -1,138 +1,317 @@
 package schulscheduler.solver;
 
+import jscip.SCIP_Status;
 import jscip.SCIP_Vartype;
 import jscip.Scip;
 import jscip.Solution;
 import jscip.Variable;
+import schulscheduler.model.eingabe.BerechnungsParameter;
 import schulscheduler.model.eingabe.Eingabedaten;
 import schulscheduler.model.ergebnis.Ergebnisdaten;
 import schulscheduler.solver.binary.BinaryLP;
 import schulscheduler.solver.binary.BinaryVariable;
-import schulscheduler.solver.binary.Constraint;
-import schulscheduler.solver.binary.ForceValue;
-import schulscheduler.solver.binary.SumGeq;
-import schulscheduler.solver.binary.SumLeq;
-import schulscheduler.solver.binary.SumOp;
-import schulscheduler.solver.binary.VarEq;
-import schulscheduler.solver.binary.VarImpliesOr;
+import schulscheduler.solver.binary.ConstraintMatrix;
+import schulscheduler.solver.binary.IncrementalBinaryLP;
+import schulscheduler.solver.binary.LocalSearch;
+import schulscheduler.solver.binary.ModelStatistics;
+import schulscheduler.solver.binary.Presolve;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.IdentityHashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.DoubleStream;
-import java.util.stream.Stream;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * A solver that uses SCIP based on a {@link BinaryLP} through the JSCIPOpt wrapper.
+ * <p>
+ * The solver is thread-safe and can be used for any number of computations, also concurrently. Each computation gets its
+ * own SCIP instance, see {@link Computation}. Use a {@link ScipSolverPool} to bound the number of concurrent
+ * computations.
  */
 public class ScipSolver implements Solver {
 
-    final Scip scip = new Scip();
-    final Map<BinaryVariable, Variable> varMap = new IdentityHashMap<>();
+    /**
+     * How long the previous solution may be repaired before solving, see {@link #solve(Eingabedaten, Ergebnisdaten)}.
+     */
+    private static final long WARM_START_TIME_LIMIT_MILLIS = 5_000;
+
+    /**
+     * How long SCIP runs at once in seconds. After each slice, the thread is checked for interruption and improved
+     * solutions are published, see {@link #solve(Eingabedaten, Ergebnisdaten, Consumer)}.
+     */
+    private static final double SLICE_SECONDS = 1;
+
+    /**
+     * Loads the native library when first used, and only once per JVM.
+     */
+    private static final class NativeLibrary {
+        static {
+            System.loadLibrary("jscip");
+        }
+
+        static void load() {
+        }
+    }
+
+    @Nullable
+    private final SolverBudget budget;
+
+    @Nullable
+    private volatile ModelStatistics.Phase lastTransfer;
 
     public ScipSolver() {
-        System.loadLibrary("jscip");
+        this(null);
     }
 
+    /**
+     * @param budget The limits for all computations of this solver, or null to derive them from the
+     * {@link SolverBudget#of(BerechnungsParameter) Rechendauer} of each input.
+     */
+    public ScipSolver(@Nullable SolverBudget budget) {
+        NativeLibrary.load();
+        this.budget = budget;
+    }
+
+    /**
+     * The computation stops when the {@link SolverBudget} is exhausted or the thread is interrupted, and then returns the
+     * best solution found so far. In the latter case, the interrupt flag of the thread remains set.
+     */
     @Override
     @Nullable
-    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) {
-        if (!varMap.isEmpty()) throw new IllegalStateException("There can only be one concurrent computation");
-        final BinaryLP binaryLP = new BinaryLP(eingabe);
-        scip.create("SchulScheduler");
-        scip.maximization();
-        try {
-            for (BinaryVariable variable : binaryLP.getVariables()) {
-                varMap.put(
-                        variable,
-                        scip.createVar(variable.getName(), /*lb=*/0.0, /*ub=*/1.0,
-                                /*obj=*/variable.getObjectiveFactor(), SCIP_Vartype.SCIP_VARTYPE_BINARY)
-                );
-            }
-            try {
-                for (Constraint constraint : binaryLP.getConstraints()) {
-                    if (constraint instanceof ForceValue) {
-                        addForceValueConstraint((ForceValue) constraint);
-                    } else if (constraint instanceof VarEq) {
-                        addVarEqConstraint((VarEq) constraint);
-                    } else if (constraint instanceof SumOp) {
-                        this.addSumOpConstraint((SumOp) constraint);
-                    } else if (constraint instanceof VarImpliesOr) {
-                        this.addVarImpliesOrConstraint((VarImpliesOr) constraint);
-                    } else {
-                        throw new UnsupportedOperationException("Unsupported constraint type " + constraint.getClass().getName());
-                    }
-                }
-
-                // This is the main, long blocking call.
-                scip.setRealParam("limits/time", 600); // In seconds
-                scip.solve();
-                scip.printStatistics();
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        return solve(eingabe, null, null);
+    }
 
-                Solution solution = scip.getBestSol();
-                if (solution == null) return null;
-                for (var varEntry : varMap.entrySet()) {
-                    varEntry.getKey().setSolution(scip.getSolVal(solution, varEntry.getValue()) > 0);
-                }
-                return binaryLP.createErgebnis();
-            } finally {
-                varMap.values().forEach(scip::releaseVar);
-            }
-        } finally {
-            scip.free();
-            varMap.clear();
-        }
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher)
+            throws InterruptedException {
+        return solve(eingabe, vorher, null);
     }
 
     /**
-     * Adds lhs <= SUM_i(vars_i) <= rhs
+     * Maps the previous solution to the model and repairs it with a short {@link LocalSearch}, because SCIP only
+     * accepts complete solutions as a start. If the repair succeeds, SCIP starts with this solution as its incumbent,
+     * which lets it prune most of the search tree right away. The repair counts towards the time limit of the
+     * {@link SolverBudget}. If the thread is interrupted during the repair, there is no solution yet, so an
+     * {@link InterruptedException} is thrown.
+     * <p>
+     * After each slice of SCIP, the best solution is published if it improved. The dual bound and gap are those of
+     * SCIP at that time.
      */
-    private void addLinearConstraint(@Nonnull String name, Collection<BinaryVariable> vars, double lhs, double rhs) {
-        addLinearConstraint(name, vars, vars.stream().mapToDouble(v -> 1.0).toArray(), lhs, rhs);
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                               @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        return solve(new BinaryLP(eingabe, /*aggregieren=*/true), getBudget(eingabe), vorher, listener);
     }
 
     /**
-     * Adds lhs <= SUM_i(vars_i * weights_i) <= rhs
+     * Solves an input whose model is kept up to date by the caller, so that solving it again after a small edit does
+     * not rebuild the whole model. The caller owns the model: It creates it on the thread that edits the input (see
+     * {@link IncrementalBinaryLP}), disposes it when it is no longer needed, and must not use it for two computations
+     * at the same time, because the solution is stored in the model.
+     *
+     * @param model The model of the input.
+     * @param vorher A previous solution to start from, see {@link #solve(Eingabedaten, Ergebnisdaten)}, or null.
+     * @param listener The listener for improving solutions, or null.
+     * @return A solution to the problem or null if none could be found.
+     * @throws InterruptedException In case the thread was interrupted while repairing the previous solution.
      */
-    private void addLinearConstraint(@Nonnull String name, Collection<BinaryVariable> vars, double[] weights,
-                                     double lhs, double rhs) {
-        jscip.Constraint cons = scip.createConsLinear(name,
-                vars.stream().map(varMap::get).toArray(Variable[]::new), weights,
-                lhs, rhs);
-        scip.addCons(cons);
-        scip.releaseCons(cons);
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull IncrementalBinaryLP model, @Nullable Ergebnisdaten vorher,
+                               @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        return solve(model.getBinaryLP(), getBudget(model.getEingabe()), vorher, listener);
     }
 
-    private void addForceValueConstraint(@Nonnull ForceValue constraint) {
-        double value = constraint.isForcedValue() ? 1.0 : 0.0;
-        addLinearConstraint(constraint.getName(), Collections.singletonList(constraint.getVariable()), value, value);
+    /**
+     * @return The duration and allocations of the most recent transfer of a model into SCIP, i.e. creating the
+     * variables and constraints, or null if there was none yet. With concurrent computations, this is the transfer
+     * that finished last.
+     */
+    @Nullable
+    public ModelStatistics.Phase getLastTransfer() {
+        return lastTransfer;
     }
 
-    private void addVarEqConstraint(@Nonnull VarEq constraint) {
-        // variable1 == variable2  <==>  0 == variable1 - variable2  <==>  0 <= variable1 - variable2 <= 0
-        addLinearConstraint(constraint.getName(), Arrays.asList(constraint.getVariable1(), constraint.getVariable2()),
-                new double[]{1.0, -1.0}, 0.0, 0.0);
+    @Nonnull
+    private SolverBudget getBudget(@Nonnull Eingabedaten eingabe) {
+        return budget != null ? budget : SolverBudget.of(eingabe.getParameter());
     }
 
-    private void addSumOpConstraint(@Nonnull SumOp constraint) {
-        addLinearConstraint(
-                constraint.getName(),
-                constraint.getLhsVariables(),
-                constraint instanceof SumLeq ? -scip.infinity() : constraint.getRhsValue(),
-                constraint instanceof SumGeq ? scip.infinity() : constraint.getRhsValue()
-        );
+    @Nullable
+    private Ergebnisdaten solve(@Nonnull BinaryLP binaryLP, @Nonnull SolverBudget budget,
+                                @Nullable Ergebnisdaten vorher, @Nullable Consumer<SolutionEvent> listener)
+            throws InterruptedException {
+        if (vorher == null) return new Computation(binaryLP, listener).solve(budget, null);
+        final long repairStart = System.nanoTime();
+        final LocalSearch search = new LocalSearch(binaryLP, 0);
+        search.setStartwerte(binaryLP.getStartwerte(vorher));
+        final boolean repaired = search.solve(Math.min(WARM_START_TIME_LIMIT_MILLIS,
+                (long) (budget.getTimeLimitSeconds() * 1000)));
+        // The repair counts towards the time limit.
+        final double remainingSeconds = budget.getTimeLimitSeconds() - (System.nanoTime() - repairStart) / 1e9;
+        if (remainingSeconds <= 0) return repaired ? binaryLP.createErgebnis() : null;
+        return new Computation(binaryLP, listener).solve(budget.withTimeLimitSeconds(remainingSeconds), repaired
+                ? binaryLP.getVariables().stream().map(BinaryVariable::requireSolution).toArray(Boolean[]::new)
+                : null);
     }
 
-    private void addVarImpliesOrConstraint(@Nonnull VarImpliesOr constraint) {
-        // lhs -> OR(rhs)  <==>  lhs <= SUM(rhs)  <==>  0 <= SUM(-lhs, rhs)
-        addLinearConstraint(constraint.getName(),
-                Stream.concat(Stream.of(constraint.getLhsVariable()), constraint.getRhsVariables().stream()).collect(Collectors.toList()),
-                DoubleStream.concat(DoubleStream.of(-1.0), constraint.getRhsVariables().stream().mapToDouble(v -> 1.0)).toArray(),
-                /*lhs=*/ 0, /*rhs=*/ scip.infinity());
+    /**
+     * The state of a single computation: The SCIP instance and the mapping of the model to it. Every computation gets
+     * a new instance, so that the solver itself keeps no state and can be used by several threads at the same time.
+     */
+    private final class Computation {
+
+        private final Scip scip = new Scip();
+        private final BinaryLP binaryLP;
+        private final Presolve presolve;
+
+        @Nullable
+        private final Consumer<SolutionEvent> listener;
+
+        /**
+         * The SCIP variable per column of the {@link BinaryLP}, or null where the {@link Presolve} fixed the value.
+         */
+        private final Variable[] vars;
+
+        private Computation(@Nonnull BinaryLP binaryLP, @Nullable Consumer<SolutionEvent> listener) {
+            this.binaryLP = binaryLP;
+            this.listener = listener;
+            this.presolve = new Presolve(binaryLP);
+            this.vars = new Variable[binaryLP.getVariables().size()];
+        }
+
+        /**
+         * @param budget The limits of the computation.
+         * @param start A complete, feasible solution that SCIP starts from (indexed like
+         * {@link BinaryLP#getVariables()}), or null.
+         */
+        @Nullable
+        private Ergebnisdaten solve(@Nonnull SolverBudget budget, @Nullable Boolean[] start) {
+            if (presolve.isInfeasible()) return null;
+            scip.create("SchulScheduler");
+            scip.maximization();
+            try {
+                lastTransfer = ModelStatistics.Phase.measure("scipTransfer", () -> {
+                    for (BinaryVariable variable : presolve.getVariables()) {
+                        vars[variable.getIndex()] = scip.createVar(variable.getName(), /*lb=*/0.0, /*ub=*/1.0,
+                                /*obj=*/variable.getObjectiveFactor(), SCIP_Vartype.SCIP_VARTYPE_BINARY);
+                    }
+                    addConstraints(presolve.getMatrix());
+                });
+
+                if (start != null) {
+                    Solution startSolution = scip.createSol();
+                    for (int column = 0; column < vars.length; column++) {
+                        if (vars[column] != null) {
+                            scip.setSolVal(startSolution, vars[column], start[column] ? 1.0 : 0.0);
+                        }
+                    }
+                    scip.addSolFree(startSolution);
+                }
+
+                scip.setRealParam("limits/gap", budget.getGapLimit());
+                if (budget.getNodeLimit() >= 0) scip.setLongintParam("limits/nodes", budget.getNodeLimit());
+
+                // This is the main, long blocking call. It is split into short slices, after each of which SCIP
+                // continues where it stopped, so that the thread can be interrupted and improved solutions can be
+                // published in between.
+                double timeLimit = 0;
+                double publishedObjectiveValue = Double.NEGATIVE_INFINITY;
+                do {
+                    timeLimit = Math.min(timeLimit + SLICE_SECONDS, budget.getTimeLimitSeconds());
+                    scip.setRealParam("limits/time", timeLimit); // In seconds, for all slices together
+                    scip.solve();
+                    if (Thread.currentThread().isInterrupted()) {
+                        // Keep the interrupt flag for the caller, but still return the best solution so far.
+                        break;
+                    }
+                    final Solution best = scip.getBestSol();
+                    if (listener != null && best != null
+                            && scip.getSolOrigObj(best) + presolve.getObjectiveOffset() > publishedObjectiveValue) {
+                        publishedObjectiveValue = scip.getSolOrigObj(best) + presolve.getObjectiveOffset();
+                        publish(best);
+                    }
+                } while (scip.getStatus() == SCIP_Status.SCIP_STATUS_TIMELIMIT
+                        && timeLimit < budget.getTimeLimitSeconds());
+                scip.printStatistics();
+
+                Solution solution = scip.getBestSol();
+                if (solution == null) return null;
+                return readSolution(solution);
+            } finally {
+                for (Variable var : vars) {
+                    if (var != null) scip.releaseVar(var);
+                }
+                scip.free();
+            }
+        }
+
+        /**
+         * Writes the solution into the variables of the model.
+         *
+         * @return The corresponding result.
+         */
+        @Nonnull
+        private Ergebnisdaten readSolution(@Nonnull Solution solution) {
+            final List<BinaryVariable> variables = binaryLP.getVariables();
+            for (int column = 0; column < vars.length; column++) {
+                if (vars[column] != null) {
+                    variables.get(column).setSolution(scip.getSolVal(solution, vars[column]) > 0);
+                }
+            }
+            presolve.postsolve();
+            return binaryLP.createErgebnis();
+        }
+
+        /**
+         * Passes the solution to the {@link #listener}, together with the bounds of the current state of SCIP.
+         */
+        private void publish(@Nonnull Solution solution) {
+            final double objectiveValue = scip.getSolOrigObj(solution) + presolve.getObjectiveOffset();
+            final double dualBound = scip.getDualbound() + presolve.getObjectiveOffset();
+            final boolean optimal = scip.getStatus() == SCIP_Status.SCIP_STATUS_OPTIMAL;
+            listener.accept(new SolutionEvent(readSolution(solution), objectiveValue,
+                    optimal ? objectiveValue : dualBound, optimal ? 0 : scip.getGap()));
+        }
+
+        /**
+         * Adds all rows of the matrix as linear constraints lhs <= SUM_i(coefficient_i * var_i) <= rhs. The rows are
+         * read directly from the matrix, and the arrays passed to SCIP are reused for all rows of the same length,
+         * since SCIP copies them. So apart from the names, this allocates nothing per row.
+         */
+        private void addConstraints(@Nonnull ConstraintMatrix matrix) {
+            int maxLength = 0;
+            for (int row = 0; row < matrix.getNumRows(); row++) {
+                maxLength = Math.max(maxLength, matrix.getRowEnd(row) - matrix.getRowStart(row));
+            }
+            // Indexed by the row length.
+            final Variable[][] varBuffers = new Variable[maxLength + 1][];
+            final double[][] coefficientBuffers = new double[maxLength + 1][];
+            final double infinity = scip.infinity();
+            for (int row = 0; row < matrix.getNumRows(); row++) {
+                final int start = matrix.getRowStart(row);
+                final int length = matrix.getRowEnd(row) - start;
+                if (varBuffers[length] == null) {
+                    varBuffers[length] = new Variable[length];
+                    coefficientBuffers[length] = new double[length];
+                }
+                final Variable[] rowVars = varBuffers[length];
+                final double[] coefficients = coefficientBuffers[length];
+                for (int i = 0; i < length; i++) {
+                    rowVars[i] = vars[matrix.getColumn(start + i)];
+                    coefficients[i] = matrix.getCoefficient(start + i);
+                }
+                final double lhs = matrix.getLowerBound(row);
+                final double rhs = matrix.getUpperBound(row);
+                jscip.Constraint cons = scip.createConsLinear(matrix.getName(row), rowVars, coefficients,
+                        lhs == Double.NEGATIVE_INFINITY ? -infinity : lhs,
+                        rhs == Double.POSITIVE_INFINITY ? infinity : rhs);
+                scip.addCons(cons);
+                scip.releaseCons(cons);
+            }
+        }
     }
+
 }
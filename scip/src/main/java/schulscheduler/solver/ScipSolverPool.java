@@ -0,0 +1,76 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe solver for running many computations in parallel, e.g. the timetables of several schools. Since each
+ * SCIP instance takes a lot of memory and a full core, it bounds the number of computations that run at the same time,
+ * and further calls block until one of them finishes.
+ */
+public class ScipSolverPool implements Solver {
+
+    private final ScipSolver solver;
+    private final Semaphore permits;
+    private final int poolSize;
+
+    /**
+     * Creates a pool with one computation per available processor.
+     */
+    public ScipSolverPool() {
+        this(Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param poolSize The maximum number of concurrent computations.
+     * @param budget The limits for all computations, or null to derive them from the Rechendauer of each input, see
+     * {@link ScipSolver#ScipSolver(SolverBudget)}.
+     */
+    public ScipSolverPool(int poolSize, @Nullable SolverBudget budget) {
+        if (poolSize < 1) throw new IllegalArgumentException("The pool needs at least one solver");
+        this.solver = new ScipSolver(budget);
+        this.permits = new Semaphore(poolSize, /*fair=*/true);
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        return solve(eingabe, null, null);
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher)
+            throws InterruptedException {
+        return solve(eingabe, vorher, null);
+    }
+
+    /**
+     * Blocks until fewer than {@link #getPoolSize()} computations are running, then solves.
+     */
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                               @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        permits.acquire();
+        try {
+            return solver.solve(eingabe, vorher, listener);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return The maximum number of concurrent computations.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+}
@@ -0,0 +1,35 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.testutils.TestData;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ScipSolverPoolTest {
+    @Test
+    public void testConcurrentSolves() throws Exception {
+        ScipSolverPool pool = new ScipSolverPool(2, new SolverBudget(60, -1, 0.05));
+        Eingabedaten eingabe1 = TestData.readTestdataset();
+        Eingabedaten eingabe2 = TestData.readTestdataset();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // One more than the pool size, so that one computation has to wait for a free solver.
+            List<Future<Ergebnisdaten>> futures = executor.invokeAll(List.of(
+                    () -> pool.solve(eingabe1), () -> pool.solve(eingabe2), () -> pool.solve(eingabe1)));
+            for (Future<Ergebnisdaten> future : futures) {
+                assertThat(future.get(), notNullValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -10,12 +10,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 public class ScipSolverTest {
     @Test
-    public void testScipSolver() {
+    public void testScipSolver() throws InterruptedException {
 
         ScipSolver solver = new ScipSolver();
         Eingabedaten eingabe = TestData.readTestdataset();
 
         Ergebnisdaten ergebnis = solver.solve(eingabe);
         assertThat(ergebnis, notNullValue());
+        assertThat(solver.getLastTransfer(), notNullValue());
     }
 }
@@ -0,0 +1,199 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.model.base.IDElement;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Kompakte Identifikation einer Bedingung oder Variable: Die Art der Bedingung aus {@link EnumConstraints} zusammen mit
+ * ihren Parametern, wobei Elemente nur über ihre ID referenziert werden. Der lesbare Name (wie ihn
+ * {@link EnumConstraints#get(Object...)} liefert) wird erst bei Bedarf mit {@link #render(IntFunction)} erzeugt, z.B.
+ * für den Solver oder um Konflikte anzuzeigen.
+ */
+public final class ConstraintKey {
+
+    private static final int MAX_PARAMETERS = Integer.SIZE;
+
+    /**
+     * Die Art der Bedingung, oder null für Schlüssel, die nur aus den Parametern bestehen (z.B. die Hauptvariablen).
+     */
+    @Nullable
+    private final EnumConstraints type;
+
+    /**
+     * Die Parameter, entweder Element-IDs oder Zahlenwerte, siehe {@link #elementMask}.
+     */
+    private final int[] parameters;
+
+    /**
+     * Bit i ist gesetzt, wenn `parameters[i]` die ID eines Elements ist.
+     */
+    private final int elementMask;
+
+    /**
+     * Wird beim Rendern an den Namen angehängt, oder null.
+     */
+    @Nullable
+    private final String suffix;
+
+    private ConstraintKey(@Nullable EnumConstraints type, int[] parameters, int elementMask, @Nullable String suffix) {
+        this.type = type;
+        this.parameters = parameters;
+        this.elementMask = elementMask;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @param type Die Art der Bedingung, oder null.
+     * @param parameters Die Parameter der Bedingung, jeweils ein Element (ein {@link BaseElement} oder ein Element einer
+     * {@link schulscheduler.model.snapshot.EingabeSnapshot}) oder eine ganze Zahl.
+     * @return Ein neuer Schlüssel.
+     */
+    public static ConstraintKey of(@Nullable EnumConstraints type, @Nonnull Object... parameters) {
+        if (parameters.length > MAX_PARAMETERS) {
+            throw new IllegalArgumentException("Too many parameters: " + parameters.length);
+        }
+        int[] values = new int[parameters.length];
+        int elementMask = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] instanceof IDElement) {
+                values[i] = ((IDElement) parameters[i]).getId();
+                elementMask |= 1 << i;
+            } else if (parameters[i] instanceof Integer) {
+                values[i] = (Integer) parameters[i];
+            } else {
+                throw new IllegalArgumentException("Unsupported parameter " + parameters[i]);
+            }
+        }
+        return new ConstraintKey(type, values, elementMask, null);
+    }
+
+    /**
+     * @param newSuffix Ein Text, der beim Rendern an den Namen angehängt wird, z.B. "-Var".
+     * @return Ein neuer Schlüssel mit denselben Parametern und dem angegebenen Suffix.
+     */
+    public ConstraintKey withSuffix(@Nonnull String newSuffix) {
+        return new ConstraintKey(type, parameters, elementMask, suffix == null ? newSuffix : suffix + newSuffix);
+    }
+
+    @Nullable
+    public EnumConstraints getType() {
+        return type;
+    }
+
+    public int getParameterCount() {
+        return parameters.length;
+    }
+
+    /**
+     * @param i Der Index eines Parameters.
+     * @return Die Element-ID bzw. der Zahlenwert des Parameters.
+     */
+    public int getParameter(int i) {
+        return parameters[i];
+    }
+
+    /**
+     * @param i Der Index eines Parameters.
+     * @return True, wenn der Parameter eine Element-ID ist.
+     */
+    public boolean isElement(int i) {
+        return (elementMask & (1 << i)) != 0;
+    }
+
+    /**
+     * @param elements Liefert zu einer Element-ID das zugehörige Element.
+     * @return Der lesbare Name, genau wie von {@link EnumConstraints#get(Object...)} erzeugt.
+     */
+    @Nonnull
+    public String render(@Nonnull IntFunction<? extends BaseElement> elements) {
+        StringBuilder result = new StringBuilder();
+        if (type != null) {
+            result.append(type.name());
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (type != null || i > 0) {
+                result.append("-");
+            }
+            if (isElement(i)) {
+                BaseElement element = elements.apply(parameters[i]);
+                result.append(element != null ? element.toShortString() : "#" + parameters[i]);
+            } else {
+                result.append(parameters[i]);
+            }
+        }
+        if (suffix != null) {
+            result.append(suffix);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Schreibt diesen Schlüssel in kompakter binärer Form, siehe {@link #readFrom(DataInput)}.
+     *
+     * @param out Die Ausgabe.
+     * @throws IOException Wenn die Ausgabe nicht geschrieben werden kann.
+     */
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        out.writeByte(type == null ? -1 : type.ordinal());
+        out.writeByte(parameters.length);
+        out.writeInt(elementMask);
+        for (int parameter : parameters) {
+            out.writeInt(parameter);
+        }
+        out.writeBoolean(suffix != null);
+        if (suffix != null) {
+            out.writeUTF(suffix);
+        }
+    }
+
+    /**
+     * @param in Die Eingabe, mit {@link #writeTo(DataOutput)} geschrieben.
+     * @return Der gelesene Schlüssel.
+     * @throws IOException Wenn die Eingabe nicht gelesen werden kann oder ungültig ist.
+     */
+    @Nonnull
+    public static ConstraintKey readFrom(@Nonnull DataInput in) throws IOException {
+        final int typeOrdinal = in.readByte();
+        final int numParameters = in.readByte();
+        if (typeOrdinal < -1 || typeOrdinal >= EnumConstraints.values().length
+                || numParameters < 0 || numParameters > MAX_PARAMETERS) {
+            throw new IOException("Ungültiger ConstraintKey");
+        }
+        final int elementMask = in.readInt();
+        final int[] parameters = new int[numParameters];
+        for (int i = 0; i < numParameters; i++) {
+            parameters[i] = in.readInt();
+        }
+        final String suffix = in.readBoolean() ? in.readUTF() : null;
+        return new ConstraintKey(typeOrdinal < 0 ? null : EnumConstraints.values()[typeOrdinal], parameters,
+                elementMask, suffix);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConstraintKey that = (ConstraintKey) o;
+        return type == that.type && elementMask == that.elementMask && Arrays.equals(parameters, that.parameters)
+                && Objects.equals(suffix, that.suffix);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(type, elementMask, suffix) + Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public String toString() {
+        return render(id -> null);
+    }
+}
@@ -0,0 +1,236 @@
+package schulscheduler.solver;
+
+import javafx.collections.FXCollections;
+import schulscheduler.collections.IDElementMap;
+import schulscheduler.model.base.IDElement;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.model.ergebnis.Klassenstundenplan;
+import schulscheduler.model.ergebnis.Lehrerstundenplan;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.unterricht.Klasse;
+import schulscheduler.model.unterricht.Kopplung;
+import schulscheduler.model.unterricht.Unterrichtseinheit;
+import schulscheduler.model.unterricht.Zuweisung;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A solver that splits the input into independent sub-problems, solves them in parallel and merges the results.
+ * <p>
+ * Two Klassen or Lehrer depend on each other if they share an Unterrichtseinheit (a Zuweisung or Kopplung), because
+ * all constraints of the model are formulated per Klasse, Lehrer or Unterrichtseinheit. The connected components of
+ * this relation can therefore be scheduled independently, e.g. when one input contains several schools. Since the
+ * effort of solving grows much faster than linearly with the size of the model, solving the components separately is
+ * much faster than solving the whole input at once.
+ */
+public class DecomposingSolver implements Solver {
+
+    private final Supplier<? extends Solver> solverFactory;
+
+    /**
+     * @param solverFactory Creates the solver for each component. It may also return the same thread-safe instance
+     * every time, see {@link Solver}.
+     */
+    public DecomposingSolver(@Nonnull Supplier<? extends Solver> solverFactory) {
+        this.solverFactory = solverFactory;
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        return solve(eingabe, null, null);
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher)
+            throws InterruptedException {
+        return solve(eingabe, vorher, null);
+    }
+
+    /**
+     * The previous solution is passed to the solver of every component as a whole, since solvers match it to their
+     * input by IDs. If the input consists of a single component, the listener receives the solutions of its solver.
+     * Otherwise, the listener is ignored, because the solution of one component is not a solution of the whole input.
+     */
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                               @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        final List<Eingabedaten> components = decompose(eingabe);
+        if (components.size() <= 1) {
+            return solverFactory.get().solve(eingabe, vorher, listener);
+        }
+
+        final int numThreads = Math.min(components.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final List<Ergebnisdaten> ergebnisse = new ArrayList<>();
+        try {
+            final CompletionService<Ergebnisdaten> completionService = new ExecutorCompletionService<>(executor);
+            for (Eingabedaten component : components) {
+                final Solver solver = solverFactory.get();
+                completionService.submit(() -> solver.solve(component, vorher));
+            }
+            for (int i = 0; i < components.size(); i++) {
+                final Future<Ergebnisdaten> future = completionService.take();
+                final Ergebnisdaten ergebnis;
+                try {
+                    ergebnis = future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                    if (e.getCause() instanceof InterruptedException) {
+                        final InterruptedException interrupted = new InterruptedException("Component interrupted");
+                        interrupted.initCause(e.getCause());
+                        throw interrupted;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+                // If one component has no solution, neither has the whole input.
+                if (ergebnis == null) return null;
+                ergebnisse.add(ergebnis);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return merge(eingabe, ergebnisse);
+    }
+
+    /**
+     * Splits the input into its connected components.
+     *
+     * @param eingabe The input, which is not modified.
+     * @return One input per component, which contains the Klassen, Lehrer, Zuweisungen and Kopplungen of the component
+     * (the same objects as in the given input) and all Stunden, Zeitslots, Fächer, Profile and parameters. Klassen and
+     * Lehrer without any Unterricht are put into the first component. If the input consists of a single component, the
+     * result only contains the input itself.
+     */
+    @Nonnull
+    public static List<Eingabedaten> decompose(@Nonnull Eingabedaten eingabe) {
+        final Map<IDElement, IDElement> parents = new IDElementMap<>();
+        final List<Unterrichtseinheit> einheiten = Stream.concat(
+                eingabe.getZuweisungen().stream(), eingabe.getKopplungen().stream()).collect(Collectors.toList());
+        for (Unterrichtseinheit einheit : einheiten) {
+            final List<IDElement> teilnehmer = getTeilnehmer(einheit);
+            for (IDElement element : teilnehmer) {
+                union(parents, teilnehmer.get(0), element);
+            }
+        }
+
+        // The components in the order of their first occurrence, so that the result is deterministic.
+        final Map<IDElement, Eingabedaten> components = new LinkedHashMap<>();
+        for (Unterrichtseinheit einheit : einheiten) {
+            components.computeIfAbsent(find(parents, getTeilnehmer(einheit).get(0)), root -> createComponent(eingabe));
+        }
+        if (components.size() <= 1) return List.of(eingabe);
+
+        final Eingabedaten first = components.values().iterator().next();
+        for (Klasse klasse : eingabe.getKlassen()) {
+            Objects.requireNonNullElse(components.get(find(parents, klasse)), first).getKlassen().add(klasse);
+        }
+        for (Lehrer lehrer : eingabe.getLehrer()) {
+            Objects.requireNonNullElse(components.get(find(parents, lehrer)), first).getLehrer().add(lehrer);
+        }
+        for (Zuweisung zuweisung : eingabe.getZuweisungen()) {
+            components.get(find(parents, getTeilnehmer(zuweisung).get(0))).getZuweisungen().add(zuweisung);
+        }
+        for (Kopplung kopplung : eingabe.getKopplungen()) {
+            components.get(find(parents, getTeilnehmer(kopplung).get(0))).getKopplungen().add(kopplung);
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    /**
+     * @return The Klassen and Lehrer that take part in the Unterrichtseinheit. For a Kopplung, this includes those of
+     * the coupled Zuweisungen, because their remaining Wochenstunden depend on the Kopplung.
+     */
+    private static List<IDElement> getTeilnehmer(@Nonnull Unterrichtseinheit einheit) {
+        Stream<Unterrichtseinheit> einheiten = Stream.of(einheit);
+        if (einheit instanceof Kopplung) {
+            einheiten = Stream.concat(einheiten, ((Kopplung) einheit).getZuweisungen().stream());
+        }
+        final List<IDElement> teilnehmer = einheiten
+                .flatMap(e -> Stream.concat(e.getAllKlassen(), e.getAllLehrer()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (teilnehmer.isEmpty()) throw new IllegalArgumentException("Unterrichtseinheit without Klassen and Lehrer");
+        return teilnehmer;
+    }
+
+    /**
+     * @return An input without Klassen, Lehrer, Zuweisungen and Kopplungen, but with everything else of the given one.
+     */
+    private static Eingabedaten createComponent(@Nonnull Eingabedaten eingabe) {
+        final Eingabedaten component = new Eingabedaten();
+        component.setStunden(FXCollections.observableArrayList(eingabe.getStunden()));
+        component.setZeitslots(FXCollections.observableArrayList(eingabe.getZeitslots()));
+        component.setFaecher(FXCollections.observableArrayList(eingabe.getFaecher()));
+        component.setProfile(FXCollections.observableArrayList(eingabe.getProfile()));
+        component.setParameter(eingabe.getParameter());
+        return component;
+    }
+
+    private static IDElement find(@Nonnull Map<IDElement, IDElement> parents, @Nonnull IDElement element) {
+        IDElement root = element;
+        for (IDElement parent = parents.get(root); parent != null; parent = parents.get(root)) {
+            root = parent;
+        }
+        // Path compression
+        for (IDElement current = element; current != root; ) {
+            current = parents.put(current, root);
+        }
+        return root;
+    }
+
+    private static void union(@Nonnull Map<IDElement, IDElement> parents, @Nonnull IDElement a,
+                              @Nonnull IDElement b) {
+        final IDElement rootA = find(parents, a);
+        final IDElement rootB = find(parents, b);
+        if (rootA != rootB) {
+            parents.put(rootB, rootA);
+        }
+    }
+
+    /**
+     * Combines the results of all components into one result for the whole input. The Stundenpläne are ordered like
+     * the Klassen and Lehrer of the input, as if the input had been solved at once.
+     */
+    @Nonnull
+    private static Ergebnisdaten merge(@Nonnull Eingabedaten eingabe, @Nonnull List<Ergebnisdaten> ergebnisse) {
+        final Ergebnisdaten merged = new Ergebnisdaten();
+        merged.setEingabedaten(eingabe);
+        final Map<Klasse, Klassenstundenplan> klassenStundenplaene = new IDElementMap<>();
+        final Map<Lehrer, Lehrerstundenplan> lehrerStundenplaene = new IDElementMap<>();
+        for (Ergebnisdaten ergebnis : ergebnisse) {
+            merged.getUnterricht().addAll(ergebnis.getUnterricht());
+            ergebnis.getKlassenStundenplaene().forEach(plan -> klassenStundenplaene.put(plan.getKlasse(), plan));
+            ergebnis.getLehrerStundenplaene().forEach(plan -> lehrerStundenplaene.put(plan.getLehrer(), plan));
+        }
+        for (Klasse klasse : eingabe.getKlassen()) {
+            final Klassenstundenplan plan = klassenStundenplaene.get(klasse);
+            if (plan != null) merged.getKlassenStundenplaene().add(plan);
+        }
+        for (Lehrer lehrer : eingabe.getLehrer()) {
+            final Lehrerstundenplan plan = lehrerStundenplaene.get(lehrer);
+            if (plan != null) merged.getLehrerStundenplaene().add(plan);
+        }
+        return merged;
+    }
+
+}
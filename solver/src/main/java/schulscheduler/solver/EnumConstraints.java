@@ -99,4 +99,12 @@ public enum EnumConstraints {
         return result.toString();
     }
 
+    /**
+     * @param parameters Die tatsächlichen Parameter für den Konflikt-String.
+     * @return Ein Schlüssel, aus dem bei Bedarf derselbe String wie mit {@link #get(Object...)} erzeugt werden kann.
+     */
+    public ConstraintKey key(Object... parameters) {
+        return ConstraintKey.of(this, parameters);
+    }
+
 }
@@ -0,0 +1,61 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.solver.binary.BinaryLP;
+import schulscheduler.solver.binary.LocalSearch;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A solver that runs a {@link LocalSearch} on a {@link BinaryLP}. It is implemented in pure Java and needs no native
+ * libraries, but it cannot prove that a problem is infeasible or that a solution is optimal.
+ */
+public class LocalSearchSolver implements Solver {
+
+    /**
+     * The default time limit for the search in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 30_000;
+
+    private final long timeLimitMillis;
+    private final long seed;
+
+    public LocalSearchSolver() {
+        this(DEFAULT_TIME_LIMIT_MILLIS, 0);
+    }
+
+    /**
+     * @param timeLimitMillis The maximum duration of the search in milliseconds. The search stops earlier if it stops
+     * finding improvements.
+     * @param seed The seed for the random moves of the search, so that results are reproducible.
+     */
+    public LocalSearchSolver(long timeLimitMillis, long seed) {
+        this.timeLimitMillis = timeLimitMillis;
+        this.seed = seed;
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        return solve(eingabe, null);
+    }
+
+    /**
+     * The search starts from the previous solution, with only the lessons re-planned that do not fit anymore.
+     */
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher)
+            throws InterruptedException {
+        final BinaryLP binaryLP = new BinaryLP(eingabe, /*aggregieren=*/true);
+        final LocalSearch search = new LocalSearch(binaryLP, seed);
+        if (vorher != null) {
+            search.setStartwerte(binaryLP.getStartwerte(vorher));
+        }
+        final boolean feasible = search.solve(timeLimitMillis);
+        return feasible ? binaryLP.createErgebnis() : null;
+    }
+
+}
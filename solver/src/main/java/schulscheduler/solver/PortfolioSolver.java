@@ -0,0 +1,208 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.solver.binary.BinaryLP;
+import schulscheduler.solver.binary.BinaryVariable;
+import schulscheduler.solver.binary.Incumbent;
+import schulscheduler.solver.binary.LocalSearch;
+import schulscheduler.solver.binary.SatSearch;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A solver that builds the {@link BinaryLP} once and races several search strategies on it in parallel threads. The
+ * strategies share the best solution found so far through an {@link Incumbent}, so that e.g. a fast heuristic provides
+ * the SAT search with a bound, and the SAT search in turn stops the others as soon as it proves optimality or
+ * infeasibility. Otherwise, all strategies are cancelled when the time limit expires.
+ */
+public class PortfolioSolver implements Solver {
+
+    /**
+     * The default time limit for the whole portfolio in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 30_000;
+
+    /**
+     * One member of the portfolio. It runs in its own thread, must not modify the model and must report its solutions
+     * to the incumbent.
+     */
+    @FunctionalInterface
+    public interface Strategy {
+
+        /**
+         * Runs the search until the time limit expires, the incumbent is finished, or the thread is interrupted.
+         *
+         * @param binaryLP The model, shared with the other strategies.
+         * @param incumbent The best solution, shared with the other strategies.
+         * @param timeLimitMillis The maximum duration of the search in milliseconds.
+         * @throws InterruptedException When the portfolio cancels this strategy.
+         */
+        void search(@Nonnull BinaryLP binaryLP, @Nonnull Incumbent incumbent, long timeLimitMillis)
+                throws InterruptedException;
+
+    }
+
+    /**
+     * @param seed The seed for the random moves of the search.
+     * @return A strategy that runs a {@link LocalSearch}.
+     */
+    public static Strategy localSearch(long seed) {
+        return (binaryLP, incumbent, timeLimitMillis) -> {
+            final LocalSearch search = new LocalSearch(binaryLP, seed);
+            search.setIncumbent(incumbent);
+            search.search(timeLimitMillis);
+        };
+    }
+
+    /**
+     * @return A strategy that runs a {@link SatSearch}.
+     */
+    public static Strategy satSearch() {
+        return (binaryLP, incumbent, timeLimitMillis) -> {
+            final SatSearch search = new SatSearch(binaryLP);
+            search.setIncumbent(incumbent);
+            search.search(timeLimitMillis);
+        };
+    }
+
+    /**
+     * @return The default portfolio for this machine: One SAT search, and local searches with different seeds on the
+     * remaining cores.
+     */
+    public static List<Strategy> defaultStrategies() {
+        final List<Strategy> strategies = new ArrayList<>();
+        strategies.add(satSearch());
+        final int numLocalSearches = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        for (int seed = 0; seed < numLocalSearches; seed++) {
+            strategies.add(localSearch(seed));
+        }
+        return strategies;
+    }
+
+    /**
+     * How often the best solution is checked for improvements while the strategies are running, see
+     * {@link #solve(Eingabedaten, Ergebnisdaten, Consumer)}.
+     */
+    private static final long PUBLISH_INTERVAL_NANOS = 1_000_000_000;
+
+    private final List<Strategy> strategies;
+    private final long timeLimitMillis;
+
+    public PortfolioSolver() {
+        this(defaultStrategies(), DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * @param strategies The strategies to run in parallel, each in its own thread.
+     * @param timeLimitMillis The maximum wall-clock duration in milliseconds.
+     */
+    public PortfolioSolver(@Nonnull List<Strategy> strategies, long timeLimitMillis) {
+        if (strategies.isEmpty()) throw new IllegalArgumentException("The portfolio needs at least one strategy");
+        this.strategies = List.copyOf(strategies);
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        return solve(eingabe, null, null);
+    }
+
+    /**
+     * The best solution of all strategies is checked once per second and published if it improved. The final result is
+     * published as well, with a gap of 0 if it is proven to be optimal. The previous solution is ignored.
+     * <p>
+     * A failing strategy does not stop the others. Its exception is only thrown if no strategy found a solution or
+     * proved infeasibility, so that a crash is not mistaken for "no solution".
+     */
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                               @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        final BinaryLP binaryLP = new BinaryLP(eingabe, /*aggregieren=*/true);
+        final Incumbent incumbent = new Incumbent();
+        double publishedObjectiveValue = Double.NEGATIVE_INFINITY;
+        RuntimeException failure = null;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(strategies.size());
+        try {
+            final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            for (Strategy strategy : strategies) {
+                completionService.submit(() -> {
+                    strategy.search(binaryLP, incumbent, timeLimitMillis);
+                    return null;
+                });
+            }
+            int remaining = strategies.size();
+            while (remaining > 0 && !incumbent.isFinished()) {
+                final long timeout = deadline - System.nanoTime();
+                if (timeout <= 0) break; // Time limit expired.
+                final Future<Void> future = completionService.poll(
+                        Math.min(timeout, PUBLISH_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+                if (listener != null && incumbent.getObjectiveValue() > publishedObjectiveValue) {
+                    final SolutionEvent event = publish(binaryLP, incumbent, listener);
+                    if (event != null) publishedObjectiveValue = event.getObjectiveValue();
+                }
+                if (future == null) continue;
+                remaining--;
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    final RuntimeException cause = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        if (incumbent.isInfeasible()) return null;
+        if (failure != null && !incumbent.hasSolution()) throw failure;
+        if (listener == null) {
+            return incumbent.applyTo(binaryLP) ? binaryLP.createErgebnis() : null;
+        }
+        final SolutionEvent event = publish(binaryLP, incumbent, listener);
+        return event == null ? null : event.getErgebnis();
+    }
+
+    /**
+     * Passes the best solution so far to the listener, while the strategies may still be running.
+     *
+     * @return The published event, or null if there is no solution yet.
+     */
+    @Nullable
+    private SolutionEvent publish(@Nonnull BinaryLP binaryLP, @Nonnull Incumbent incumbent,
+                                  @Nonnull Consumer<SolutionEvent> listener) {
+        if (!incumbent.applyTo(binaryLP)) return null;
+        // Computed from the applied values, since the incumbent may have improved in the meantime.
+        final double objectiveValue = binaryLP.getVariables().stream()
+                .filter(BinaryVariable::requireSolution)
+                .mapToDouble(BinaryVariable::getObjectiveFactor)
+                .sum();
+        final boolean optimal = incumbent.isOptimal() && objectiveValue >= incumbent.getObjectiveValue();
+        final SolutionEvent event = new SolutionEvent(binaryLP.createErgebnis(), objectiveValue,
+                optimal ? objectiveValue : Double.POSITIVE_INFINITY, optimal ? 0 : Double.POSITIVE_INFINITY);
+        listener.accept(event);
+        return event;
+    }
+
+}
@@ -0,0 +1,46 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.solver.binary.BinaryLP;
+import schulscheduler.solver.binary.SatSearch;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A solver that translates a {@link BinaryLP} into clauses and runs a {@link SatSearch} on them. It is implemented in
+ * pure Java and needs no native libraries. Unlike the {@link LocalSearchSolver}, it can prove that a problem is
+ * infeasible and that a solution is optimal.
+ */
+public class SatSolver implements Solver {
+
+    /**
+     * The default time limit for the search in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 30_000;
+
+    private final long timeLimitMillis;
+
+    public SatSolver() {
+        this(DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * @param timeLimitMillis The maximum duration of the search in milliseconds. If it expires after a solution was
+     * found, the best solution so far is returned.
+     */
+    public SatSolver(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    @Override
+    @Nullable
+    public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException {
+        final BinaryLP binaryLP = new BinaryLP(eingabe, /*aggregieren=*/true);
+        final SatSearch search = new SatSearch(binaryLP);
+        final boolean feasible = search.solve(timeLimitMillis);
+        return feasible ? binaryLP.createErgebnis() : null;
+    }
+
+}
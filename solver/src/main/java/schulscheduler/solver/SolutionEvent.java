@@ -0,0 +1,61 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An improving solution that a solver found while it is still running, see {@link SolverRun}. The objective is
+ * maximized, so the dual bound is an upper bound for the objective value of any solution.
+ */
+public final class SolutionEvent {
+
+    private final Ergebnisdaten ergebnis;
+    private final double objectiveValue;
+    private final double dualBound;
+    private final double gap;
+
+    /**
+     * @param ergebnis The solution.
+     * @param objectiveValue The objective value of the solution, or NaN if the solver does not know it.
+     * @param dualBound The best known upper bound for the objective value, or +∞ if the solver does not know one.
+     * @param gap The relative gap between the objective value and the dual bound, 0 if the solution is proven to be
+     * optimal and +∞ if unknown.
+     */
+    public SolutionEvent(@Nonnull Ergebnisdaten ergebnis, double objectiveValue, double dualBound, double gap) {
+        this.ergebnis = ergebnis;
+        this.objectiveValue = objectiveValue;
+        this.dualBound = dualBound;
+        this.gap = gap;
+    }
+
+    @Nonnull
+    public Ergebnisdaten getErgebnis() {
+        return ergebnis;
+    }
+
+    public double getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    public double getDualBound() {
+        return dualBound;
+    }
+
+    public double getGap() {
+        return gap;
+    }
+
+    /**
+     * @return True if the solution is proven to be optimal, so that the solver will not find a better one.
+     */
+    public boolean isOptimal() {
+        return gap == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SolutionEvent{objectiveValue=" + objectiveValue + ", dualBound=" + dualBound + ", gap=" + gap + "}";
+    }
+
+}
@@ -5,10 +5,12 @@ import schulscheduler.model.ergebnis.Ergebnisdaten;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.function.Consumer;
 
 /**
  * A solver computes a solution to the scheduling problem, i.e. it maps Eingabedaten to Ergebnisdaten.
- * Each solver instance may only be used once.
+ * A solver instance can be used for any number of computations. All solvers in this project keep their state per
+ * computation and are thread-safe, so that several threads may also use the same instance at the same time.
  */
 public interface Solver {
 
@@ -22,4 +24,38 @@ public interface Solver {
     @Nullable
     Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) throws InterruptedException;
 
+    /**
+     * Computes a solution, starting from a previous solution, e.g. the one computed before the user made a small edit
+     * to the input. Since the previous solution is usually almost feasible for the edited input, solvers that support
+     * this find a good solution much faster. The default implementation ignores the previous solution.
+     *
+     * @param eingabe Problem statement.
+     * @param vorher A previous solution of the same or a similar problem, or null.
+     * @return A solution to the problem or null if none could be found.
+     * @throws InterruptedException In case the thread was interrupted.
+     */
+    @Nullable
+    default Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher)
+            throws InterruptedException {
+        return solve(eingabe);
+    }
+
+    /**
+     * Computes a solution like {@link #solve(Eingabedaten, Ergebnisdaten)}, and calls the listener from the solving
+     * thread with every improving solution found while solving, so that the caller can show early results, see
+     * {@link SolverRun}. The listener only belongs to this computation. The default implementation ignores the
+     * listener, so such solvers only deliver their final result.
+     *
+     * @param eingabe Problem statement.
+     * @param vorher A previous solution of the same or a similar problem, or null.
+     * @param listener The listener for improving solutions, or null.
+     * @return A solution to the problem or null if none could be found.
+     * @throws InterruptedException In case the thread was interrupted.
+     */
+    @Nullable
+    default Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                                @Nullable Consumer<SolutionEvent> listener) throws InterruptedException {
+        return solve(eingabe, vorher);
+    }
+
 }
@@ -0,0 +1,94 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.BerechnungsParameter;
+import schulscheduler.model.eingabe.EnumGewichtung;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The limits of a computation: The solver stops when the first of them is reached and returns the best solution found
+ * until then. Usually derived from the {@link BerechnungsParameter#getRechendauer() Rechendauer} the user chose.
+ */
+public final class SolverBudget {
+
+    /**
+     * The budget for the default Rechendauer {@link EnumGewichtung#MITTEL}.
+     */
+    public static final SolverBudget DEFAULT = new SolverBudget(600, -1, 0);
+
+    private final double timeLimitSeconds;
+    private final long nodeLimit;
+    private final double gapLimit;
+
+    /**
+     * @param timeLimitSeconds The maximum duration in seconds.
+     * @param nodeLimit The maximum number of nodes in the branch and bound tree, or -1 for no limit.
+     * @param gapLimit The relative gap between the best solution and the dual bound below which the solution is good
+     * enough, 0 to require a proven optimum.
+     */
+    public SolverBudget(double timeLimitSeconds, long nodeLimit, double gapLimit) {
+        if (timeLimitSeconds <= 0) throw new IllegalArgumentException("Time limit must be positive");
+        if (gapLimit < 0) throw new IllegalArgumentException("Gap limit must not be negative");
+        this.timeLimitSeconds = timeLimitSeconds;
+        this.nodeLimit = nodeLimit;
+        this.gapLimit = gapLimit;
+    }
+
+    /**
+     * @param rechendauer The Rechendauer, see {@link EnumGewichtung#berechnungPrioritaetValues()}, or null for the
+     * default. Values above {@link EnumGewichtung#HOCH} are treated like it.
+     * @return The budget for the Rechendauer. Shorter computations also accept solutions that are not optimal.
+     */
+    @Nonnull
+    public static SolverBudget forRechendauer(@Nullable EnumGewichtung rechendauer) {
+        if (rechendauer == null) return DEFAULT;
+        switch (rechendauer) {
+            case NULL:
+                return new SolverBudget(30, 10_000, 0.05);
+            case NIEDRIG:
+                return new SolverBudget(120, 100_000, 0.01);
+            case MITTEL:
+                return DEFAULT;
+            default:
+                return new SolverBudget(3600, -1, 0);
+        }
+    }
+
+    /**
+     * @param parameter The parameters of the computation, or null for the default.
+     * @return The budget for their Rechendauer.
+     */
+    @Nonnull
+    public static SolverBudget of(@Nullable BerechnungsParameter parameter) {
+        return forRechendauer(parameter == null ? null : parameter.getRechendauer());
+    }
+
+    /**
+     * @param newTimeLimitSeconds The maximum duration in seconds, e.g. the remainder after a preparation step.
+     * @return A budget with the same node and gap limits, but the given time limit.
+     */
+    @Nonnull
+    public SolverBudget withTimeLimitSeconds(double newTimeLimitSeconds) {
+        return new SolverBudget(newTimeLimitSeconds, nodeLimit, gapLimit);
+    }
+
+    public double getTimeLimitSeconds() {
+        return timeLimitSeconds;
+    }
+
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    public double getGapLimit() {
+        return gapLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverBudget{timeLimitSeconds=" + timeLimitSeconds + ", nodeLimit=" + nodeLimit + ", gapLimit="
+                + gapLimit + "}";
+    }
+
+}
@@ -0,0 +1,116 @@
+package schulscheduler.solver;
+
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A handle to a solver that runs in the background. Every improving solution the solver finds is published as a
+ * {@link SolutionEvent}, so that the caller can display early results and {@link #stop()} the solver as soon as the
+ * quality is good enough. Solvers that ignore the listener of
+ * {@link Solver#solve(Eingabedaten, Ergebnisdaten, java.util.function.Consumer)} only publish their final result, with
+ * unknown objective value and bounds.
+ * <p>
+ * Events are offered to the subscribers without waiting, so that a slow subscriber never stalls the solver. If its
+ * buffer is full, it misses intermediate events, but {@link #getLatest()} and {@link #getResult()} always reflect the
+ * newest solution.
+ */
+public final class SolverRun {
+
+    private final SubmissionPublisher<SolutionEvent> publisher = new SubmissionPublisher<>();
+    private final CompletableFuture<Ergebnisdaten> result = new CompletableFuture<>();
+    private final Thread thread;
+
+    @Nullable
+    private volatile SolutionEvent latest;
+
+    private SolverRun(@Nonnull Solver solver, @Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher) {
+        thread = new Thread(() -> run(solver, eingabe, vorher), "SolverRun");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts solving in a new background thread.
+     *
+     * @param solver The solver, which may also be used by other computations at the same time.
+     * @param eingabe Problem statement.
+     * @param vorher A previous solution to start from, see {@link Solver#solve(Eingabedaten, Ergebnisdaten)}, or null.
+     * @param subscriber Receives the improving solutions. It is subscribed before the solver starts, so that it does
+     * not miss the first ones.
+     * @return The handle to the running solver.
+     */
+    @Nonnull
+    public static SolverRun start(@Nonnull Solver solver, @Nonnull Eingabedaten eingabe,
+                                  @Nullable Ergebnisdaten vorher,
+                                  @Nonnull Flow.Subscriber<? super SolutionEvent> subscriber) {
+        final SolverRun run = new SolverRun(solver, eingabe, vorher);
+        run.publisher.subscribe(subscriber);
+        run.thread.start();
+        return run;
+    }
+
+    private void run(@Nonnull Solver solver, @Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher) {
+        try {
+            final Ergebnisdaten ergebnis = solver.solve(eingabe, vorher, this::publish);
+            final SolutionEvent last = latest;
+            if (ergebnis != null && (last == null || last.getErgebnis() != ergebnis)) {
+                publish(new SolutionEvent(ergebnis, Double.NaN, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+            }
+            publisher.close();
+            result.complete(ergebnis);
+        } catch (InterruptedException e) {
+            // Stopped by the caller, so the best solution so far is the result.
+            final SolutionEvent last = latest;
+            publisher.close();
+            result.complete(last == null ? null : last.getErgebnis());
+        } catch (RuntimeException | Error e) {
+            publisher.closeExceptionally(e);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void publish(@Nonnull SolutionEvent event) {
+        latest = event;
+        publisher.offer(event, (subscriber, dropped) -> false);
+    }
+
+    /**
+     * @return The publisher of the improving solutions. It completes when the solver finishes or is stopped, and
+     * fails with the exception of the solver if it fails. Subscribers added here miss the solutions published before,
+     * see {@link #start}.
+     */
+    @Nonnull
+    public Flow.Publisher<SolutionEvent> getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * @return The most recently published solution, or null if none was published yet.
+     */
+    @Nullable
+    public SolutionEvent getLatest() {
+        return latest;
+    }
+
+    /**
+     * @return The final result: The solution returned by the solver, or the best published one if the solver was
+     * stopped. Null if there is none.
+     */
+    @Nonnull
+    public CompletableFuture<Ergebnisdaten> getResult() {
+        return result;
+    }
+
+    /**
+     * Stops the solver by interrupting its thread. The best solution found so far becomes the result.
+     */
+    public void stop() {
+        thread.interrupt();
+    }
+
+}
@@ -1,8 +1,8 @@
 package schulscheduler.solver.binary;
 
-import javafx.util.Pair;
 import schulscheduler.collections.IDElementMap;
-import schulscheduler.collections.IDElementSet;
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.model.base.IDElement;
 import schulscheduler.model.eingabe.Eingabedaten;
 import schulscheduler.model.eingabe.EnumGewichtung;
 import schulscheduler.model.ergebnis.Ergebnisdaten;
@@ -11,24 +11,41 @@ import schulscheduler.model.ergebnis.Lehrerstundenplan;
 import schulscheduler.model.ergebnis.Unterricht;
 import schulscheduler.model.schule.EnumVerfuegbarkeit;
 import schulscheduler.model.schule.EnumWochentag;
-import schulscheduler.model.schule.Fach;
 import schulscheduler.model.schule.Lehrer;
 import schulscheduler.model.schule.Zeitslot;
+import schulscheduler.model.snapshot.EingabeSnapshot;
 import schulscheduler.model.unterricht.Klasse;
-import schulscheduler.model.unterricht.Kopplung;
 import schulscheduler.model.unterricht.Unterrichtseinheit;
-import schulscheduler.model.unterricht.Zuweisung;
+import schulscheduler.solver.ConstraintKey;
 import schulscheduler.solver.EnumConstraints;
-import schulscheduler.xml.Serialization;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -41,6 +58,12 @@ public class BinaryLP {
 
     private final Eingabedaten eingabe;
 
+    /**
+     * Die Momentaufnahme der Eingabe, aus der das Modell erzeugt wird. Die Familien von Bedingungen lesen nur diese und
+     * nicht die Eingabe selbst, sodass sie ohne Synchronisierung nebenläufig erzeugt werden können.
+     */
+    private EingabeSnapshot snapshot;
+
     /**
      * Alle Variablen, die für diese Probleminstanz erzeugt wurden.
      */
@@ -49,146 +72,767 @@ public class BinaryLP {
     /**
      * Alle harten Bedingungen, die zu dieser Probleminstanz hinzugefügt wurden.
      */
-    private final List<Constraint> constraints = new ArrayList<>();
+    private final ConstraintMatrix matrix = new ConstraintMatrix(this::getElement);
+
+    /**
+     * Alle Elemente der Eingabe, die in den {@link ConstraintKey}s der Variablen und Bedingungen vorkommen können,
+     * nach ihrer ID. Wird nur benötigt, um bei Bedarf deren Namen zu erzeugen und um die Elemente der
+     * {@link #snapshot} wieder den ursprünglichen Elementen zuzuordnen.
+     */
+    private final Map<Integer, BaseElement> elementsById = new HashMap<>();
+
+    /**
+     * Alle planbaren Unterrichtseinheiten (normale Lehrer-Klasse-Zuweisungen nach Abzug von Kopplungen, sowie die
+     * komplexeren Kopplungen). Der Index in dieser Liste ist die Ordinalzahl der Unterrichtseinheit.
+     */
+    private final List<EingabeSnapshot.Einheit> einheiten = new ArrayList<>();
+
+    /**
+     * Ob gleichartige Unterrichtseinheiten zusammengefasst werden, siehe {@link #BinaryLP(Eingabedaten, boolean)}.
+     */
+    private final boolean aggregieren;
+
+    /**
+     * Pro Ordinalzahl einer Unterrichtseinheit alle Unterrichtseinheiten der Eingabe, die sie vertritt. Ohne
+     * Aggregation ist das nur die Unterrichtseinheit selbst, sonst steht an erster Stelle der Vertreter aus
+     * {@link #einheiten}.
+     */
+    private final List<List<EingabeSnapshot.Einheit>> gruppen = new ArrayList<>();
+
+    /**
+     * Pro Einheit der {@link #snapshot} die Wochenstunden nach Abzug der gekoppelten Stunden, oder -1 bei Einheiten,
+     * die nicht an Kopplungen beteiligt sind.
+     */
+    private int[] restWochenstunden;
+
+    /**
+     * Pro Ordinalzahl einer Unterrichtseinheit die Anzahl der zu verplanenden Wochenstunden (bei Zuweisungen nach
+     * Abzug der Kopplungen).
+     */
+    private int[] wochenstunden;
+
+    /**
+     * Alle Zeitslots, chronologisch sortiert. Der Index in dieser Liste ist die Ordinalzahl des Zeitslots.
+     */
+    private final List<Zeitslot> zeitslots = new ArrayList<>();
+
+    /**
+     * Die Zeitslots der {@link #snapshot}, in derselben Reihenfolge wie {@link #zeitslots}.
+     */
+    private List<EingabeSnapshot.Zeitslot> slots;
 
     /**
      * Enthält die binären Hauptvariablen für das Stundenplanproblem.
-     * Pro planbarer Unterrichtseinheit (normale Lehrer-Klasse-Zuweisungen nach Abzug von Kopplungen, sowie die
-     * komplexeren Kopplungen) und pro Zeitslot gibt es eine binäre Variable die aussagt, ob die Unterrichtseinheit in
-     * dem Zeitslot stattfindet, oder nicht.
+     * Pro planbarer Unterrichtseinheit und pro Zeitslot gibt es eine binäre Variable die aussagt, ob die
+     * Unterrichtseinheit in dem Zeitslot stattfindet, oder nicht. Die Variable für die Einheit mit Ordinalzahl
+     * `einheitIdx` und den Zeitslot mit Ordinalzahl `slotIdx` steht an Index `einheitIdx * numZeitslots + slotIdx`.
+     */
+    private BinaryVariable[] mainVariables;
+
+    /**
+     * Pro Ordinalzahl einer Klasse die Ordinalzahlen der Unterrichtseinheiten, an denen die Klasse beteiligt ist, als
+     * Bitmenge.
+     */
+    private BitSet[] klassenUnterricht;
+
+    /**
+     * Pro Ordinalzahl eines Lehrers die Ordinalzahlen der Unterrichtseinheiten, an denen der Lehrer beteiligt ist, als
+     * Bitmenge.
      */
-    private final Map<Unterrichtseinheit, Map<Zeitslot, BinaryVariable>> mainVariables = new IDElementMap<>();
+    private BitSet[] lehrerUnterricht;
 
     /**
-     * Pro Klasse die Unterrichtseinheiten, an denen die Klasse beteiligt ist.
+     * Die Messungen der Abschnitte, in denen dieses Modell erzeugt wurde, siehe {@link #getStatistics()}.
      */
-    private final Map<Klasse, Set<Unterrichtseinheit>> klassenUnterricht = new IDElementMap<>();
+    private final List<ModelStatistics.Phase> phases = new ArrayList<>();
 
     /**
-     * Pro Lehrer die Unterrichtseinheiten, an denen der Lehrer beteiligt ist.
+     * Die Puffer der Familien von Bedingungen, damit ein späteres Modell unveränderte Familien wiederverwenden kann,
+     * siehe {@link IncrementalBinaryLP}. Null, wenn das Modell nicht inkrementell erzeugt wurde.
      */
-    private final Map<Lehrer, Set<Unterrichtseinheit>> lehrerUnterricht = new IDElementMap<>();
+    private final Map<EnumConstraintFamily, FamilyBuffer> familyBuffers;
 
     /**
      * Konstruktor, der das SchulScheduler-Problem in ein binäres ILP übersetzt, dass dann (direkt nach dem
-     * Konstruktor-Aufruf) über die öffentlichen Getter dieser Klasse abgeholt werden kann.
+     * Konstruktor-Aufruf) über die öffentlichen Getter dieser Klasse abgeholt werden kann. Die Eingabe wird dabei nicht
+     * verändert, darf aber auch nicht verändert werden, solange diese Instanz verwendet wird.
      *
      * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
      */
     public BinaryLP(@Nonnull Eingabedaten eingabe) {
-        this.eingabe = Serialization.xmlClone(Objects.requireNonNull(eingabe));
-        this.eingabe.getZeitslots().sort(null);
-        subtractKopplungen();
-        fillMaps();
-        createMainVariablesAndConstraints();
-
-        createGesperrteAndFixeStundenConstraints();
-        createDoppelstundenConstraints();
-        createFachProTagConstraints();
-        createLehrerVerfuegbarkeitConstraints();
-        createUnterrichtsPrioritaetConstraints();
-        createHarteFaecherFolgenConstraints(eingabe.getParameter().getHarteFaecherFolgen());
-        createHarteFaecherNachmittagsConstraints(eingabe.getParameter().getWeicheNachmittagsFaecher());
-
-        if (allVariables.isEmpty() || mainVariables.isEmpty()) {
+        this(eingabe, false);
+    }
+
+    /**
+     * Wie {@link #BinaryLP(Eingabedaten)}, fasst aber auf Wunsch gleichartige Unterrichtseinheiten zusammen.
+     * Gleichartig sind Einheiten mit denselben Klassen, Lehrern und Fächern und ohne fixe Stunden (z.B. zwei
+     * Zuweisungen desselben Lehrers in derselben Klasse und demselben Fach). Solche Einheiten sind im Modell
+     * austauschbar, sodass ein Solver ohne Zusammenfassung jede Lösung in vielen symmetrischen Varianten findet.
+     * Zusammengefasst erhalten sie nur einen Satz Hauptvariablen mit der Summe ihrer Wochenstunden. Weil die Klassen
+     * bzw. Lehrer einer Gruppe zu jedem Zeitslot nur einen Unterricht haben können, bleiben die Variablen binär.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Ob gleichartige Unterrichtseinheiten zusammengefasst werden sollen.
+     */
+    public BinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren) {
+        this(eingabe, aggregieren, null, EnumSet.allOf(EnumConstraintFamily.class), false);
+    }
+
+    /**
+     * Konstruktor für {@link IncrementalBinaryLP}, der die Familien von Bedingungen aus einem vorherigen Modell
+     * derselben Eingabe übernimmt, sofern sie sich seitdem nicht verändert haben können. Das ist nur möglich, wenn beide
+     * Modelle dieselben Unterrichtseinheiten und Zeitslots haben (und damit dieselben Hauptvariablen), sonst werden alle
+     * Familien neu erzeugt.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Ob gleichartige Unterrichtseinheiten zusammengefasst werden sollen.
+     * @param previous Das vorherige Modell, oder null.
+     * @param changedFamilies Die Familien, die seit dem vorherigen Modell neu erzeugt werden müssen.
+     */
+    BinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren, @Nullable BinaryLP previous,
+             @Nonnull Set<EnumConstraintFamily> changedFamilies) {
+        this(eingabe, aggregieren, previous, changedFamilies, true);
+    }
+
+    private BinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren, @Nullable BinaryLP previous,
+                     @Nonnull Set<EnumConstraintFamily> changedFamilies, boolean retainFamilies) {
+        this.eingabe = Objects.requireNonNull(eingabe);
+        this.aggregieren = aggregieren;
+        this.familyBuffers = retainFamilies ? new EnumMap<>(EnumConstraintFamily.class) : null;
+        phases.add(ModelStatistics.Phase.measure("createSnapshot", this::createSnapshot));
+        phases.add(ModelStatistics.Phase.measure("subtractKopplungen", this::subtractKopplungen));
+        phases.add(ModelStatistics.Phase.measure("fillMaps", this::fillMaps));
+        phases.add(ModelStatistics.Phase.measure("createMainVariablesAndConstraints",
+                this::createMainVariablesAndConstraints));
+
+        final EnumGewichtung harteFaecherFolgen = snapshot.getHarteFaecherFolgen();
+        final EnumGewichtung harteFaecherNachmittags = snapshot.getWeicheNachmittagsFaecher();
+        final Map<EnumConstraintFamily, Consumer<FamilyBuffer>> families = new EnumMap<>(EnumConstraintFamily.class);
+        families.put(EnumConstraintFamily.KONFLIKTFREIHEIT, this::createKonfliktfreiheitConstraints);
+        families.put(EnumConstraintFamily.GESPERRTE_UND_FIXE_STUNDEN, this::createGesperrteAndFixeStundenConstraints);
+        families.put(EnumConstraintFamily.DOPPELSTUNDEN, this::createDoppelstundenConstraints);
+        families.put(EnumConstraintFamily.FACH_PRO_TAG, this::createFachProTagConstraints);
+        families.put(EnumConstraintFamily.LEHRER_VERFUEGBARKEIT, this::createLehrerVerfuegbarkeitConstraints);
+        families.put(EnumConstraintFamily.UNTERRICHTSPRIORITAET, this::createUnterrichtsPrioritaetConstraints);
+        families.put(EnumConstraintFamily.HARTE_FAECHER_FOLGEN,
+                buffer -> createHarteFaecherFolgenConstraints(buffer, harteFaecherFolgen));
+        families.put(EnumConstraintFamily.HARTE_FAECHER_NACHMITTAGS,
+                buffer -> createHarteFaecherNachmittagsConstraints(buffer, harteFaecherNachmittags));
+        final boolean reusable = previous != null && previous.familyBuffers != null && hasSameStructure(previous);
+        createFamilies(families, reusable ? previous.familyBuffers : Map.of(),
+                reusable ? changedFamilies : EnumSet.allOf(EnumConstraintFamily.class));
+
+        if (allVariables.isEmpty() || einheiten.isEmpty()) {
             throw new IllegalArgumentException("Probleminstanz ist leer");
         }
     }
 
-    private BinaryVariable addVariable(@Nonnull String name) {
-        BinaryVariable variable = new BinaryVariable(name);
+    /**
+     * Konstruktor für den {@link ModelCache}, der die Variablen und Bedingungen nicht erzeugt, sondern so liest, wie sie
+     * von {@link #writeModel(DataOutput)} für eine gleichwertige Eingabe geschrieben wurden. Nur die Ordinalzahlen
+     * werden (schnell) aus der Eingabe neu bestimmt.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Ob gleichartige Unterrichtseinheiten zusammengefasst werden sollen.
+     * @param in Die gespeicherten Variablen und Bedingungen.
+     * @throws IOException Wenn die Eingabe nicht gelesen werden kann oder nicht zur Eingabe passt.
+     */
+    BinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren, @Nonnull DataInput in) throws IOException {
+        this.eingabe = Objects.requireNonNull(eingabe);
+        this.aggregieren = aggregieren;
+        this.familyBuffers = null;
+        phases.add(ModelStatistics.Phase.measure("createSnapshot", this::createSnapshot));
+        phases.add(ModelStatistics.Phase.measure("subtractKopplungen", this::subtractKopplungen));
+        phases.add(ModelStatistics.Phase.measure("fillMaps", this::fillMaps));
+        try {
+            phases.add(ModelStatistics.Phase.measure("readModel", () -> {
+                try {
+                    readModel(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (allVariables.isEmpty() || einheiten.isEmpty()) {
+            throw new IllegalArgumentException("Probleminstanz ist leer");
+        }
+    }
+
+    /**
+     * Schreibt die Variablen (mit ihren Faktoren in der Zielfunktion) und die Bedingungen in kompakter binärer Form.
+     *
+     * @param out Die Ausgabe.
+     * @throws IOException Wenn die Ausgabe nicht geschrieben werden kann.
+     */
+    void writeModel(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(allVariables.size());
+        for (BinaryVariable variable : allVariables) {
+            variable.getKey().writeTo(out);
+            out.writeDouble(variable.getObjectiveFactor());
+        }
+        matrix.writeTo(out);
+    }
+
+    /**
+     * Liest die Variablen und Bedingungen, die mit {@link #writeModel(DataOutput)} geschrieben wurden.
+     */
+    private void readModel(@Nonnull DataInput in) throws IOException {
+        final int numVariables = in.readInt();
+        final int numZeitslots = zeitslots.size();
+        mainVariables = new BinaryVariable[einheiten.size() * numZeitslots];
+        if (numVariables < mainVariables.length) {
+            throw new IOException("Das gespeicherte Modell passt nicht zur Eingabe");
+        }
+        for (int column = 0; column < numVariables; column++) {
+            final ConstraintKey key = ConstraintKey.readFrom(in);
+            final BinaryVariable variable = addVariable(key);
+            final double objectiveFactor = in.readDouble();
+            if (objectiveFactor != 0.0) {
+                variable.addObjectiveFactor(objectiveFactor);
+            }
+            if (column < mainVariables.length) {
+                final int einheitIdx = column / numZeitslots;
+                final int slotIdx = column % numZeitslots;
+                if (!key.equals(ConstraintKey.of(null, einheiten.get(einheitIdx), slots.get(slotIdx)))) {
+                    throw new IOException("Das gespeicherte Modell passt nicht zur Eingabe");
+                }
+                mainVariables[column] = variable;
+            }
+        }
+        matrix.readFrom(in, numVariables);
+    }
+
+    private BinaryVariable addVariable(@Nonnull ConstraintKey key) {
+        BinaryVariable variable = new BinaryVariable(allVariables.size(), key, this::getElement);
         allVariables.add(variable);
         return variable;
     }
 
-    private void addConstraint(@Nonnull Constraint constraint) {
-        constraints.add(constraint);
+    /**
+     * @param id Die ID eines Elements der Eingabe.
+     * @return Das Element, oder null wenn es nicht existiert.
+     */
+    private BaseElement getElement(int id) {
+        return elementsById.get(id);
+    }
+
+    /**
+     * Erzeugt die gegebenen Familien von Bedingungen nebenläufig, jede in ihren eigenen {@link FamilyBuffer}. Läuft der
+     * Aufrufer selbst in einem {@link ForkJoinPool}, wird dieser verwendet, sonst der {@link ForkJoinPool#commonPool()}.
+     * Die Puffer werden anschließend in der gegebenen Reihenfolge zum Modell hinzugefügt, sodass das Ergebnis genau dem
+     * einer sequentiellen Erzeugung entspricht. Die Familien dürfen daher nur lesend auf diese Instanz und die Eingabe
+     * zugreifen.
+     *
+     * @param families Die Familien in der Reihenfolge, in der sie zum Modell hinzugefügt werden sollen.
+     * @param previousBuffers Bereits erzeugte Puffer, die wiederverwendet werden können.
+     * @param changedFamilies Die Familien, die auf jeden Fall neu erzeugt werden müssen.
+     */
+    private void createFamilies(@Nonnull Map<EnumConstraintFamily, Consumer<FamilyBuffer>> families,
+                                @Nonnull Map<EnumConstraintFamily, FamilyBuffer> previousBuffers,
+                                @Nonnull Set<EnumConstraintFamily> changedFamilies) {
+        final List<ForkJoinTask<FamilyBuffer>> tasks = new ArrayList<>(families.size());
+        for (Map.Entry<EnumConstraintFamily, Consumer<FamilyBuffer>> family : families.entrySet()) {
+            final FamilyBuffer previousBuffer = previousBuffers.get(family.getKey());
+            if (previousBuffer != null && !changedFamilies.contains(family.getKey())) {
+                tasks.add(ForkJoinTask.adapt(() -> previousBuffer).fork());
+                continue;
+            }
+            tasks.add(ForkJoinTask.adapt(() -> {
+                FamilyBuffer buffer = new FamilyBuffer(this::getElement, mainVariables.length);
+                try {
+                    buffer.setPhase(ModelStatistics.Phase.measure(family.getKey().getPhaseName(),
+                            () -> family.getValue().accept(buffer)));
+                } catch (RuntimeException e) {
+                    // Wird erst beim Zusammenführen geworfen, damit bei mehreren Fehlern immer derselbe gemeldet wird.
+                    buffer.setFailure(e);
+                }
+                return buffer;
+            }).fork());
+        }
+        try {
+            final Iterator<EnumConstraintFamily> familyIterator = families.keySet().iterator();
+            for (ForkJoinTask<FamilyBuffer> task : tasks) {
+                final EnumConstraintFamily family = familyIterator.next();
+                final FamilyBuffer buffer = task.join();
+                mergeFamily(buffer);
+                if (buffer != previousBuffers.get(family)) {
+                    phases.add(buffer.getPhase());
+                }
+                if (familyBuffers != null) {
+                    familyBuffers.put(family, buffer);
+                }
+            }
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+    }
+
+    /**
+     * @param other Ein anderes Modell.
+     * @return Ob das andere Modell dieselben Unterrichtseinheiten (in denselben Gruppen) und Zeitslots in derselben
+     * Reihenfolge hat, sodass die Ordinalzahlen und damit die Hauptvariablen übereinstimmen.
+     */
+    private boolean hasSameStructure(@Nonnull BinaryLP other) {
+        if (other.eingabe != eingabe || other.zeitslots.size() != zeitslots.size()
+                || other.gruppen.size() != gruppen.size()) {
+            return false;
+        }
+        for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+            if (other.zeitslots.get(slotIdx) != zeitslots.get(slotIdx)) return false;
+        }
+        for (int einheitIdx = 0; einheitIdx < gruppen.size(); einheitIdx++) {
+            final List<EingabeSnapshot.Einheit> gruppe = gruppen.get(einheitIdx);
+            final List<EingabeSnapshot.Einheit> otherGruppe = other.gruppen.get(einheitIdx);
+            if (otherGruppe.size() != gruppe.size()) return false;
+            for (int i = 0; i < gruppe.size(); i++) {
+                if (!otherGruppe.get(i).getId().equals(gruppe.get(i).getId())) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fügt die Variablen, Zielfunktions-Beiträge und Bedingungen einer Familie zum Modell hinzu.
+     */
+    private void mergeFamily(@Nonnull FamilyBuffer buffer) {
+        if (buffer.getFailure() != null) {
+            throw buffer.getFailure();
+        }
+        final int newColumnOffset = allVariables.size();
+        final List<ConstraintKey> newVariableKeys = buffer.getNewVariableKeys();
+        for (int newIdx = 0; newIdx < newVariableKeys.size(); newIdx++) {
+            BinaryVariable variable = addVariable(newVariableKeys.get(newIdx));
+            double objectiveFactor = buffer.getNewObjectiveFactor(newIdx);
+            if (objectiveFactor != 0.0) {
+                variable.addObjectiveFactor(objectiveFactor);
+            }
+        }
+        for (int column = 0; column < mainVariables.length; column++) {
+            double objectiveFactor = buffer.getMainObjectiveFactor(column);
+            if (objectiveFactor != 0.0) {
+                mainVariables[column].addObjectiveFactor(objectiveFactor);
+            }
+        }
+        matrix.append(buffer.getMatrix(), newColumnOffset);
+    }
+
+    @Nonnull
+    Eingabedaten getEingabe() {
+        return eingabe;
+    }
+
+    boolean isAggregiert() {
+        return aggregieren;
+    }
+
+    /**
+     * @param einheitIdx Die Ordinalzahl einer Unterrichtseinheit, siehe {@link #getEinheiten()}.
+     * @return Die Anzahl der Stunden, die für sie verplant werden müssen.
+     */
+    int getWochenstunden(int einheitIdx) {
+        return wochenstunden[einheitIdx];
+    }
+
+    /**
+     * @param slotIdx Die Ordinalzahl eines Zeitslots, siehe {@link #getZeitslots()}.
+     * @return Die Ordinalzahl des anderen Zeitslots der Doppelstunde, oder -1.
+     */
+    int getDoppelstunde(int slotIdx) {
+        return slots.get(slotIdx).getDoppelstunde();
+    }
+
+    /**
+     * @return Pro Ordinalzahl einer Klasse die Ordinalzahlen der Unterrichtseinheiten, an denen die Klasse beteiligt
+     * ist. Die Bitmengen dürfen nicht verändert werden.
+     */
+    List<BitSet> getKlassenUnterricht() {
+        return Collections.unmodifiableList(Arrays.asList(klassenUnterricht));
+    }
+
+    /**
+     * @return Neu berechnete Kennzahlen zur Größe dieses Modells und zur Dauer seiner Erzeugung.
+     */
+    @Nonnull
+    public ModelStatistics getStatistics() {
+        return new ModelStatistics(allVariables, matrix, phases);
     }
 
     public List<BinaryVariable> getVariables() {
         return allVariables;
     }
 
+    /**
+     * @return Alle harten Bedingungen in kompakter Form. Die Spalten der Matrix sind die Indizes der Variablen in
+     * {@link #getVariables()}.
+     */
+    public ConstraintMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * @return Alle harten Bedingungen als Objekte. Die Objekte werden erst beim Zugriff aus der {@link #getMatrix()}
+     * erzeugt, für große Probleminstanzen sollte daher die Matrix bevorzugt werden.
+     */
     public List<Constraint> getConstraints() {
-        return constraints;
+        return new AbstractList<>() {
+            @Override
+            public Constraint get(int index) {
+                return matrix.toConstraint(index, allVariables);
+            }
+
+            @Override
+            public int size() {
+                return matrix.getNumRows();
+            }
+        };
     }
 
     /**
-     * Zeit die gekoppelten Stunden von den ursprünglichen Lehrer-Klasse-Zuweisungen ab, sodass gekoppelte
-     * Unterrichtsstunden nicht doppelt verplant werden. Entfernt die ursprünglichen Zuweisungen, die dabei leer werden.
+     * @return Alle planbaren Unterrichtseinheiten, indiziert nach ihrer Ordinalzahl.
      */
-    private void subtractKopplungen() {
-        for (Kopplung kopplung : eingabe.getKopplungen()) {
-            for (Zuweisung zuweisung : kopplung.getZuweisungen()) {
-                zuweisung.setWochenstunden(zuweisung.getWochenstunden() - kopplung.getWochenstunden());
-                if (zuweisung.getWochenstunden() < 0) {
-                    throw new IllegalArgumentException(zuweisung.toLongString() + " hat zu viele Kopplungen");
-                }
-                if (zuweisung.getWochenstunden() < zuweisung.getFixeStunden().size()) {
-                    throw new IllegalArgumentException(zuweisung.toLongString() + " hat zu viele fixe Stunden nach Kopplungen");
+    public List<Unterrichtseinheit> getEinheiten() {
+        return new AbstractList<>() {
+            @Override
+            public Unterrichtseinheit get(int index) {
+                return getOriginal(einheiten.get(index));
+            }
+
+            @Override
+            public int size() {
+                return einheiten.size();
+            }
+        };
+    }
+
+    /**
+     * @param einheitIdx Die Ordinalzahl einer Unterrichtseinheit, siehe {@link #getEinheiten()}.
+     * @return Alle Unterrichtseinheiten der Eingabe, die durch diese Ordinalzahl vertreten werden. Ohne Aggregation
+     * ist das nur die Unterrichtseinheit selbst.
+     */
+    public List<Unterrichtseinheit> getGruppe(int einheitIdx) {
+        return gruppen.get(einheitIdx).stream().map(this::getOriginal).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @param einheit Eine Einheit der {@link #snapshot}.
+     * @return Die Zuweisung oder Kopplung der Eingabe, aus der sie erzeugt wurde.
+     */
+    private Unterrichtseinheit getOriginal(@Nonnull EingabeSnapshot.Einheit einheit) {
+        return (Unterrichtseinheit) getElement(einheit.getId());
+    }
+
+    /**
+     * @return Alle Zeitslots, chronologisch sortiert und indiziert nach ihrer Ordinalzahl.
+     */
+    public List<Zeitslot> getZeitslots() {
+        return Collections.unmodifiableList(zeitslots);
+    }
+
+    /**
+     * @param einheitIdx Die Ordinalzahl einer Unterrichtseinheit, siehe {@link #getEinheiten()}.
+     * @param slotIdx Die Ordinalzahl eines Zeitslots, siehe {@link #getZeitslots()}.
+     * @return Die Hauptvariable, die aussagt, ob die Unterrichtseinheit in dem Zeitslot stattfindet.
+     */
+    public BinaryVariable getMainVariable(int einheitIdx, int slotIdx) {
+        return mainVariables[getMainColumn(einheitIdx, slotIdx)];
+    }
+
+    /**
+     * @param einheitIdx Die Ordinalzahl einer Unterrichtseinheit, siehe {@link #getEinheiten()}.
+     * @param slotIdx Die Ordinalzahl eines Zeitslots, siehe {@link #getZeitslots()}.
+     * @return Der Index der Hauptvariable in {@link #getVariables()} (die Hauptvariablen werden als erste angelegt).
+     */
+    private int getMainColumn(int einheitIdx, int slotIdx) {
+        return einheitIdx * zeitslots.size() + slotIdx;
+    }
+
+    /**
+     * Überträgt eine frühere Lösung, z.B. von vor einer kleinen Änderung der Eingabe, auf die Hauptvariablen. Ein
+     * Unterricht wird den Unterrichtseinheiten mit denselben Klassen, Lehrern und Fächern zugeordnet und der Zeitslot
+     * über seine ID gefunden, sodass die frühere Lösung auch zu einer Kopie der Eingabe gehören darf. Gibt es mehrere
+     * solche Unterrichtseinheiten (z.B. weil eine davon fixe Stunden hat und daher nicht zusammengefasst wird), werden
+     * die früheren Stunden auf sie verteilt: Zuerst erhält jede Unterrichtseinheit ihre fixen Stunden, danach werden
+     * die übrigen der Reihe nach vergeben, bis die Wochenstunden jeder Unterrichtseinheit erreicht sind. Unterricht,
+     * der keiner Unterrichtseinheit mehr entspricht oder für den keine Wochenstunden mehr frei sind, wird ignoriert.
+     *
+     * @param vorher Die frühere Lösung.
+     * @return Pro Variable (Index in {@link #getVariables()}) 1 bzw. 0, wenn die Unterrichtseinheit in der früheren
+     * Lösung in dem Zeitslot stattfand bzw. nicht stattfand, und -1 für Hilfsvariablen und für Unterrichtseinheiten,
+     * die in der früheren Lösung gar nicht vorkommen. Die Werte erfüllen daher nicht unbedingt alle Bedingungen.
+     */
+    public byte[] getStartwerte(@Nonnull Ergebnisdaten vorher) {
+        final Map<String, List<Integer>> einheitenByKey = new HashMap<>();
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            final Unterrichtseinheit einheit = getOriginal(einheiten.get(einheitIdx));
+            einheitenByKey.computeIfAbsent(getStartwertKey(einheit.getAllKlassen(), einheit.getAllLehrer(),
+                    einheit.getAllFaecher()), key -> new ArrayList<>()).add(einheitIdx);
+        }
+        final Map<Integer, Integer> slotsById = new HashMap<>();
+        for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+            slotsById.put(zeitslots.get(slotIdx).getId(), slotIdx);
+        }
+
+        // Pro Schlüssel die Zeitslots der früheren Stunden, in der Reihenfolge der früheren Lösung.
+        final Map<String, List<Integer>> slotsByKey = new LinkedHashMap<>();
+        for (Unterricht unterricht : vorher.getUnterricht()) {
+            final String key = getStartwertKey(unterricht.getKlassen().stream(), unterricht.getLehrer().stream(),
+                    unterricht.getFaecher().stream());
+            final Integer slotIdx = unterricht.getZeitslot() == null ? null
+                    : slotsById.get(unterricht.getZeitslot().getId());
+            if (!einheitenByKey.containsKey(key) || slotIdx == null) continue;
+            slotsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(slotIdx);
+        }
+
+        final byte[] startwerte = new byte[allVariables.size()];
+        Arrays.fill(startwerte, (byte) -1);
+        slotsByKey.forEach((key, vorherSlots) -> {
+            final List<Integer> einheitIdxs = einheitenByKey.get(key);
+            final int[] verteilt = new int[einheitIdxs.size()];
+            final boolean[][] fix = new boolean[einheitIdxs.size()][];
+            for (int i = 0; i < einheitIdxs.size(); i++) {
+                final int einheitIdx = einheitIdxs.get(i);
+                fix[i] = getFixeStunden(einheiten.get(einheitIdx));
+                Arrays.fill(startwerte, getMainColumn(einheitIdx, 0), getMainColumn(einheitIdx + 1, 0), (byte) 0);
+            }
+            // Zuerst die fixen Stunden, damit sie nicht an eine andere Unterrichtseinheit vergeben werden.
+            final List<Integer> uebrig = new ArrayList<>();
+            for (int slotIdx : vorherSlots) {
+                boolean vergeben = false;
+                for (int i = 0; i < einheitIdxs.size() && !vergeben; i++) {
+                    final int einheitIdx = einheitIdxs.get(i);
+                    if (fix[i][slotIdx] && startwerte[getMainColumn(einheitIdx, slotIdx)] == 0) {
+                        startwerte[getMainColumn(einheitIdx, slotIdx)] = 1;
+                        verteilt[i]++;
+                        vergeben = true;
+                    }
                 }
-                if (zuweisung.getWochenstunden() == 0) {
-                    eingabe.getZuweisungen().remove(zuweisung);
+                if (!vergeben) uebrig.add(slotIdx);
+            }
+            for (int slotIdx : uebrig) {
+                for (int i = 0; i < einheitIdxs.size(); i++) {
+                    final int einheitIdx = einheitIdxs.get(i);
+                    if (verteilt[i] < wochenstunden[einheitIdx]
+                            && startwerte[getMainColumn(einheitIdx, slotIdx)] == 0) {
+                        startwerte[getMainColumn(einheitIdx, slotIdx)] = 1;
+                        verteilt[i]++;
+                        break;
+                    }
                 }
             }
+        });
+        return startwerte;
+    }
+
+    private static String getStartwertKey(@Nonnull Stream<? extends IDElement> klassen,
+                                          @Nonnull Stream<? extends IDElement> lehrer,
+                                          @Nonnull Stream<? extends IDElement> faecher) {
+        return Stream.of(klassen, lehrer, faecher)
+                .map(elements -> elements.map(IDElement::getId).sorted().map(String::valueOf)
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.joining("|"));
+    }
+
+    /**
+     * Adapter für Aufrufer, die die Hauptvariablen nach Unterrichtseinheit und Zeitslot nachschlagen möchten. Intern
+     * wird ausschließlich mit den Ordinalzahlen gearbeitet, siehe {@link #getMainVariable(int, int)}.
+     *
+     * @return Eine neue Map, die pro Unterrichtseinheit und Zeitslot die Hauptvariable enthält.
+     */
+    public Map<Unterrichtseinheit, Map<Zeitslot, BinaryVariable>> getMainVariablesAsMap() {
+        Map<Unterrichtseinheit, Map<Zeitslot, BinaryVariable>> result = new IDElementMap<>();
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            Map<Zeitslot, BinaryVariable> einheitVars = new IDElementMap<>();
+            for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+                einheitVars.put(zeitslots.get(slotIdx), getMainVariable(einheitIdx, slotIdx));
+            }
+            result.put(getOriginal(einheiten.get(einheitIdx)), einheitVars);
         }
-        for (Zuweisung zuweisung : eingabe.getZuweisungen()) {
-            if (zuweisung.getWochenstunden() != 0 && zuweisung.getLehrer() == null) {
-                throw new IllegalArgumentException(zuweisung.toLongString() + " braucht einen Lehrer");
+        return result;
+    }
+
+    /**
+     * Erzeugt die {@link #snapshot} und füllt {@link #elementsById}. Das ist der einzige Abschnitt, der die
+     * Eingabe selbst liest.
+     */
+    private void createSnapshot() {
+        snapshot = EingabeSnapshot.of(eingabe);
+        slots = snapshot.getZeitslots();
+        Stream.of(eingabe.getZeitslots(), eingabe.getKlassen(), eingabe.getLehrer(), eingabe.getFaecher(),
+                eingabe.getZuweisungen(), eingabe.getKopplungen())
+                .flatMap(List::stream)
+                .forEach(element -> elementsById.put(element.getId(), element));
+    }
+
+    /**
+     * Zieht die gekoppelten Stunden von den ursprünglichen Lehrer-Klasse-Zuweisungen ab, sodass gekoppelte
+     * Unterrichtsstunden nicht doppelt verplant werden. Die Ergebnisse landen in {@link #restWochenstunden}, die
+     * Zuweisungen selbst bleiben unverändert. Zuweisungen, die dabei leer werden, werden nicht verplant.
+     */
+    private void subtractKopplungen() {
+        final List<EingabeSnapshot.Einheit> alleEinheiten = snapshot.getEinheiten();
+        restWochenstunden = new int[alleEinheiten.size()];
+        Arrays.fill(restWochenstunden, -1);
+        for (EingabeSnapshot.Einheit kopplung : alleEinheiten) {
+            for (int i = 0; i < kopplung.getNumZuweisungen(); i++) {
+                final EingabeSnapshot.Einheit zuweisung = alleEinheiten.get(kopplung.getZuweisung(i));
+                int rest = getWochenstunden(zuweisung) - kopplung.getWochenstunden();
+                if (rest < 0) {
+                    throw new IllegalArgumentException(getOriginal(zuweisung).toLongString() + " hat zu viele Kopplungen");
+                }
+                if (rest < zuweisung.getNumFixeStunden()) {
+                    throw new IllegalArgumentException(getOriginal(zuweisung).toLongString() + " hat zu viele fixe Stunden nach Kopplungen");
+                }
+                restWochenstunden[zuweisung.getIndex()] = rest;
             }
         }
+        getUnterrichtseinheiten().forEach(einheit -> {
+            if (!einheit.isKopplung() && getWochenstunden(einheit) != 0 && einheit.getNumLehrer() == 0) {
+                throw new IllegalArgumentException(getOriginal(einheit).toLongString() + " braucht einen Lehrer");
+            }
+        });
+    }
+
+    /**
+     * @param einheit Eine Zuweisung oder Kopplung.
+     * @return Die Anzahl der zu verplanenden Wochenstunden, bei Zuweisungen nach Abzug der Kopplungen.
+     */
+    private int getWochenstunden(@Nonnull EingabeSnapshot.Einheit einheit) {
+        final int rest = restWochenstunden[einheit.getIndex()];
+        return rest >= 0 ? rest : einheit.getWochenstunden();
     }
 
     /**
-     * @return Alle Zuweisungen und Kopplungen, d.h. alles was verplant werden muss.
+     * @return Alle Zuweisungen und Kopplungen, d.h. alles was verplant werden muss. Zuweisungen, deren Stunden
+     * vollständig in Kopplungen stattfinden, sind nicht enthalten.
      */
-    private Stream<Unterrichtseinheit> getUnterrichtseinheiten() {
-        return Stream.concat(eingabe.getZuweisungen().stream(), eingabe.getKopplungen().stream());
+    private Stream<EingabeSnapshot.Einheit> getUnterrichtseinheiten() {
+        return snapshot.getEinheiten().stream().filter(einheit -> restWochenstunden[einheit.getIndex()] != 0);
     }
 
     /**
      * @param wochentag Ein Wochentag.
-     * @return Alle Zeitslots für diesen Wochentag, chronologisch sortiert.
+     * @return Die Ordinalzahlen aller Zeitslots für diesen Wochentag, chronologisch sortiert.
      */
-    private List<Zeitslot> getZeitslotsForTag(EnumWochentag wochentag) {
-        return eingabe.getZeitslots().stream().filter(z -> z.getWochentag() == wochentag).collect(Collectors.toList());
+    private List<Integer> getZeitslotsForTag(EnumWochentag wochentag) {
+        List<Integer> result = new ArrayList<>();
+        for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+            if (slots.get(slotIdx).getWochentag() == wochentag) {
+                result.add(slotIdx);
+            }
+        }
+        return result;
     }
 
     /**
-     * Füllt {@link #klassenUnterricht} und {@link #lehrerUnterricht}.
+     * Vergibt die Ordinalzahlen der Unterrichtseinheiten und Zeitslots und füllt {@link #zeitslots},
+     * {@link #klassenUnterricht}, {@link #gruppen}, {@link #lehrerUnterricht} und {@link #wochenstunden}.
      */
     private void fillMaps() {
-        eingabe.getKlassen().forEach(klasse -> klassenUnterricht.put(klasse, new IDElementSet<>()));
-        eingabe.getLehrer().forEach(lehrer -> lehrerUnterricht.put(lehrer, new IDElementSet<>()));
+        for (EingabeSnapshot.Zeitslot slot : slots) {
+            zeitslots.add((Zeitslot) getElement(slot.getId()));
+        }
+        klassenUnterricht = new BitSet[snapshot.getKlassen().size()];
+        Arrays.setAll(klassenUnterricht, klasseIdx -> new BitSet());
+        lehrerUnterricht = new BitSet[snapshot.getLehrer().size()];
+        Arrays.setAll(lehrerUnterricht, lehrerIdx -> new BitSet());
+        gruppen.addAll(aggregieren
+                ? getGleichartigeUnterrichtseinheiten()
+                : getUnterrichtseinheiten().map(List::of).collect(Collectors.toList()));
+        for (List<EingabeSnapshot.Einheit> gruppe : gruppen) {
+            final int einheitIdx = einheiten.size();
+            final EingabeSnapshot.Einheit einheit = gruppe.get(0);
+            einheiten.add(einheit);
+            for (int i = 0; i < einheit.getNumKlassen(); i++) {
+                klassenUnterricht[einheit.getKlasse(i)].set(einheitIdx);
+            }
+            for (int i = 0; i < einheit.getNumLehrer(); i++) {
+                lehrerUnterricht[einheit.getLehrer(i)].set(einheitIdx);
+            }
+        }
+        wochenstunden = gruppen.stream()
+                .mapToInt(gruppe -> gruppe.stream().mapToInt(this::getWochenstunden).sum())
+                .toArray();
+    }
+
+    /**
+     * @return Alle Unterrichtseinheiten, gruppiert nach Klassen, Lehrern, Fächern und Härte, in der Reihenfolge ihres
+     * ersten Auftretens. Einheiten mit fixen Stunden sowie solche ohne Klassen und Lehrer bleiben allein, weil für sie
+     * eine gemeinsame binäre Variable pro Zeitslot nicht ausreicht bzw. die fixen Stunden einer bestimmten Einheit
+     * gehören.
+     */
+    private List<List<EingabeSnapshot.Einheit>> getGleichartigeUnterrichtseinheiten() {
+        final Map<List<Object>, List<EingabeSnapshot.Einheit>> result = new LinkedHashMap<>();
         getUnterrichtseinheiten().forEach(einheit -> {
-            einheit.getAllKlassen().forEach(klasse -> klassenUnterricht.get(klasse).add(einheit));
-            einheit.getAllLehrer().forEach(lehrer -> lehrerUnterricht.get(lehrer).add(einheit));
+            final List<Integer> klassen = getSortedIds(einheit.getNumKlassen(),
+                    i -> snapshot.getKlassen().get(einheit.getKlasse(i)));
+            final List<Integer> lehrer = getSortedIds(einheit.getNumLehrer(),
+                    i -> snapshot.getLehrer().get(einheit.getLehrer(i)));
+            final List<Object> key;
+            if (einheit.getNumFixeStunden() > 0 || (klassen.isEmpty() && lehrer.isEmpty())) {
+                key = List.of(einheit); // Eindeutig, wird nicht zusammengefasst.
+            } else {
+                key = List.of(klassen, lehrer, getSortedIds(einheit.getNumFaecher(),
+                        i -> snapshot.getFaecher().get(einheit.getFach(i))), einheit.isHart());
+            }
+            result.computeIfAbsent(key, k -> new ArrayList<>()).add(einheit);
         });
+        return new ArrayList<>(result.values());
+    }
+
+    private static List<Integer> getSortedIds(int count, @Nonnull IntFunction<? extends IDElement> elements) {
+        return IntStream.range(0, count).mapToObj(elements).map(IDElement::getId).sorted()
+                .collect(Collectors.toList());
     }
 
     /**
      * Füllt {@link #mainVariables} mit einer binären Variable pro Zuweisung/Kopplung und Zeitslot.
+     * Harte Bedingung: Jede Unterrichtseinheit findet genau so oft statt, wie sie Wochenstunden hat.
      */
     private void createMainVariablesAndConstraints() {
-        getUnterrichtseinheiten().forEach(einheit -> {
-            if (mainVariables.containsKey(einheit)) throw new AssertionError();
-            if (einheit.getWochenstunden() == 0) throw new AssertionError();
-            Map<Zeitslot, BinaryVariable> einheitVars = new IDElementMap<>();
-            mainVariables.put(einheit, einheitVars);
-            for (Zeitslot zeitslot : eingabe.getZeitslots()) {
-                einheitVars.put(zeitslot, addVariable(einheit.toShortString() + "-" + zeitslot.toShortString()));
+        final int numZeitslots = zeitslots.size();
+        mainVariables = new BinaryVariable[einheiten.size() * numZeitslots];
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+            if (wochenstunden[einheitIdx] == 0) throw new AssertionError();
+            for (int slotIdx = 0; slotIdx < numZeitslots; slotIdx++) {
+                mainVariables[einheitIdx * numZeitslots + slotIdx] =
+                        addVariable(ConstraintKey.of(null, einheit, slots.get(slotIdx)));
             }
             // Diese Unterrichtseinheit muss genau #Wochenstunden Mal stattfinden.
-            addConstraint(new SumEq(EnumConstraints.WOCHENSTUNDEN.get(einheit, einheit.getWochenstunden()),
-                    new ArrayList<>(einheitVars.values()), einheit.getWochenstunden()));
-        });
+            matrix.addRow(EnumConstraintType.SUM_EQ,
+                    EnumConstraints.WOCHENSTUNDEN.key(einheit, wochenstunden[einheitIdx]), wochenstunden[einheitIdx]);
+            for (int slotIdx = 0; slotIdx < numZeitslots; slotIdx++) {
+                matrix.addEntry(getMainColumn(einheitIdx, slotIdx), 1.0);
+            }
+        }
+    }
 
-        for (var zeitslot : eingabe.getZeitslots()) {
-            Stream.concat(klassenUnterricht.entrySet().stream(), lehrerUnterricht.entrySet().stream()).forEach(entry -> {
+    /**
+     * Harte Bedingung: Jeder Lehrer und jede Klasse kann zu jedem Zeitslot an höchstens einem Unterricht teilnehmen.
+     */
+    private void createKonfliktfreiheitConstraints(@Nonnull FamilyBuffer buffer) {
+        final ConstraintMatrix familyMatrix = buffer.getMatrix();
+        // Erst alle Klassen, dann alle Lehrer.
+        final List<EingabeSnapshot.Element> teilnehmer = new ArrayList<>(snapshot.getKlassen());
+        teilnehmer.addAll(snapshot.getLehrer());
+        final List<BitSet> teilnehmerUnterricht = new ArrayList<>(Arrays.asList(klassenUnterricht));
+        teilnehmerUnterricht.addAll(Arrays.asList(lehrerUnterricht));
+        for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+            final EingabeSnapshot.Zeitslot zeitslot = slots.get(slotIdx);
+            for (int t = 0; t < teilnehmer.size(); t++) {
+                final EingabeSnapshot.Element klasseOderLehrer = teilnehmer.get(t);
+                final BitSet unterrichte = teilnehmerUnterricht.get(t);
                 // Der Lehrer bzw. die Klasse kann am gegebenen Zeitslot an maximal einem Unterricht teilnehmen.
-                addConstraint(new SumLeq(EnumConstraints.KONFLIKTFREIHEIT.get(entry.getKey(), zeitslot),
-                        entry.getValue().stream().map(einheit -> mainVariables.get(einheit).get(zeitslot)).collect(Collectors.toList()), 1));
-            });
+                familyMatrix.addRow(EnumConstraintType.SUM_LEQ,
+                        EnumConstraints.KONFLIKTFREIHEIT.key(klasseOderLehrer, zeitslot), 1);
+                for (int einheitIdx = unterrichte.nextSetBit(0); einheitIdx >= 0;
+                     einheitIdx = unterrichte.nextSetBit(einheitIdx + 1)) {
+                    familyMatrix.addEntry(getMainColumn(einheitIdx, slotIdx), 1.0);
+                }
+            }
         }
     }
 
@@ -196,73 +840,99 @@ public class BinaryLP {
      * Harte Bedingung: An gesperrten Zeitslots darf kein Unterricht stattfinden.
      * Harte Bedingung: Fixe Stunden müssen genau zum fixierten Zeitpunkt stattfinden.
      */
-    private void createGesperrteAndFixeStundenConstraints() {
-        for (var einheitVars : mainVariables.entrySet()) {
-            Unterrichtseinheit einheit = einheitVars.getKey();
-            for (var zeitslotVar : einheitVars.getValue().entrySet()) {
-                Zeitslot zeitslot = zeitslotVar.getKey();
-                if (einheit.getFixeStunden().contains(zeitslot)) {
-                    if (zeitslot.isGesperrt()) {
+    private void createGesperrteAndFixeStundenConstraints(@Nonnull FamilyBuffer buffer) {
+        final boolean[] gesperrt = new boolean[slots.size()];
+        for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+            gesperrt[slotIdx] = slots.get(slotIdx).isGesperrt();
+        }
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+            final boolean[] fix = getFixeStunden(einheit);
+            for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+                EingabeSnapshot.Zeitslot zeitslot = slots.get(slotIdx);
+                if (fix[slotIdx]) {
+                    if (gesperrt[slotIdx]) {
                         throw new IllegalArgumentException("Fixe Stunde auf gesperrtem Zeitslot");
                     }
-                    addConstraint(new ForceValue(
-                            EnumConstraints.FIXE_STUNDE.get(einheit, zeitslot),
-                            zeitslotVar.getValue(), true));
-                } else if (zeitslot.isGesperrt()) {
-                    addConstraint(new ForceValue(
-                            EnumConstraints.GESPERRTE_STUNDE.get(einheit, zeitslot),
-                            zeitslotVar.getValue(), false));
+                    buffer.addForceValueConstraint(
+                            EnumConstraints.FIXE_STUNDE.key(einheit, zeitslot),
+                            getMainColumn(einheitIdx, slotIdx), true);
+                } else if (gesperrt[slotIdx]) {
+                    buffer.addForceValueConstraint(
+                            EnumConstraints.GESPERRTE_STUNDE.key(einheit, zeitslot),
+                            getMainColumn(einheitIdx, slotIdx), false);
                 }
             }
         }
     }
 
+    /**
+     * @param einheit Eine Unterrichtseinheit.
+     * @return Pro Ordinalzahl eines Zeitslots, ob die Unterrichtseinheit dort eine fixe Stunde hat.
+     */
+    private boolean[] getFixeStunden(@Nonnull EingabeSnapshot.Einheit einheit) {
+        final boolean[] fix = new boolean[slots.size()];
+        for (int i = 0; i < einheit.getNumFixeStunden(); i++) {
+            fix[einheit.getFixeStunde(i)] = true;
+        }
+        return fix;
+    }
+
     /**
      * Harte Bedingung: In Stunden-Paaren, die als Doppelstunde markiert sind, muss derselbe Unterricht in beiden
      * Stunden (oder in keiner) stattfinden. Ausnahme: Unterrichte mit insgesamt ungerader Stundenzahl dürfen diese
      * Regel ein Mal (in der ganzen Woche) verletzen.
      */
-    private void createDoppelstundenConstraints() {
-        Map<Zeitslot, Zeitslot> doppelstunden = eingabe.getZeitslots().stream()
-                .map(z1 -> new Pair<>(z1, eingabe.getZeitslots().stream().filter(z1::isDoppelstundeWith).findAny()))
-                .filter(p -> p.getValue().isPresent())
-                .collect(Collectors.toUnmodifiableMap(Pair::getKey, p -> p.getValue().get()));
-        getUnterrichtseinheiten().forEach(einheit -> createDoppelstundenConstraints(doppelstunden, einheit));
+    private void createDoppelstundenConstraints(@Nonnull FamilyBuffer buffer) {
+        // Pro Ordinalzahl eines Zeitslots die Ordinalzahl des anderen Zeitslots der Doppelstunde, oder -1.
+        final int[] doppelstunden = new int[slots.size()];
+        for (int z1 = 0; z1 < slots.size(); z1++) {
+            doppelstunden[z1] = slots.get(z1).getDoppelstunde();
+        }
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            createDoppelstundenConstraints(buffer, doppelstunden, einheitIdx);
+        }
     }
 
     /**
      * Fügt DoppelstundenConstraints (siehe oben) für eine Unterrichtseinheit hinzu.
      *
-     * @param doppelstunden Die Doppelstunden, wobei jedes Paar doppelt vorkommt (als A->B und als B->A).
-     * @param einheit Die Unterrichtseinheit, für die die Constraints hinzugefügt werden sollen.
+     * @param doppelstunden Pro Zeitslot der andere Zeitslot der Doppelstunde (oder -1), wobei jedes Paar doppelt
+     * vorkommt (als A->B und als B->A).
+     * @param einheitIdx Die Ordinalzahl der Unterrichtseinheit, für die die Constraints hinzugefügt werden sollen.
      */
-    private void createDoppelstundenConstraints(@Nonnull Map<Zeitslot, Zeitslot> doppelstunden,
-                                                @Nonnull Unterrichtseinheit einheit) {
-        final Map<Zeitslot, BinaryVariable> mainVars = mainVariables.get(einheit);
+    private void createDoppelstundenConstraints(@Nonnull FamilyBuffer buffer, @Nonnull int[] doppelstunden,
+                                                int einheitIdx) {
+        final EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+        final boolean[] fix = getFixeStunden(einheit);
 
-        // Wenn die Stundenzahl insgesamt ungerade ist, muss eine Einzelstunde toleriert werden.
-        int erlaubteEinzelstunden = einheit.getWochenstunden() % 2 == 0 ? 0 : 1;
+        // Wenn die Stundenzahl insgesamt ungerade ist, muss eine Einzelstunde toleriert werden. Bei zusammengefassten
+        // Einheiten gilt das für jede einzelne, damit sich die Stunden hinterher wieder auf sie aufteilen lassen.
+        int erlaubteEinzelstunden = gruppen.get(einheitIdx).stream().mapToInt(this::getWochenstunden)
+                .map(stunden -> stunden % 2).sum();
 
         // Jede fixe Stunde, die eine Doppelstunde sein müsste, bei der aber die andere Stunde nicht auch fixiert ist,
         // muss durch eine normal planbare Stunde ausgeglichen werden. Wenn es zu wenige normal planbare Stunden gibt,
         // müssen ggf. mehr Einzelstunden toleriert werden. Im Extremfall sind alle fixierten Stunden einzeln.
-        int fixeEinzelstunden = (int) einheit.getFixeStunden().stream()
-                .filter(doppelstunden::containsKey) // Müsste eine Doppelstunde sein
-                .filter(z1 -> !einheit.getFixeStunden().contains(doppelstunden.get(z1))) // Andere ist nicht fixiert
-                .count();
-        int nichtfixierteStunden = einheit.getWochenstunden() - einheit.getFixeStunden().size();
+        int fixeEinzelstunden = 0;
+        for (int z1 = 0; z1 < doppelstunden.length; z1++) {
+            // Müsste eine Doppelstunde sein, aber die andere ist nicht fixiert.
+            if (fix[z1] && doppelstunden[z1] >= 0 && !fix[doppelstunden[z1]]) {
+                fixeEinzelstunden++;
+            }
+        }
+        int nichtfixierteStunden = wochenstunden[einheitIdx] - einheit.getNumFixeStunden();
         erlaubteEinzelstunden += Math.max(0, fixeEinzelstunden - nichtfixierteStunden);
 
         if (erlaubteEinzelstunden == 0) {
             // Im einfachen Fall können die Doppelstunden einfach erzwungen werden.
-            for (Map.Entry<Zeitslot, Zeitslot> doppelstunde : doppelstunden.entrySet()) {
-                Zeitslot z1 = doppelstunde.getKey();
-                Zeitslot z2 = doppelstunde.getValue();
-                if (z1.compareTo(z2) < 0) { // Doppelte Constraints verhindern, weil alle Paare doppelt vorhanden sind.
-                    addConstraint(new VarEq(
-                            EnumConstraints.DOPPELSTUNDE.get(einheit, z1, z2),
-                            mainVars.get(z1), mainVars.get(z2)
-                    ));
+            for (int z1 = 0; z1 < doppelstunden.length; z1++) {
+                int z2 = doppelstunden[z1];
+                if (z1 < z2) { // Doppelte Constraints verhindern, weil alle Paare doppelt vorhanden sind.
+                    buffer.addVarEqConstraint(
+                            EnumConstraints.DOPPELSTUNDE.key(einheit, slots.get(z1), slots.get(z2)),
+                            getMainColumn(einheitIdx, z1), getMainColumn(einheitIdx, z2)
+                    );
                 }
             }
         } else {
@@ -270,24 +940,23 @@ public class BinaryLP {
             // Pro Zeitslot, der eine Einzelstunde sein kann, gibt es eine binäre Hilfsvariable, die auf wahr
             // gesetzt wird, wenn es sich um eine Einzelstunde handelt. Wenn der Unterricht in z1 stattfindet,
             // dann muss es eine Einzelstunde sein, oder der Unterricht muss auch in z2 stattfinden.
-            final List<BinaryVariable> einzelstundenVars = new ArrayList<>();
-            // Hinweis: Diese Schleife wird pro Zeitslot-Paar zwei Mal durchlaufen, jeder Zeitslot ist mal der Key.
-            for (Map.Entry<Zeitslot, Zeitslot> doppelstunde : doppelstunden.entrySet()) {
-                Zeitslot z1 = doppelstunde.getKey();
-                Zeitslot z2 = doppelstunde.getValue();
-                String name = EnumConstraints.EINZELSTUNDE.get(einheit, z1);
-                BinaryVariable einzelstunde = addVariable(name + "-Var");
+            final List<Integer> einzelstundenVars = new ArrayList<>();
+            // Hinweis: Diese Schleife wird pro Zeitslot-Paar zwei Mal durchlaufen, jeder Zeitslot ist mal z1.
+            for (int z1 = 0; z1 < doppelstunden.length; z1++) {
+                int z2 = doppelstunden[z1];
+                if (z2 < 0) continue;
+                ConstraintKey key = EnumConstraints.EINZELSTUNDE.key(einheit, slots.get(z1));
+                int einzelstunde = buffer.addVariable(key.withSuffix("-Var"));
                 einzelstundenVars.add(einzelstunde);
-                addConstraint(new VarImpliesOr(
-                        name,
-                        mainVars.get(z1), // Wenn erster Slot stattfindet, dann
-                        Arrays.asList(
-                                mainVars.get(z2),  // muss der zweite auch stattfinden
-                                einzelstunde // oder es muss sich um eine Einzelstunde handeln.
-                        )
-                ));
+                buffer.addVarImpliesOrConstraint(
+                        key,
+                        getMainColumn(einheitIdx, z1), // Wenn erster Slot stattfindet, dann
+                        getMainColumn(einheitIdx, z2),  // muss der zweite auch stattfinden
+                        einzelstunde // oder es muss sich um eine Einzelstunde handeln.
+                );
             }
-            addConstraint(new SumLeq(EnumConstraints.MAX_EINZELSTUNDEN.get(einheit), einzelstundenVars, erlaubteEinzelstunden));
+            buffer.addSumConstraint(EnumConstraintType.SUM_LEQ, EnumConstraints.MAX_EINZELSTUNDEN.key(einheit),
+                    einzelstundenVars, erlaubteEinzelstunden);
         }
     }
 
@@ -298,21 +967,36 @@ public class BinaryLP {
      * Hinweis: Dieser Constraint ist pro Fach, d.h er trifft auch zu, wenn ein Fach für eine Klasse in mehreren
      * Zuweisungen und/oder Kopplungen auftritt.
      */
-    private void createFachProTagConstraints() {
+    private void createFachProTagConstraints(@Nonnull FamilyBuffer buffer) {
         final int maxWochenstunden = 2 * EnumWochentag.values().length;
-        getUnterrichtseinheiten().filter(u -> u.getWochenstunden() > maxWochenstunden).forEach(u -> {
-            throw new IllegalArgumentException("Mehr als " + maxWochenstunden + " Wochenstunden werden derzeit nicht unterstützt");
-        });
-        for (Klasse klasse : eingabe.getKlassen()) {
-            for (Fach fach : eingabe.getFaecher()) {
-                List<Unterrichtseinheit> unterrichte = getUnterrichtseinheiten()
-                        .filter(u -> u.hasKlasse(klasse) && u.hasFach(fach)).collect(Collectors.toList());
-                if (unterrichte.isEmpty()) continue;
-                for (EnumWochentag wochentag : EnumWochentag.values()) {
-                    createFachProTagConstraints(klasse, fach, unterrichte, wochentag);
+        for (List<EingabeSnapshot.Einheit> gruppe : gruppen) {
+            for (EingabeSnapshot.Einheit einheit : gruppe) {
+                if (getWochenstunden(einheit) > maxWochenstunden) {
+                    throw new IllegalArgumentException("Mehr als " + maxWochenstunden + " Wochenstunden werden derzeit nicht unterstützt");
                 }
             }
         }
+        // Pro vorkommender Kombination aus Klasse und Fach (Schlüssel klasseIdx * numFaecher + fachIdx) die
+        // Ordinalzahlen der Unterrichtseinheiten, in denen die Klasse das Fach hat. Sortiert, damit die Zeilen in
+        // derselben Reihenfolge wie bei einer Schleife über alle Klassen und Fächer entstehen.
+        final int numFaecher = snapshot.getFaecher().size();
+        final Map<Integer, List<Integer>> klassenFachUnterricht = new TreeMap<>();
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            final EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+            for (int k = 0; k < einheit.getNumKlassen(); k++) {
+                for (int f = 0; f < einheit.getNumFaecher(); f++) {
+                    klassenFachUnterricht.computeIfAbsent(einheit.getKlasse(k) * numFaecher + einheit.getFach(f),
+                            index -> new ArrayList<>()).add(einheitIdx);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : klassenFachUnterricht.entrySet()) {
+            final EingabeSnapshot.Klasse klasse = snapshot.getKlassen().get(entry.getKey() / numFaecher);
+            final EingabeSnapshot.Fach fach = snapshot.getFaecher().get(entry.getKey() % numFaecher);
+            for (EnumWochentag wochentag : EnumWochentag.values()) {
+                createFachProTagConstraints(buffer.getMatrix(), klasse, fach, entry.getValue(), wochentag);
+            }
+        }
     }
 
     /**
@@ -324,33 +1008,46 @@ public class BinaryLP {
      * zweite Stunden an dem Tag wenn überhaupt nur direkt vor oder nach der fixen Stunde stattfindet.
      * Wenn zwei oder mehr Stunden an dem Tag fixiert sind, ist der Constraint überflüssig.
      *
+     * @param familyMatrix Die Matrix, zu der die Constraints hinzugefügt werden.
      * @param klasse Die Klasse, zu der die `unterrichte` gehören.
      * @param fach Das Fach, zu dem die `unterrichte` gehören.
-     * @param unterrichte Die Unterrichte von einer Klasse in einem bestimmten Fach.
+     * @param unterrichte Die Ordinalzahlen der Unterrichte von einer Klasse in einem bestimmten Fach.
      * @param wochentag Der Wochentag, für den die Constraints hinzugefügt werden.
      */
-    private void createFachProTagConstraints(@Nonnull Klasse klasse, @Nonnull Fach fach,
-                                             @Nonnull List<Unterrichtseinheit> unterrichte,
+    private void createFachProTagConstraints(@Nonnull ConstraintMatrix familyMatrix,
+                                             @Nonnull EingabeSnapshot.Klasse klasse,
+                                             @Nonnull EingabeSnapshot.Fach fach,
+                                             @Nonnull List<Integer> unterrichte,
                                              @Nonnull EnumWochentag wochentag) {
-        final long totalFixeStunden = unterrichte.stream()
-                .mapToLong(u -> u.getFixeStunden().stream().filter(z -> z.getWochentag() == wochentag).count()).sum();
+        int totalFixeStunden = 0;
+        for (int einheitIdx : unterrichte) {
+            final EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+            for (int i = 0; i < einheit.getNumFixeStunden(); i++) {
+                if (slots.get(einheit.getFixeStunde(i)).getWochentag() == wochentag) {
+                    totalFixeStunden++;
+                }
+            }
+        }
         if (totalFixeStunden >= 2) {
             return;
         }
 
-        List<Zeitslot> zeitslots = getZeitslotsForTag(wochentag);
-        for (Zeitslot oneslot : zeitslots) {
-            zeitslots.stream()
-                    .filter(other -> other.getStunde().getNummer() > oneslot.getStunde().getNummer() + 1)  // M>N+1
-                    .forEach(laterslot -> {
-                        // oneslot -> -laterslot  <==>  -oneslot \/ -laterslot  <==>  (oneslot+laterslot) <= 1
-                        addConstraint(new SumLeq(
-                                EnumConstraints.FACH_PRO_TAG.get(klasse, fach, oneslot, laterslot),
-                                Stream.concat(
-                                        unterrichte.stream().map(u -> mainVariables.get(u).get(oneslot)),
-                                        unterrichte.stream().map(u -> mainVariables.get(u).get(laterslot))
-                                ).collect(Collectors.toList()), 1));
-                    });
+        List<Integer> tagZeitslots = getZeitslotsForTag(wochentag);
+        for (int oneslot : tagZeitslots) {
+            for (int laterslot : tagZeitslots) {
+                if (slots.get(laterslot).getStundeNummer() <= slots.get(oneslot).getStundeNummer() + 1) {
+                    continue; // Nur M>N+1
+                }
+                // oneslot -> -laterslot  <==>  -oneslot \/ -laterslot  <==>  (oneslot+laterslot) <= 1
+                familyMatrix.addRow(EnumConstraintType.SUM_LEQ, EnumConstraints.FACH_PRO_TAG.key(klasse, fach,
+                        slots.get(oneslot), slots.get(laterslot)), 1);
+                for (int einheitIdx : unterrichte) {
+                    familyMatrix.addEntry(getMainColumn(einheitIdx, oneslot), 1.0);
+                }
+                for (int einheitIdx : unterrichte) {
+                    familyMatrix.addEntry(getMainColumn(einheitIdx, laterslot), 1.0);
+                }
+            }
         }
     }
 
@@ -360,23 +1057,27 @@ public class BinaryLP {
      * Weiche Bedingung: Wenn ein Lehrer {@link EnumVerfuegbarkeit#EINGESCHRAENKT} verfügbar ist, soll der Unterricht
      * wenn möglich nicht dann geplant werden.
      */
-    private void createLehrerVerfuegbarkeitConstraints() {
-        for (Lehrer lehrer : eingabe.getLehrer()) {
-            //noinspection CodeBlock2Expr
-            lehrer.getVerfuegbarkeit().stream().filter(v -> v.getVerfuegbarkeit() != EnumVerfuegbarkeit.NORMAL).forEach(verfEntry -> {
-                getUnterrichtseinheiten().filter(u -> u.hasLehrer(lehrer)).forEach(unterricht -> {
-                    BinaryVariable variable = mainVariables.get(unterricht).get(verfEntry.getZeitslot());
-                    if (verfEntry.getVerfuegbarkeit() == EnumVerfuegbarkeit.NICHT) {
-                        addConstraint(new ForceValue(
-                                EnumConstraints.LEHRER_NICHT_VERFUEGBAR.get(lehrer, verfEntry.getZeitslot()),
-                                variable, false));
-                    } else if (verfEntry.getVerfuegbarkeit() == EnumVerfuegbarkeit.EINGESCHRAENKT) {
-                        variable.addObjectiveFactor(-1.0);
+    private void createLehrerVerfuegbarkeitConstraints(@Nonnull FamilyBuffer buffer) {
+        for (EingabeSnapshot.Lehrer lehrer : snapshot.getLehrer()) {
+            final BitSet unterrichte = lehrerUnterricht[lehrer.getIndex()];
+            if (unterrichte.isEmpty()) continue;
+            for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+                final EnumVerfuegbarkeit verfuegbarkeit = lehrer.getVerfuegbarkeit(slotIdx);
+                if (verfuegbarkeit == null || verfuegbarkeit == EnumVerfuegbarkeit.NORMAL) continue;
+                for (int einheitIdx = unterrichte.nextSetBit(0); einheitIdx >= 0;
+                     einheitIdx = unterrichte.nextSetBit(einheitIdx + 1)) {
+                    final int column = getMainColumn(einheitIdx, slotIdx);
+                    if (verfuegbarkeit == EnumVerfuegbarkeit.NICHT) {
+                        buffer.addForceValueConstraint(
+                                EnumConstraints.LEHRER_NICHT_VERFUEGBAR.key(lehrer, slots.get(slotIdx)),
+                                column, false);
+                    } else if (verfuegbarkeit == EnumVerfuegbarkeit.EINGESCHRAENKT) {
+                        buffer.addObjectiveFactor(column, -1.0);
                     } else {
                         throw new AssertionError();
                     }
-                });
-            });
+                }
+            }
         }
     }
 
@@ -385,18 +1086,21 @@ public class BinaryLP {
      * mindestens einer der möglichen Unterrichte stattfinden.
      * Weiche Bedingung: Bei anderen Prioritäten werden die Unterrichte entsprechend bevorzugt oder nicht.
      */
-    private void createUnterrichtsPrioritaetConstraints() {
-        for (Zeitslot zeitslot : eingabe.getZeitslots()) {
+    private void createUnterrichtsPrioritaetConstraints(@Nonnull FamilyBuffer buffer) {
+        for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+            final EingabeSnapshot.Zeitslot zeitslot = slots.get(slotIdx);
             double gewicht;
-            switch (zeitslot.getStunde().getUnterrichtsprioritaet()) {
+            switch (zeitslot.getUnterrichtsprioritaet()) {
                 case MAXIMAL:
                     // Harte Bedingung pro Klasse.
-                    for (Klasse klasse : eingabe.getKlassen()) {
-                        List<BinaryVariable> klasseZeitslotVars = getUnterrichtseinheiten()
-                                .filter(u -> u.hasKlasse(klasse))
-                                .map(u -> mainVariables.get(u).get(zeitslot))
-                                .collect(Collectors.toList());
-                        addConstraint(new SumGeq(EnumConstraints.KERNSTUNDE.get(klasse, zeitslot), klasseZeitslotVars, 1));
+                    for (EingabeSnapshot.Klasse klasse : snapshot.getKlassen()) {
+                        buffer.getMatrix().addRow(EnumConstraintType.SUM_GEQ,
+                                EnumConstraints.KERNSTUNDE.key(klasse, zeitslot), 1);
+                        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+                            if (einheiten.get(einheitIdx).hasKlasse(klasse.getIndex())) {
+                                buffer.getMatrix().addEntry(getMainColumn(einheitIdx, slotIdx), 1.0);
+                            }
+                        }
                     }
                     continue;
                 case NULL:
@@ -416,8 +1120,10 @@ public class BinaryLP {
             }
             // Weiche Bedingung eigentlich auch pro Klasse, aber äquivalent implementiert als pro Unterricht,
             // gewichtet nach Anzahl teilnehmender Klassen.
-            getUnterrichtseinheiten().forEach(einheit ->
-                    mainVariables.get(einheit).get(zeitslot).addObjectiveFactor(gewicht * einheit.getAllKlassen().count()));
+            for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+                buffer.addObjectiveFactor(getMainColumn(einheitIdx, slotIdx),
+                        gewicht * einheiten.get(einheitIdx).getNumKlassen());
+            }
         }
     }
 
@@ -426,7 +1132,7 @@ public class BinaryLP {
      *
      * @param gewichtung Die Gewichtung dieses Constraints.
      */
-    private void createHarteFaecherFolgenConstraints(EnumGewichtung gewichtung) {
+    private void createHarteFaecherFolgenConstraints(@Nonnull FamilyBuffer buffer, EnumGewichtung gewichtung) {
         if (gewichtung == null || gewichtung == EnumGewichtung.NULL) return;
         final double factor = -convertGewichtungToFactor(gewichtung);
         // Maximal 3 von vier aufeinanderfolgenden Stunden dürfen ein hartes Fach sein.
@@ -434,22 +1140,27 @@ public class BinaryLP {
         final int windowSize = 4;
         final int maxHarteFaecher = 3;
         for (EnumWochentag wochentag : EnumWochentag.values()) {
-            List<Zeitslot> tagZeitslots = getZeitslotsForTag(wochentag);
+            List<Integer> tagZeitslots = getZeitslotsForTag(wochentag);
             for (int beginIndex = 0; beginIndex <= tagZeitslots.size() - windowSize; beginIndex++) {
-                List<Zeitslot> zeitslots = tagZeitslots.subList(beginIndex, beginIndex + windowSize);
-                for (Klasse klasse : eingabe.getKlassen()) {
-                    List<BinaryVariable> windowVars = mainVariables.entrySet().stream()
-                            .filter(entry -> entry.getKey().hasKlasse(klasse) && entry.getKey().isHart())
-                            .flatMap(entry -> zeitslots.stream().map(z -> entry.getValue().get(z)))
-                            .collect(Collectors.toList());
+                List<Integer> window = tagZeitslots.subList(beginIndex, beginIndex + windowSize);
+                for (EingabeSnapshot.Klasse klasse : snapshot.getKlassen()) {
+                    List<Integer> windowVars = new ArrayList<>();
+                    for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+                        final EingabeSnapshot.Einheit einheit = einheiten.get(einheitIdx);
+                        if (einheit.isHart() && einheit.hasKlasse(klasse.getIndex())) {
+                            for (int slotIdx : window) {
+                                windowVars.add(getMainColumn(einheitIdx, slotIdx));
+                            }
+                        }
+                    }
                     if (windowVars.isEmpty()) continue;
-                    String name = EnumConstraints.MAX_HARTE_FAECHER.get(klasse, zeitslots.get(0));
+                    ConstraintKey key = EnumConstraints.MAX_HARTE_FAECHER.key(klasse, slots.get(window.get(0)));
                     // Wenn die Toleranz-Variable auf 1 gesetzt wird (was Zielfunktion kostet), dann sind 3+1=4 harte
                     // Fächer in der 4er-Sequenz erlaubt, also wäre der Constraint dann gegen Bezahlung verletzt.
-                    BinaryVariable toleranceVars = addVariable(name + "-Tolerance");
-                    toleranceVars.addObjectiveFactor(factor);
-                    windowVars.add(toleranceVars);
-                    addConstraint(new SumLeq(name, windowVars, maxHarteFaecher));
+                    int toleranceVar = buffer.addVariable(key.withSuffix("-Tolerance"));
+                    buffer.addObjectiveFactor(toleranceVar, factor);
+                    windowVars.add(toleranceVar);
+                    buffer.addSumConstraint(EnumConstraintType.SUM_LEQ, key, windowVars, maxHarteFaecher);
                 }
             }
         }
@@ -461,16 +1172,19 @@ public class BinaryLP {
      *
      * @param gewichtung Die Gewichtung dieses Constraints.
      */
-    private void createHarteFaecherNachmittagsConstraints(EnumGewichtung gewichtung) {
+    private void createHarteFaecherNachmittagsConstraints(@Nonnull FamilyBuffer buffer, EnumGewichtung gewichtung) {
         if (gewichtung == null || gewichtung == EnumGewichtung.NULL) return;
         final double factor = -convertGewichtungToFactor(gewichtung);
         // Harte Fächer am Nachmittag vermeiden.
         final int numVormittagsStunden = 6;
-        mainVariables.entrySet().stream()
-                .filter(einheitEntry -> einheitEntry.getKey().isHart())
-                .forEach(einheitEntry -> einheitEntry.getValue().entrySet().stream()
-                        .filter(entry -> entry.getKey().getStunde().getNummer() > numVormittagsStunden)
-                        .forEach(zeitslotEntry -> zeitslotEntry.getValue().addObjectiveFactor(factor)));
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            if (!einheiten.get(einheitIdx).isHart()) continue;
+            for (int slotIdx = 0; slotIdx < slots.size(); slotIdx++) {
+                if (slots.get(slotIdx).getStundeNummer() > numVormittagsStunden) {
+                    buffer.addObjectiveFactor(getMainColumn(einheitIdx, slotIdx), factor);
+                }
+            }
+        }
     }
 
     private static double convertGewichtungToFactor(EnumGewichtung gewichtung) {
@@ -489,6 +1203,10 @@ public class BinaryLP {
     /**
      * Kann aufgerufen werden, sobald für alle Variablen, die von {@link #getVariables()} zurückgegeben werden, mittels
      * {@link BinaryVariable#setSolution(boolean)} eine Lösung angegeben wurde.
+     * <p>
+     * Bei zusammengefassten Unterrichtseinheiten (siehe {@link #getGruppe(int)}) wird pro gesetzter Hauptvariable ein
+     * Unterricht erzeugt. Da die Einheiten einer Gruppe dieselben Klassen, Lehrer und Fächer haben, entspricht das genau
+     * dem Ergebnis, bei dem jede Einheit der Gruppe einzeln ihre Wochenstunden zugeteilt bekommen hätte.
      *
      * @return Ein neues Ergebnisdaten-Objekt, das die Lösung im SchulScheduler-Datenmodell darstellt.
      */
@@ -496,12 +1214,12 @@ public class BinaryLP {
     public Ergebnisdaten createErgebnis() {
         Ergebnisdaten ergebnis = new Ergebnisdaten();
         ergebnis.setEingabedaten(eingabe);
-        for (var einheitEntry : mainVariables.entrySet()) {
-            Unterrichtseinheit einheit = einheitEntry.getKey();
-            for (var zeitslotEntry : einheitEntry.getValue().entrySet()) {
-                if (zeitslotEntry.getValue().requireSolution()) { // Der Unterricht soll an diesem Zeitpunkt stattfinden
+        for (int einheitIdx = 0; einheitIdx < einheiten.size(); einheitIdx++) {
+            Unterrichtseinheit einheit = getOriginal(einheiten.get(einheitIdx));
+            for (int slotIdx = 0; slotIdx < zeitslots.size(); slotIdx++) {
+                if (getMainVariable(einheitIdx, slotIdx).requireSolution()) { // Der Unterricht soll dann stattfinden
                     Unterricht unterricht = new Unterricht();
-                    unterricht.setZeitslot(zeitslotEntry.getKey());
+                    unterricht.setZeitslot(zeitslots.get(slotIdx));
                     unterricht.getKlassen().setAll(einheit.getAllKlassen().collect(Collectors.toList()));
                     unterricht.getLehrer().setAll(einheit.getAllLehrer().collect(Collectors.toList()));
                     unterricht.getFaecher().setAll(einheit.getAllFaecher().collect(Collectors.toList()));
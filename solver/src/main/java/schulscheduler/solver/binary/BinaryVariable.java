@@ -1,7 +1,11 @@
 package schulscheduler.solver.binary;
 
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.solver.ConstraintKey;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.function.IntFunction;
 
 /**
  * Eine binäre Variable, der im Rahmen der Problemlösung ein Wert (0 oder 1) zugewiesen wird.
@@ -9,9 +13,19 @@ import javax.annotation.Nullable;
 public class BinaryVariable {
 
     /**
-     * Name der Variablen, zum Debuggen.
+     * Index der Variablen in {@link BinaryLP#getVariables()}, d.h. ihre Spalte in der {@link ConstraintMatrix}.
+     */
+    private final int index;
+
+    /**
+     * Schlüssel der Variablen, aus dem bei Bedarf der Name erzeugt wird.
+     */
+    private final ConstraintKey key;
+
+    /**
+     * Liefert die Elemente zu den IDs in {@link #key}.
      */
-    private final String name;
+    private final IntFunction<? extends BaseElement> elements;
 
     /**
      * Multiplikator der Variablen in der Zielfunktion. Ein höherer Wert bedeutet, dass die Variable bevorzugt auf 1
@@ -24,13 +38,27 @@ public class BinaryVariable {
      */
     private Boolean solution;
 
-    BinaryVariable(@Nonnull String name) {
-        this.name = name;
+    BinaryVariable(int index, @Nonnull ConstraintKey key, @Nonnull IntFunction<? extends BaseElement> elements) {
+        this.index = index;
+        this.key = key;
+        this.elements = elements;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    @Nonnull
+    public ConstraintKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return Der Name der Variablen, zum Debuggen. Wird bei jedem Aufruf neu erzeugt.
+     */
     @Nonnull
     public String getName() {
-        return name;
+        return key.render(elements);
     }
 
     public double getObjectiveFactor() {
@@ -51,7 +79,7 @@ public class BinaryVariable {
     }
 
     public boolean requireSolution() {
-        if (solution == null) throw new IllegalStateException("Variable " + name + " has no solution");
+        if (solution == null) throw new IllegalStateException("Variable " + getName() + " has no solution");
         return solution;
     }
 }
@@ -0,0 +1,346 @@
+package schulscheduler.solver.binary;
+
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.solver.ConstraintKey;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Speichert die harten Bedingungen eines {@link BinaryLP} kompakt im Compressed-Sparse-Row-Format (CSR). Jede Zeile
+ * ist eine lineare Bedingung über den binären Variablen, die über ihren Index in {@link BinaryLP#getVariables()}
+ * referenziert werden. Die Einträge aller Zeilen liegen hintereinander in {@link #columns} und
+ * {@link #coefficients}, Zeile `row` umfasst die Einträge von `getRowStart(row)` (inklusive) bis `getRowEnd(row)`
+ * (exklusive).
+ * <p>
+ * Zeilen werden mit {@link #addRow(EnumConstraintType, ConstraintKey, int)} begonnen und dann mit
+ * {@link #addEntry(int, double)} befüllt, bis die nächste Zeile begonnen wird. Die {@link Constraint}-Objekte werden
+ * nur bei Bedarf aus einer Zeile erzeugt, siehe {@link #toConstraint(int, List)}.
+ */
+public class ConstraintMatrix {
+
+    private static final int INITIAL_ROW_CAPACITY = 1024;
+    private static final int INITIAL_ENTRY_CAPACITY = 8 * INITIAL_ROW_CAPACITY;
+
+    /**
+     * Liefert die Elemente zu den IDs in den {@link #keys}.
+     */
+    private final IntFunction<? extends BaseElement> elements;
+
+    private int numRows = 0;
+    private int numEntries = 0;
+
+    /**
+     * Pro Zeile die Art der Bedingung.
+     */
+    private EnumConstraintType[] types = new EnumConstraintType[INITIAL_ROW_CAPACITY];
+
+    /**
+     * Pro Zeile der Schlüssel der Bedingung, aus dem bei Bedarf der Name erzeugt wird.
+     */
+    private ConstraintKey[] keys = new ConstraintKey[INITIAL_ROW_CAPACITY];
+
+    /**
+     * Pro Zeile der Wert auf der rechten Seite der Bedingung.
+     */
+    private int[] rhs = new int[INITIAL_ROW_CAPACITY];
+
+    /**
+     * Pro Zeile der Index des ersten Eintrags in {@link #columns}/{@link #coefficients}. Enthält am Index `numRows`
+     * zusätzlich das Ende der letzten Zeile.
+     */
+    private int[] rowStarts = new int[INITIAL_ROW_CAPACITY + 1];
+
+    /**
+     * Pro Eintrag der Index der Variable.
+     */
+    private int[] columns = new int[INITIAL_ENTRY_CAPACITY];
+
+    /**
+     * Pro Eintrag der Koeffizient der Variable.
+     */
+    private double[] coefficients = new double[INITIAL_ENTRY_CAPACITY];
+
+    /**
+     * @param elements Liefert die Elemente zu den IDs in den Schlüsseln der Zeilen.
+     */
+    public ConstraintMatrix(@Nonnull IntFunction<? extends BaseElement> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @return Liefert die Elemente zu den IDs in den Schlüsseln der Zeilen.
+     */
+    IntFunction<? extends BaseElement> getElements() {
+        return elements;
+    }
+
+    /**
+     * Beginnt eine neue Zeile. Die Einträge der Zeile werden danach mit {@link #addEntry(int, double)} hinzugefügt.
+     *
+     * @param type Die Art der Bedingung.
+     * @param key Der Schlüssel der Bedingung, siehe {@link schulscheduler.solver.EnumConstraints#key(Object...)}.
+     * @param rhsValue Der Wert auf der rechten Seite der Bedingung.
+     * @return Der Index der neuen Zeile.
+     */
+    public int addRow(@Nonnull EnumConstraintType type, @Nonnull ConstraintKey key, int rhsValue) {
+        if (numRows == types.length) {
+            int newCapacity = 2 * types.length;
+            types = Arrays.copyOf(types, newCapacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+            rhs = Arrays.copyOf(rhs, newCapacity);
+            rowStarts = Arrays.copyOf(rowStarts, newCapacity + 1);
+        }
+        types[numRows] = type;
+        keys[numRows] = key;
+        rhs[numRows] = rhsValue;
+        numRows++;
+        rowStarts[numRows] = numEntries;
+        return numRows - 1;
+    }
+
+    /**
+     * Fügt einen Eintrag zur zuletzt begonnenen Zeile hinzu.
+     *
+     * @param column Der Index der Variable.
+     * @param coefficient Der Koeffizient der Variable in dieser Zeile.
+     */
+    public void addEntry(int column, double coefficient) {
+        if (numRows == 0) throw new IllegalStateException("No row started");
+        if (numEntries == columns.length) {
+            columns = Arrays.copyOf(columns, 2 * columns.length);
+            coefficients = Arrays.copyOf(coefficients, 2 * coefficients.length);
+        }
+        columns[numEntries] = column;
+        coefficients[numEntries] = coefficient;
+        numEntries++;
+        rowStarts[numRows] = numEntries;
+    }
+
+    /**
+     * Hängt alle Zeilen einer anderen Matrix an diese an.
+     *
+     * @param other Die andere Matrix. Negative Spalten -1, -2, ... bezeichnen dort Variablen, die noch keinen
+     * endgültigen Index haben, siehe {@link FamilyBuffer}.
+     * @param newColumnOffset Der endgültige Index der Variable mit der vorläufigen Spalte -1.
+     */
+    public void append(@Nonnull ConstraintMatrix other, int newColumnOffset) {
+        for (int row = 0; row < other.numRows; row++) {
+            addRow(other.types[row], other.keys[row], other.rhs[row]);
+            for (int entry = other.rowStarts[row]; entry < other.rowStarts[row + 1]; entry++) {
+                final int column = other.columns[entry];
+                addEntry(column >= 0 ? column : newColumnOffset - column - 1, other.coefficients[entry]);
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle Zeilen in kompakter binärer Form, siehe {@link #readFrom(DataInput, int)}. Ganzzahlige
+     * Koeffizienten (in der Praxis alle) belegen dabei nur ein Byte.
+     *
+     * @param out Die Ausgabe.
+     * @throws IOException Wenn die Ausgabe nicht geschrieben werden kann.
+     */
+    void writeTo(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(numRows);
+        for (int row = 0; row < numRows; row++) {
+            out.writeByte(types[row].ordinal());
+            keys[row].writeTo(out);
+            out.writeInt(rhs[row]);
+            out.writeInt(rowStarts[row + 1] - rowStarts[row]);
+            for (int entry = rowStarts[row]; entry < rowStarts[row + 1]; entry++) {
+                out.writeInt(columns[entry]);
+                final double coefficient = coefficients[entry];
+                if (coefficient == Math.rint(coefficient) && Math.abs(coefficient) <= Byte.MAX_VALUE) {
+                    out.writeByte((int) coefficient);
+                } else {
+                    out.writeByte(Byte.MIN_VALUE);
+                    out.writeDouble(coefficient);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hängt die Zeilen an, die mit {@link #writeTo(DataOutput)} geschrieben wurden.
+     *
+     * @param in Die Eingabe.
+     * @param numColumns Die Anzahl der Variablen, zur Prüfung der Spalten.
+     * @throws IOException Wenn die Eingabe nicht gelesen werden kann oder ungültig ist.
+     */
+    void readFrom(@Nonnull DataInput in, int numColumns) throws IOException {
+        final int newRows = in.readInt();
+        for (int i = 0; i < newRows; i++) {
+            final int typeOrdinal = in.readByte();
+            if (typeOrdinal < 0 || typeOrdinal >= EnumConstraintType.values().length) {
+                throw new IOException("Ungültige Art der Bedingung: " + typeOrdinal);
+            }
+            addRow(EnumConstraintType.values()[typeOrdinal], ConstraintKey.readFrom(in), in.readInt());
+            final int rowLength = in.readInt();
+            for (int j = 0; j < rowLength; j++) {
+                final int column = in.readInt();
+                if (column < 0 || column >= numColumns) {
+                    throw new IOException("Ungültige Spalte: " + column);
+                }
+                final byte coefficient = in.readByte();
+                addEntry(column, coefficient == Byte.MIN_VALUE ? in.readDouble() : coefficient);
+            }
+        }
+    }
+
+    /**
+     * @return Die Anzahl der Zeilen, d.h. der Bedingungen.
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * @return Die Anzahl der Einträge über alle Zeilen hinweg.
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    @Nonnull
+    public EnumConstraintType getType(int row) {
+        return types[row];
+    }
+
+    @Nonnull
+    public ConstraintKey getKey(int row) {
+        return keys[row];
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Der Name der Bedingung, zum Debuggen. Wird bei jedem Aufruf neu erzeugt.
+     */
+    @Nonnull
+    public String getName(int row) {
+        return keys[row].render(elements);
+    }
+
+    public int getRhs(int row) {
+        return rhs[row];
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Der Index des ersten Eintrags der Zeile.
+     */
+    public int getRowStart(int row) {
+        return rowStarts[row];
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Der Index nach dem letzten Eintrag der Zeile.
+     */
+    public int getRowEnd(int row) {
+        return rowStarts[row + 1];
+    }
+
+    /**
+     * @param entry Der Index eines Eintrags.
+     * @return Der Index der Variable des Eintrags.
+     */
+    public int getColumn(int entry) {
+        return columns[entry];
+    }
+
+    /**
+     * @param entry Der Index eines Eintrags.
+     * @return Der Koeffizient des Eintrags.
+     */
+    public double getCoefficient(int entry) {
+        return coefficients[entry];
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Die untere Schranke für SUM(coefficient * variable) über die Einträge der Zeile, oder
+     * {@link Double#NEGATIVE_INFINITY}, wenn es keine gibt.
+     */
+    public double getLowerBound(int row) {
+        switch (types[row]) {
+            case SUM_LEQ:
+                return Double.NEGATIVE_INFINITY;
+            case SUM_EQ:
+            case SUM_GEQ:
+            case FORCE_VALUE:
+                return rhs[row];
+            case VAR_EQ:
+            case VAR_IMPLIES_OR:
+                return 0;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Die obere Schranke für SUM(coefficient * variable) über die Einträge der Zeile, oder
+     * {@link Double#POSITIVE_INFINITY}, wenn es keine gibt.
+     */
+    public double getUpperBound(int row) {
+        switch (types[row]) {
+            case SUM_LEQ:
+            case SUM_EQ:
+            case FORCE_VALUE:
+                return rhs[row];
+            case SUM_GEQ:
+            case VAR_IMPLIES_OR:
+                return Double.POSITIVE_INFINITY;
+            case VAR_EQ:
+                return 0;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Erzeugt das {@link Constraint}-Objekt für eine Zeile.
+     *
+     * @param row Der Index der Zeile.
+     * @param variables Alle Variablen, indiziert wie die Spalten dieser Matrix.
+     * @return Eine neue Bedingung, die der Zeile entspricht.
+     */
+    @Nonnull
+    public Constraint toConstraint(int row, @Nonnull List<BinaryVariable> variables) {
+        final int start = rowStarts[row];
+        final int end = rowStarts[row + 1];
+        final String name = getName(row);
+        switch (types[row]) {
+            case SUM_LEQ:
+                return new SumLeq(name, getVariables(start, end, variables), rhs[row]);
+            case SUM_EQ:
+                return new SumEq(name, getVariables(start, end, variables), rhs[row]);
+            case SUM_GEQ:
+                return new SumGeq(name, getVariables(start, end, variables), rhs[row]);
+            case VAR_EQ:
+                return new VarEq(name, variables.get(columns[start]), variables.get(columns[start + 1]));
+            case VAR_IMPLIES_OR:
+                return new VarImpliesOr(name, variables.get(columns[start]),
+                        getVariables(start + 1, end, variables));
+            case FORCE_VALUE:
+                return new ForceValue(name, variables.get(columns[start]), rhs[row] != 0);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private List<BinaryVariable> getVariables(int start, int end, @Nonnull List<BinaryVariable> variables) {
+        List<BinaryVariable> result = new ArrayList<>(end - start);
+        for (int entry = start; entry < end; entry++) {
+            result.add(variables.get(columns[entry]));
+        }
+        return result;
+    }
+}
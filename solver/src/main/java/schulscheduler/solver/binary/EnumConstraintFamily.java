@@ -0,0 +1,33 @@
+package schulscheduler.solver.binary;
+
+/**
+ * Die Familien von Bedingungen, die ein {@link BinaryLP} unabhängig voneinander (und nebenläufig) erzeugt, jeweils in
+ * einen eigenen {@link FamilyBuffer}. Die Reihenfolge der Konstanten ist die Reihenfolge, in der die Familien zum
+ * Modell hinzugefügt werden. Die Bedingungen für die Wochenstunden gehören zu keiner Familie, weil sie zusammen mit
+ * den Hauptvariablen erzeugt werden.
+ */
+enum EnumConstraintFamily {
+
+    KONFLIKTFREIHEIT("createKonfliktfreiheitConstraints"),
+    GESPERRTE_UND_FIXE_STUNDEN("createGesperrteAndFixeStundenConstraints"),
+    DOPPELSTUNDEN("createDoppelstundenConstraints"),
+    FACH_PRO_TAG("createFachProTagConstraints"),
+    LEHRER_VERFUEGBARKEIT("createLehrerVerfuegbarkeitConstraints"),
+    UNTERRICHTSPRIORITAET("createUnterrichtsPrioritaetConstraints"),
+    HARTE_FAECHER_FOLGEN("createHarteFaecherFolgenConstraints"),
+    HARTE_FAECHER_NACHMITTAGS("createHarteFaecherNachmittagsConstraints");
+
+    private final String phaseName;
+
+    EnumConstraintFamily(String phaseName) {
+        this.phaseName = phaseName;
+    }
+
+    /**
+     * @return Der Name der Erzeugung dieser Familie in den {@link ModelStatistics}.
+     */
+    String getPhaseName() {
+        return phaseName;
+    }
+
+}
@@ -0,0 +1,40 @@
+package schulscheduler.solver.binary;
+
+/**
+ * Die Art einer Zeile in der {@link ConstraintMatrix}. Jede Art entspricht einer der {@link Constraint}-Klassen und
+ * legt fest, wie die Koeffizienten und die rechte Seite der Zeile zu interpretieren sind.
+ */
+public enum EnumConstraintType {
+
+    /**
+     * SUM(variables) <= rhs, alle Koeffizienten sind 1. Siehe {@link SumLeq}.
+     */
+    SUM_LEQ,
+
+    /**
+     * SUM(variables) == rhs, alle Koeffizienten sind 1. Siehe {@link SumEq}.
+     */
+    SUM_EQ,
+
+    /**
+     * SUM(variables) >= rhs, alle Koeffizienten sind 1. Siehe {@link SumGeq}.
+     */
+    SUM_GEQ,
+
+    /**
+     * variable1 - variable2 == 0, die Koeffizienten sind 1 und -1. Siehe {@link VarEq}.
+     */
+    VAR_EQ,
+
+    /**
+     * SUM(rhsVariables) - lhsVariable >= 0, der erste Eintrag ist die lhsVariable mit Koeffizient -1, danach folgen
+     * die rhsVariables mit Koeffizient 1. Siehe {@link VarImpliesOr}.
+     */
+    VAR_IMPLIES_OR,
+
+    /**
+     * variable == rhs (0 oder 1), der einzige Koeffizient ist 1. Siehe {@link ForceValue}.
+     */
+    FORCE_VALUE
+
+}
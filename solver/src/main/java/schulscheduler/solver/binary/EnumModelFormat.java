@@ -0,0 +1,37 @@
+package schulscheduler.solver.binary;
+
+/**
+ * Die Dateiformate, in die {@link ModelWriter} ein Modell schreiben kann.
+ */
+public enum EnumModelFormat {
+
+    /**
+     * CPLEX-LP-Format, lesbar u.a. von SCIP, CPLEX, Gurobi, CBC und HiGHS.
+     */
+    LP("lp"),
+
+    /**
+     * Freies MPS-Format, lesbar von praktisch allen MIP-Solvern.
+     */
+    MPS("mps"),
+
+    /**
+     * Pseudo-Boolesches OPB-Format (wie bei der Pseudo-Boolean Competition), lesbar von PB- und SAT-basierten Solvern
+     * sowie SCIP.
+     */
+    OPB("opb");
+
+    private final String extension;
+
+    EnumModelFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return Die übliche Dateiendung (ohne Punkt).
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+}
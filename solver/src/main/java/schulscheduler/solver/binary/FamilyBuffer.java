@@ -0,0 +1,164 @@
+package schulscheduler.solver.binary;
+
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.solver.ConstraintKey;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Nimmt die Bedingungen, Variablen und Zielfunktions-Beiträge einer Familie von Bedingungen auf (z.B. alle
+ * Doppelstunden-Bedingungen), unabhängig von den anderen Familien. Dadurch können die Familien nebenläufig erzeugt und
+ * anschließend in fester Reihenfolge zum {@link BinaryLP} hinzugefügt werden.
+ * <p>
+ * Spalten >= 0 bezeichnen die bereits existierenden Hauptvariablen. Neue Variablen, die innerhalb der Familie angelegt
+ * werden, erhalten die vorläufigen Spalten -1, -2, ... und werden erst beim Zusammenführen nummeriert, siehe
+ * {@link ConstraintMatrix#append(ConstraintMatrix, int)}.
+ */
+final class FamilyBuffer {
+
+    private final ConstraintMatrix matrix;
+
+    /**
+     * Anzahl der Hauptvariablen, d.h. der Spalten >= 0.
+     */
+    private final int numMainVariables;
+
+    /**
+     * Pro Hauptvariable der Beitrag dieser Familie zur Zielfunktion. Wird erst beim ersten Beitrag angelegt.
+     */
+    private double[] mainObjectiveFactors;
+
+    /**
+     * Die Schlüssel der neuen Variablen, in der Reihenfolge ihrer Erzeugung.
+     */
+    private final List<ConstraintKey> newVariableKeys = new ArrayList<>();
+
+    /**
+     * Pro neuer Variable ihr Faktor in der Zielfunktion.
+     */
+    private final List<Double> newObjectiveFactors = new ArrayList<>();
+
+    /**
+     * Eine Ausnahme, die beim Erzeugen der Familie aufgetreten ist, oder null.
+     */
+    private RuntimeException failure;
+
+    /**
+     * Die Messung der Erzeugung dieser Familie.
+     */
+    private ModelStatistics.Phase phase;
+
+    FamilyBuffer(@Nonnull IntFunction<? extends BaseElement> elements, int numMainVariables) {
+        this.matrix = new ConstraintMatrix(elements);
+        this.numMainVariables = numMainVariables;
+    }
+
+    /**
+     * Legt eine neue Variable an.
+     *
+     * @param key Der Schlüssel der Variable.
+     * @return Die vorläufige (negative) Spalte der Variable.
+     */
+    int addVariable(@Nonnull ConstraintKey key) {
+        newVariableKeys.add(key);
+        newObjectiveFactors.add(0.0);
+        return -newVariableKeys.size();
+    }
+
+    /**
+     * @param column Eine Hauptvariable oder eine in dieser Familie angelegte Variable.
+     * @param add Der Wert, der zum Faktor der Variable in der Zielfunktion addiert werden soll.
+     */
+    void addObjectiveFactor(int column, double add) {
+        if (column >= 0) {
+            if (mainObjectiveFactors == null) {
+                mainObjectiveFactors = new double[numMainVariables];
+            }
+            mainObjectiveFactors[column] += add;
+        } else {
+            final int newIdx = -column - 1;
+            newObjectiveFactors.set(newIdx, newObjectiveFactors.get(newIdx) + add);
+        }
+    }
+
+    /**
+     * @return Die Matrix, in die die Bedingungen dieser Familie geschrieben werden.
+     */
+    ConstraintMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Fügt eine Bedingung der Form SUM(columns) <=> rhs hinzu.
+     */
+    void addSumConstraint(@Nonnull EnumConstraintType type, @Nonnull ConstraintKey key,
+                          @Nonnull List<Integer> columns, int rhs) {
+        matrix.addRow(type, key, rhs);
+        for (int column : columns) {
+            matrix.addEntry(column, 1.0);
+        }
+    }
+
+    /**
+     * Fügt eine Bedingung der Form column == forcedValue hinzu.
+     */
+    void addForceValueConstraint(@Nonnull ConstraintKey key, int column, boolean forcedValue) {
+        matrix.addRow(EnumConstraintType.FORCE_VALUE, key, forcedValue ? 1 : 0);
+        matrix.addEntry(column, 1.0);
+    }
+
+    /**
+     * Fügt eine Bedingung der Form column1 == column2 hinzu.
+     */
+    void addVarEqConstraint(@Nonnull ConstraintKey key, int column1, int column2) {
+        matrix.addRow(EnumConstraintType.VAR_EQ, key, 0);
+        matrix.addEntry(column1, 1.0);
+        matrix.addEntry(column2, -1.0);
+    }
+
+    /**
+     * Fügt eine Bedingung der Form lhsColumn -> OR(rhsColumns) hinzu.
+     */
+    void addVarImpliesOrConstraint(@Nonnull ConstraintKey key, int lhsColumn, @Nonnull int... rhsColumns) {
+        matrix.addRow(EnumConstraintType.VAR_IMPLIES_OR, key, 0);
+        matrix.addEntry(lhsColumn, -1.0);
+        for (int rhsColumn : rhsColumns) {
+            matrix.addEntry(rhsColumn, 1.0);
+        }
+    }
+
+    List<ConstraintKey> getNewVariableKeys() {
+        return newVariableKeys;
+    }
+
+    double getNewObjectiveFactor(int newIdx) {
+        return newObjectiveFactors.get(newIdx);
+    }
+
+    /**
+     * @param column Eine Hauptvariable.
+     * @return Der Beitrag dieser Familie zum Faktor der Variable in der Zielfunktion.
+     */
+    double getMainObjectiveFactor(int column) {
+        return mainObjectiveFactors == null ? 0.0 : mainObjectiveFactors[column];
+    }
+
+    RuntimeException getFailure() {
+        return failure;
+    }
+
+    void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    ModelStatistics.Phase getPhase() {
+        return phase;
+    }
+
+    void setPhase(ModelStatistics.Phase phase) {
+        this.phase = phase;
+    }
+}
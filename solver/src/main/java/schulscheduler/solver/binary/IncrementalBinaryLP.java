@@ -0,0 +1,214 @@
+package schulscheduler.solver.binary;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import schulscheduler.model.eingabe.BerechnungsParameter;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.schule.Fach;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.schule.Stunde;
+import schulscheduler.model.unterricht.Kopplung;
+import schulscheduler.model.unterricht.KopplungsFach;
+import schulscheduler.model.unterricht.Unterrichtseinheit;
+import schulscheduler.model.unterricht.Zuweisung;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hält ein {@link BinaryLP} für eine Eingabe aktuell, ohne es bei jeder Änderung komplett neu zu erzeugen. Dazu werden
+ * die Properties der Eingabe beobachtet und bei jeder Änderung die betroffenen {@link EnumConstraintFamily}s als
+ * verändert markiert (z.B. nur die Lehrer-Verfügbarkeiten, wenn ein Lehrer einen Zeitslot sperrt). Beim nächsten
+ * Aufruf von {@link #getBinaryLP()} werden nur diese Familien neu erzeugt, alle anderen werden aus dem vorherigen
+ * Modell übernommen.
+ * <p>
+ * Die Hauptvariablen und die Wochenstunden-Bedingungen werden immer neu erzeugt. Ändert sich die Menge der
+ * Unterrichtseinheiten oder der Zeitslots (z.B. durch eine neue Zuweisung), werden alle Familien neu erzeugt.
+ * <p>
+ * Die Listener werden auf dem Thread aufgerufen, der die Eingabe verändert (in der Regel der JavaFX-Thread), das Modell
+ * wird meist auf einem anderen Thread erzeugt. Da die Listener-Listen von JavaFX nicht threadsicher sind, werden die
+ * Listener nur im Konstruktor, in {@link #dispose()} und bei Änderungen der Eingabe registriert bzw. entfernt. Diese
+ * müssen daher alle auf dem Thread stattfinden, der die Eingabe verändert. {@link #getBinaryLP()} darf dagegen auf einem
+ * beliebigen Thread aufgerufen werden. Wie bei {@link BinaryLP} darf die Eingabe während der Erzeugung nicht verändert
+ * werden.
+ */
+public class IncrementalBinaryLP {
+
+    private static final Set<EnumConstraintFamily> ALL = EnumSet.allOf(EnumConstraintFamily.class);
+
+    private final Eingabedaten eingabe;
+    private final boolean aggregieren;
+
+    /**
+     * Die Familien, die sich seit der letzten Erzeugung verändert haben können.
+     */
+    private final Set<EnumConstraintFamily> changedFamilies = EnumSet.allOf(EnumConstraintFamily.class);
+
+    /**
+     * Alle registrierten Listener, zum Entfernen.
+     */
+    private final List<Runnable> unregisterActions = new ArrayList<>();
+
+    /**
+     * Das zuletzt erzeugte Modell, oder null.
+     */
+    private BinaryLP binaryLP;
+
+    /**
+     * Registriert die Listener auf der Eingabe, muss daher auf dem Thread aufgerufen werden, der die Eingabe verändert.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Ob gleichartige Unterrichtseinheiten zusammengefasst werden sollen, siehe
+     * {@link BinaryLP#BinaryLP(Eingabedaten, boolean)}.
+     */
+    public IncrementalBinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren) {
+        this.eingabe = Objects.requireNonNull(eingabe);
+        this.aggregieren = aggregieren;
+        registerListeners();
+    }
+
+    @Nonnull
+    public Eingabedaten getEingabe() {
+        return eingabe;
+    }
+
+    /**
+     * @return Ein Modell für den aktuellen Stand der Eingabe. Wenn sich die Eingabe seit dem letzten Aufruf nicht
+     * verändert hat, ist es dieselbe Instanz wie beim letzten Aufruf.
+     */
+    @Nonnull
+    public BinaryLP getBinaryLP() {
+        final Set<EnumConstraintFamily> changed;
+        synchronized (this) {
+            if (binaryLP != null && changedFamilies.isEmpty()) {
+                return binaryLP;
+            }
+            changed = EnumSet.copyOf(changedFamilies);
+            changedFamilies.clear();
+        }
+        try {
+            final BinaryLP result = new BinaryLP(eingabe, aggregieren, binaryLP, changed);
+            synchronized (this) {
+                binaryLP = result;
+            }
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedFamilies.addAll(changed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Entfernt alle Listener von der Eingabe. Danach darf diese Instanz nicht mehr verwendet werden. Muss auf dem Thread
+     * aufgerufen werden, der die Eingabe verändert.
+     */
+    public synchronized void dispose() {
+        unregisterListeners();
+        binaryLP = null;
+    }
+
+    private synchronized void markChanged(@Nonnull Set<EnumConstraintFamily> families, boolean outdatesListeners) {
+        changedFamilies.addAll(families);
+        if (outdatesListeners) {
+            // Noch auf dem Thread, der die Eingabe verändert. JavaFX erlaubt das Entfernen und Hinzufügen von Listenern
+            // während der Benachrichtigung.
+            unregisterListeners();
+            registerListeners();
+        }
+    }
+
+    private void registerListeners() {
+        // Listen, deren Elemente selbst beobachtet werden oder die die Ordinalzahlen bestimmen.
+        for (ObservableValue<?> list : List.of(eingabe.stundenProperty(), eingabe.zeitslotsProperty(),
+                eingabe.lehrerProperty(), eingabe.faecherProperty(), eingabe.klassenProperty(),
+                eingabe.zuweisungenProperty(), eingabe.kopplungenProperty())) {
+            listenStructure(list);
+        }
+        listen(eingabe.parameterProperty(), EnumSet.of(EnumConstraintFamily.HARTE_FAECHER_FOLGEN,
+                EnumConstraintFamily.HARTE_FAECHER_NACHMITTAGS), true);
+
+        final BerechnungsParameter parameter = eingabe.getParameter();
+        if (parameter != null) {
+            listen(parameter.harteFaecherFolgenProperty(), EnumSet.of(EnumConstraintFamily.HARTE_FAECHER_FOLGEN));
+            listen(parameter.weicheNachmittagsFaecherProperty(),
+                    EnumSet.of(EnumConstraintFamily.HARTE_FAECHER_NACHMITTAGS));
+        }
+        for (Stunde stunde : eingabe.getStunden()) {
+            listen(stunde.unterrichtsprioritaetProperty(), EnumSet.of(EnumConstraintFamily.UNTERRICHTSPRIORITAET));
+            listen(stunde.doppelstundeProperty(), EnumSet.of(EnumConstraintFamily.DOPPELSTUNDEN));
+            listen(stunde.gesperrtAmProperty(), EnumSet.of(EnumConstraintFamily.GESPERRTE_UND_FIXE_STUNDEN));
+        }
+        for (Fach fach : eingabe.getFaecher()) {
+            listen(fach.hartProperty(), EnumSet.of(EnumConstraintFamily.HARTE_FAECHER_FOLGEN,
+                    EnumConstraintFamily.HARTE_FAECHER_NACHMITTAGS));
+        }
+        for (Lehrer lehrer : eingabe.getLehrer()) {
+            final Set<EnumConstraintFamily> verfuegbarkeit = EnumSet.of(EnumConstraintFamily.LEHRER_VERFUEGBARKEIT);
+            // Neue Einträge müssen ebenfalls beobachtet werden.
+            listen(lehrer.verfuegbarkeitProperty(), verfuegbarkeit, true);
+            for (LehrerVerfuegbarkeit eintrag : lehrer.getVerfuegbarkeit()) {
+                listen(eintrag.verfuegbarkeitProperty(), verfuegbarkeit);
+            }
+        }
+        final List<Unterrichtseinheit> einheiten = new ArrayList<>(eingabe.getZuweisungen());
+        einheiten.addAll(eingabe.getKopplungen());
+        for (Unterrichtseinheit einheit : einheiten) {
+            listen(einheit.wochenstundenProperty(),
+                    EnumSet.of(EnumConstraintFamily.DOPPELSTUNDEN, EnumConstraintFamily.FACH_PRO_TAG));
+            listen(einheit.fixeStundenProperty(), EnumSet.of(EnumConstraintFamily.GESPERRTE_UND_FIXE_STUNDEN,
+                    EnumConstraintFamily.DOPPELSTUNDEN, EnumConstraintFamily.FACH_PRO_TAG));
+            if (einheit instanceof Zuweisung) {
+                listen(((Zuweisung) einheit).lehrerProperty(), ALL);
+            } else if (einheit instanceof Kopplung) {
+                final Kopplung kopplung = (Kopplung) einheit;
+                listenStructure(kopplung.klassenProperty());
+                listenStructure(kopplung.zuweisungenProperty());
+                listenStructure(kopplung.faecherProperty());
+                for (KopplungsFach fach : kopplung.getFaecher()) {
+                    listen(fach.lehrerProperty(), ALL);
+                }
+            }
+        }
+    }
+
+    private void unregisterListeners() {
+        unregisterActions.forEach(Runnable::run);
+        unregisterActions.clear();
+    }
+
+    /**
+     * Markiert die gegebenen Familien als verändert, wenn sich der Wert oder (bei Listen) der Inhalt ändert.
+     */
+    private void listen(@Nonnull ObservableValue<?> observable, @Nonnull Set<EnumConstraintFamily> families) {
+        listen(observable, families, false);
+    }
+
+    /**
+     * Markiert alle Familien als verändert und lässt die Listener neu registrieren, wenn sich der Wert oder (bei Listen)
+     * der Inhalt ändert.
+     */
+    private void listenStructure(@Nonnull ObservableValue<?> observable) {
+        listen(observable, ALL, true);
+    }
+
+    /**
+     * @param outdatesListeners Ob bei einer Änderung auch die Listener neu registriert werden müssen, weil es neue zu
+     * beobachtende Objekte geben kann.
+     */
+    private void listen(@Nonnull ObservableValue<?> observable, @Nonnull Set<EnumConstraintFamily> families,
+                        boolean outdatesListeners) {
+        // Ein ChangeListener wird anders als ein InvalidationListener auch dann benachrichtigt, wenn der Wert seit der
+        // letzten Änderung nicht gelesen wurde. Bei Listen-Properties auch bei Änderungen des Inhalts.
+        final ChangeListener<Object> listener = (obs, oldValue, newValue) -> markChanged(families, outdatesListeners);
+        observable.addListener(listener);
+        unregisterActions.add(() -> observable.removeListener(listener));
+    }
+
+}
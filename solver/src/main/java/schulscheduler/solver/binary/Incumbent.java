@@ -0,0 +1,99 @@
+package schulscheduler.solver.binary;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Die beste bisher gefundene zulässige Belegung eines {@link BinaryLP}, die sich mehrere parallel laufende Suchen
+ * teilen. Jede Suche meldet ihre Lösungen mit {@link #offer(boolean[], double)} und kann umgekehrt die Lösungen der
+ * anderen als Schranke oder Startpunkt verwenden. Alle Methoden sind thread-sicher.
+ */
+public class Incumbent {
+
+    private boolean[] values;
+    private volatile double objectiveValue = Double.NEGATIVE_INFINITY;
+    private volatile boolean optimal;
+    private volatile boolean infeasible;
+
+    /**
+     * Übernimmt die Belegung, wenn sie besser als die bisher beste ist.
+     *
+     * @param values Die Werte aller Variablen (Index in {@link BinaryLP#getVariables()}). Die Belegung muss alle
+     * Bedingungen erfüllen. Das Array wird kopiert.
+     * @param objectiveValue Der Wert der Zielfunktion der Belegung.
+     * @return True, wenn die Belegung übernommen wurde.
+     */
+    public synchronized boolean offer(@Nonnull boolean[] values, double objectiveValue) {
+        if (this.values != null && objectiveValue <= this.objectiveValue) return false;
+        this.values = values.clone();
+        this.objectiveValue = objectiveValue;
+        return true;
+    }
+
+    /**
+     * @return True, wenn bereits eine Belegung gemeldet wurde.
+     */
+    public boolean hasSolution() {
+        return objectiveValue != Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return Der Wert der Zielfunktion der besten Belegung, oder -∞, wenn noch keine gemeldet wurde.
+     */
+    public double getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    /**
+     * @return Eine Kopie der besten Belegung, oder null, wenn noch keine gemeldet wurde.
+     */
+    @Nullable
+    public synchronized boolean[] getValues() {
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * Schreibt die beste Belegung mit {@link BinaryVariable#setSolution(boolean)} in die Variablen.
+     *
+     * @return False, wenn noch keine Belegung gemeldet wurde.
+     */
+    public synchronized boolean applyTo(@Nonnull BinaryLP binaryLP) {
+        if (values == null) return false;
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        for (int column = 0; column < values.length; column++) {
+            variables.get(column).setSolution(values[column]);
+        }
+        return true;
+    }
+
+    /**
+     * Vermerkt, dass bewiesen wurde, dass die beste Belegung optimal ist.
+     */
+    public void setOptimal() {
+        optimal = true;
+    }
+
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * Vermerkt, dass bewiesen wurde, dass es keine zulässige Belegung gibt.
+     */
+    public void setInfeasible() {
+        infeasible = true;
+    }
+
+    public boolean isInfeasible() {
+        return infeasible;
+    }
+
+    /**
+     * @return True, wenn keine Suche mehr etwas verbessern kann, weil Optimalität oder Unzulässigkeit bewiesen wurde.
+     */
+    public boolean isFinished() {
+        return optimal || infeasible;
+    }
+
+}
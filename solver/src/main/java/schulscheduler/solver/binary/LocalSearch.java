@@ -0,0 +1,728 @@
+package schulscheduler.solver.binary;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Sucht eine Lösung für ein {@link BinaryLP} mit lokaler Suche, ohne native Bibliotheken. Die Suche arbeitet direkt auf
+ * der {@link ConstraintMatrix} und bewertet eine Belegung mit
+ * <pre>HARD_WEIGHT * (Summe der Verletzungen aller Zeilen) - Zielfunktion</pre>
+ * Dabei ist die Verletzung einer Zeile der Abstand ihrer Summe zur unteren bzw. oberen Schranke. Die Summen aller
+ * Zeilen werden mitgeführt, sodass ein Zug nur die Zeilen der Variablen neu bewertet, die er verändert.
+ * <p>
+ * Der Zustand besteht aus den Stunden jeder Unterrichtseinheit. Die Wochenstunden-Bedingungen sind daher immer
+ * erfüllt. Fixe Stunden werden nie bewegt, und Zeitslots, an denen eine Hauptvariable per {@link ForceValue} verboten
+ * ist (gesperrte Stunden, nicht verfügbare Lehrer), werden nie belegt. Zuerst wird jede Stunde gierig an den
+ * günstigsten Zeitslot gesetzt. Danach folgt Late Acceptance Hill Climbing mit diesen Arten von Zügen:
+ * <ul>
+ * <li>Eine Stunde einer Unterrichtseinheit in einen freien Zeitslot verschieben.</li>
+ * <li>Die Zeitslots zweier Stunden vertauschen, deren Unterrichtseinheiten eine gemeinsame Klasse haben.</li>
+ * <li>Eine Doppelstunde in ein anderes freies Doppelstunden-Paar verschieben, oder zwei Einzelstunden zu einer
+ * Doppelstunde zusammenlegen.</li>
+ * <li>Eine Stunde so verschieben, dass eine zufällige verletzte Bedingung ihrer Schranke näher kommt.</li>
+ * </ul>
+ * Nach jedem Zug werden die Hilfsvariablen (z.B. für tolerierte Einzelstunden) in den betroffenen Zeilen gierig
+ * angepasst.
+ */
+public class LocalSearch {
+
+    private static final byte FREE = -1;
+
+    /**
+     * Gewicht einer Einheit Verletzung einer harten Bedingung im Vergleich zu einer Einheit der Zielfunktion.
+     */
+    private static final double HARD_WEIGHT = 1000;
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Die Länge der Liste von früheren Bewertungen, mit denen ein Zug beim Late Acceptance Hill Climbing verglichen
+     * wird.
+     */
+    private static final int HISTORY_LENGTH = 1000;
+
+    /**
+     * Nach so vielen Zügen ohne Verbesserung einer gültigen Lösung wird die Suche beendet.
+     */
+    private static final long MAX_IDLE_ITERATIONS = 2_000_000;
+
+    /**
+     * So oft wird ein zufälliger freier Zeitslot gesucht, bevor ein Zug aufgegeben wird.
+     */
+    private static final int MAX_TRIES = 10;
+
+    private final BinaryLP binaryLP;
+    private final ConstraintMatrix matrix;
+    private final Random random;
+
+    private final int numZeitslots;
+    private final int numEinheiten;
+
+    /**
+     * Die Transponierte der Matrix, d.h. pro Variable die Zeilen, in denen sie vorkommt, mit ihren Koeffizienten. Die
+     * Einträge der Variable `column` stehen von `columnStarts[column]` bis `columnStarts[column + 1]`.
+     */
+    private final int[] columnStarts;
+    private final int[] columnRows;
+    private final double[] columnCoefficients;
+
+    private final double[] objectiveFactors;
+    private final double[] lowerBounds;
+    private final double[] upperBounds;
+
+    /**
+     * Pro Zeile, ob darin Hilfsvariablen vorkommen (d.h. Variablen, die keine Hauptvariablen sind).
+     */
+    private final boolean[] hasHilfsvariablen;
+
+    /**
+     * Pro Variable der durch ein {@link ForceValue} festgelegte Wert 0 oder 1, oder {@link #FREE}.
+     */
+    private final byte[] fixed;
+
+    /**
+     * Die aktuelle Belegung aller Variablen und die daraus resultierende Summe jeder Zeile.
+     */
+    private final boolean[] values;
+    private final double[] activities;
+    private double violation;
+    private double objectiveValue;
+
+    /**
+     * Die aktuell verletzten Zeilen in beliebiger Reihenfolge, und pro Zeile ihre Position in dieser Liste oder -1.
+     */
+    private final int[] violatedRows;
+    private final int[] violatedRowPositions;
+    private int numViolatedRows;
+
+    /**
+     * Die Zeitslots der Stunden aller Unterrichtseinheiten. Die Stunden der Einheit `einheitIdx` stehen von
+     * `lessonStarts[einheitIdx]` bis `lessonStarts[einheitIdx + 1]`, davon sind die ab `firstMovable[einheitIdx]`
+     * verschiebbar (die davor sind fixe Stunden).
+     */
+    private final int[] lessonStarts;
+    private final int[] firstMovable;
+    private final int[] lessonSlots;
+
+    /**
+     * Die Ordinalzahlen der Unterrichtseinheiten mit mindestens einer verschiebbaren Stunde.
+     */
+    private final int[] movableEinheiten;
+
+    /**
+     * Pro Klasse die verschiebbaren Unterrichtseinheiten und pro Unterrichtseinheit die Klassen, für die Tausch-Züge.
+     */
+    private final int[][] klassenEinheiten;
+    private final int[][] einheitKlassen;
+
+    /**
+     * Pro Zeitslot der andere Zeitslot der Doppelstunde, oder -1.
+     */
+    private final int[] doppelstunden;
+
+    /**
+     * Die im aktuellen Zug veränderten Variablen und Stunden, um den Zug rückgängig machen zu können.
+     */
+    private int[] undoColumns = new int[16];
+    private int numUndoColumns;
+    private final int[] undoLessons = new int[4];
+    private final int[] undoLessonSlots = new int[4];
+    private int numUndoLessons;
+
+    /**
+     * Die im aktuellen Zug berührten Zeilen. Eine Zeile bzw. Hilfsvariable wurde im aktuellen Zug bereits erfasst, wenn
+     * ihr Eintrag in {@link #rowStamps} bzw. {@link #columnStamps} gleich {@link #stamp} ist.
+     */
+    private final int[] touchedRows;
+    private int numTouchedRows;
+    private final int[] rowStamps;
+    private final int[] columnStamps;
+    private int stamp;
+
+    private boolean[] bestValues;
+    private double bestViolation;
+    private double bestObjectiveValue;
+    private long iterations;
+
+    /**
+     * Hierhin werden alle zulässigen Verbesserungen gemeldet, falls gesetzt.
+     */
+    @Nullable
+    private Incumbent incumbent;
+
+    /**
+     * Die Werte, von denen die Startlösung möglichst übernommen wird, siehe {@link #setStartwerte(byte[])}.
+     */
+    @Nullable
+    private byte[] startwerte;
+
+    /**
+     * @param binaryLP Das zu lösende Modell. Die Lösung wird mit {@link BinaryVariable#setSolution(boolean)} in dessen
+     * Variablen geschrieben, ansonsten wird es nicht verändert.
+     * @param seed Startwert für den Zufallsgenerator, damit die Suche reproduzierbar ist.
+     */
+    public LocalSearch(@Nonnull BinaryLP binaryLP, long seed) {
+        this.binaryLP = binaryLP;
+        this.matrix = binaryLP.getMatrix();
+        this.random = new Random(seed);
+        this.numZeitslots = binaryLP.getZeitslots().size();
+        this.numEinheiten = binaryLP.getEinheiten().size();
+        final int numMain = numEinheiten * numZeitslots;
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        final int numVariables = variables.size();
+        final int numRows = matrix.getNumRows();
+
+        columnStarts = new int[numVariables + 1];
+        for (int entry = 0; entry < matrix.getNumEntries(); entry++) {
+            columnStarts[matrix.getColumn(entry) + 1]++;
+        }
+        for (int column = 0; column < numVariables; column++) {
+            columnStarts[column + 1] += columnStarts[column];
+        }
+        columnRows = new int[matrix.getNumEntries()];
+        columnCoefficients = new double[matrix.getNumEntries()];
+        final int[] fill = Arrays.copyOf(columnStarts, numVariables);
+        lowerBounds = new double[numRows];
+        upperBounds = new double[numRows];
+        hasHilfsvariablen = new boolean[numRows];
+        fixed = new byte[numVariables];
+        Arrays.fill(fixed, FREE);
+        for (int row = 0; row < numRows; row++) {
+            lowerBounds[row] = matrix.getLowerBound(row);
+            upperBounds[row] = matrix.getUpperBound(row);
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                final int column = matrix.getColumn(entry);
+                columnRows[fill[column]] = row;
+                columnCoefficients[fill[column]] = matrix.getCoefficient(entry);
+                fill[column]++;
+                hasHilfsvariablen[row] |= column >= numMain;
+            }
+            if (matrix.getType(row) == EnumConstraintType.FORCE_VALUE) {
+                fixed[matrix.getColumn(matrix.getRowStart(row))] = (byte) matrix.getRhs(row);
+            }
+        }
+
+        objectiveFactors = new double[numVariables];
+        for (int column = 0; column < numVariables; column++) {
+            objectiveFactors[column] = variables.get(column).getObjectiveFactor();
+        }
+        values = new boolean[numVariables];
+        activities = new double[numRows];
+        violatedRows = new int[numRows];
+        violatedRowPositions = new int[numRows];
+        Arrays.fill(violatedRowPositions, -1);
+        for (int row = 0; row < numRows; row++) {
+            violation += getViolation(row, 0);
+            updateViolated(row, getViolation(row, 0) > 0);
+        }
+
+        lessonStarts = new int[numEinheiten + 1];
+        for (int einheitIdx = 0; einheitIdx < numEinheiten; einheitIdx++) {
+            lessonStarts[einheitIdx + 1] = lessonStarts[einheitIdx] + binaryLP.getWochenstunden(einheitIdx);
+        }
+        firstMovable = new int[numEinheiten];
+        lessonSlots = new int[lessonStarts[numEinheiten]];
+
+        doppelstunden = new int[numZeitslots];
+        for (int slotIdx = 0; slotIdx < numZeitslots; slotIdx++) {
+            doppelstunden[slotIdx] = binaryLP.getDoppelstunde(slotIdx);
+        }
+
+        touchedRows = new int[numRows];
+        rowStamps = new int[numRows];
+        columnStamps = new int[numVariables];
+
+        // Die fixen Stunden stehen ab hier fest, daher können die verschiebbaren Einheiten schon bestimmt werden.
+        placeFixeStunden();
+        movableEinheiten = IntStream.range(0, numEinheiten).filter(this::isMovable).toArray();
+        final List<BitSet> klassenUnterricht = binaryLP.getKlassenUnterricht();
+        klassenEinheiten = new int[klassenUnterricht.size()][];
+        final List<List<Integer>> klassenProEinheit = new ArrayList<>();
+        for (int einheitIdx = 0; einheitIdx < numEinheiten; einheitIdx++) {
+            klassenProEinheit.add(new ArrayList<>());
+        }
+        for (int klasseIdx = 0; klasseIdx < klassenUnterricht.size(); klasseIdx++) {
+            klassenEinheiten[klasseIdx] = klassenUnterricht.get(klasseIdx).stream().filter(this::isMovable).toArray();
+            for (int einheitIdx : klassenEinheiten[klasseIdx]) {
+                klassenProEinheit.get(einheitIdx).add(klasseIdx);
+            }
+        }
+        einheitKlassen = klassenProEinheit.stream()
+                .map(klassen -> klassen.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * @param incumbent Die gemeinsame beste Belegung mehrerer paralleler Suchen. Jede zulässige Verbesserung wird
+     * dorthin gemeldet, und die Suche endet vorzeitig, sobald dort Optimalität bewiesen wurde.
+     */
+    public void setIncumbent(@Nullable Incumbent incumbent) {
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * @param startwerte Eine frühere Lösung, siehe {@link BinaryLP#getStartwerte}. Die Startlösung
+     * übernimmt deren Zeitslots, soweit sie nicht durch fixe Stunden belegt sind, und verplant nur die übrigen Stunden
+     * neu. Die Suche beginnt dann mit einer Lösung, die der früheren möglichst ähnlich ist.
+     */
+    public void setStartwerte(@Nullable byte[] startwerte) {
+        this.startwerte = startwerte;
+    }
+
+    /**
+     * Führt die Suche durch und schreibt die beste gefundene Belegung in die Variablen des Modells.
+     *
+     * @param timeLimitMillis Die maximale Dauer der Suche in Millisekunden.
+     * @return True, wenn die beste gefundene Belegung alle harten Bedingungen erfüllt.
+     * @throws InterruptedException Wenn der Thread während der Suche unterbrochen wurde.
+     */
+    public boolean solve(long timeLimitMillis) throws InterruptedException {
+        final boolean feasible = search(timeLimitMillis);
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        for (int column = 0; column < variables.size(); column++) {
+            variables.get(column).setSolution(bestValues[column]);
+        }
+        return feasible;
+    }
+
+    /**
+     * Führt die Suche durch, ohne das Modell zu verändern. Daher können mehrere Suchen parallel auf demselben Modell
+     * laufen und ihre Lösungen über {@link #setIncumbent(Incumbent)} austauschen.
+     *
+     * @param timeLimitMillis Die maximale Dauer der Suche in Millisekunden.
+     * @return True, wenn die beste gefundene Belegung alle harten Bedingungen erfüllt.
+     * @throws InterruptedException Wenn der Thread während der Suche unterbrochen wurde.
+     */
+    public boolean search(long timeLimitMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeLimitMillis * 1_000_000;
+        construct();
+        double currentCost = getCost();
+        saveBest();
+
+        final double[] history = new double[HISTORY_LENGTH];
+        Arrays.fill(history, currentCost);
+        long idleIterations = 0;
+        for (iterations = 0; movableEinheiten.length > 0; iterations++) {
+            if ((iterations & 0xFF) == 0) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (System.nanoTime() >= deadline) break;
+                if (incumbent != null && incumbent.isFinished()) break;
+            }
+            if (bestViolation < EPSILON && idleIterations >= MAX_IDLE_ITERATIONS) break;
+            idleIterations++;
+
+            beginMove();
+            if (!randomMove()) continue;
+            repairHilfsvariablen();
+            final double cost = getCost();
+            final int historyIdx = (int) (iterations % HISTORY_LENGTH);
+            if (cost <= currentCost + EPSILON || cost <= history[historyIdx] + EPSILON) {
+                currentCost = cost;
+                if (isBetterThanBest()) {
+                    saveBest();
+                    idleIterations = 0;
+                }
+            } else {
+                undoMove();
+            }
+            history[historyIdx] = currentCost;
+        }
+        return bestViolation < EPSILON;
+    }
+
+    /**
+     * @return Die Summe der Verletzungen aller harten Bedingungen in der besten gefundenen Belegung.
+     */
+    public double getViolation() {
+        return bestViolation;
+    }
+
+    /**
+     * @return Der Wert der Zielfunktion der besten gefundenen Belegung.
+     */
+    public double getObjectiveValue() {
+        return bestObjectiveValue;
+    }
+
+    /**
+     * @return Die Anzahl der Iterationen der lokalen Suche.
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    private int getColumn(int einheitIdx, int slotIdx) {
+        return einheitIdx * numZeitslots + slotIdx;
+    }
+
+    private boolean isMovable(int einheitIdx) {
+        return firstMovable[einheitIdx] < lessonStarts[einheitIdx + 1];
+    }
+
+    /**
+     * @return True, wenn die Stunde der Einheit an den Zeitslot gesetzt werden darf.
+     */
+    private boolean isFree(int einheitIdx, int slotIdx) {
+        final int column = getColumn(einheitIdx, slotIdx);
+        return !values[column] && fixed[column] == FREE;
+    }
+
+    private double getViolation(int row, double activity) {
+        if (activity < lowerBounds[row]) return lowerBounds[row] - activity;
+        if (activity > upperBounds[row]) return activity - upperBounds[row];
+        return 0;
+    }
+
+    private double getCost() {
+        return HARD_WEIGHT * violation - objectiveValue;
+    }
+
+    /**
+     * Setzt die fixen Stunden, soweit die Wochenstunden der Einheiten reichen.
+     */
+    private void placeFixeStunden() {
+        for (int einheitIdx = 0; einheitIdx < numEinheiten; einheitIdx++) {
+            int lesson = lessonStarts[einheitIdx];
+            for (int slotIdx = 0; slotIdx < numZeitslots && lesson < lessonStarts[einheitIdx + 1]; slotIdx++) {
+                final int column = getColumn(einheitIdx, slotIdx);
+                if (fixed[column] == 1) {
+                    applyFlip(column);
+                    lessonSlots[lesson++] = slotIdx;
+                }
+            }
+            firstMovable[einheitIdx] = lesson;
+        }
+    }
+
+    /**
+     * Erzeugt die Startlösung. Die Einheiten mit den wenigsten Ausweichmöglichkeiten werden zuerst verplant, und jede
+     * Stunde wird an den Zeitslot aus den {@link #startwerte}n oder sonst an den Zeitslot gesetzt, der die Bewertung
+     * am wenigsten verschlechtert.
+     */
+    private void construct() {
+        final int[] spielraum = new int[numEinheiten];
+        for (int einheitIdx = 0; einheitIdx < numEinheiten; einheitIdx++) {
+            for (int slotIdx = 0; slotIdx < numZeitslots; slotIdx++) {
+                if (isFree(einheitIdx, slotIdx)) spielraum[einheitIdx]++;
+            }
+            spielraum[einheitIdx] -= lessonStarts[einheitIdx + 1] - firstMovable[einheitIdx];
+        }
+        final Integer[] order = IntStream.range(0, numEinheiten).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt(einheitIdx -> spielraum[einheitIdx]));
+        for (int einheitIdx : order) {
+            int lesson = firstMovable[einheitIdx];
+            for (int slotIdx = 0; startwerte != null && slotIdx < numZeitslots; slotIdx++) {
+                final int column = getColumn(einheitIdx, slotIdx);
+                if (lesson < lessonStarts[einheitIdx + 1] && startwerte[column] == 1 && fixed[column] == FREE) {
+                    beginMove();
+                    flip(column);
+                    lessonSlots[lesson++] = slotIdx;
+                    repairHilfsvariablen();
+                }
+            }
+            for (; lesson < lessonStarts[einheitIdx + 1]; lesson++) {
+                int bestSlot = -1;
+                double bestCost = Double.POSITIVE_INFINITY;
+                boolean bestFree = false;
+                for (int slotIdx = 0; slotIdx < numZeitslots; slotIdx++) {
+                    final int column = getColumn(einheitIdx, slotIdx);
+                    if (values[column]) continue;
+                    final boolean free = fixed[column] == FREE;
+                    if (bestFree && !free) continue;
+                    applyFlip(column);
+                    final double cost = getCost();
+                    applyFlip(column);
+                    if (cost < bestCost - EPSILON || (free && !bestFree)) {
+                        bestSlot = slotIdx;
+                        bestCost = cost;
+                        bestFree = free;
+                    }
+                }
+                if (bestSlot < 0) {
+                    throw new IllegalStateException("Mehr Wochenstunden als Zeitslots");
+                }
+                beginMove();
+                flip(getColumn(einheitIdx, bestSlot));
+                lessonSlots[lesson] = bestSlot;
+                repairHilfsvariablen();
+            }
+        }
+    }
+
+    /**
+     * Beginnt einen neuen Zug, der mit {@link #undoMove()} rückgängig gemacht werden kann.
+     */
+    private void beginMove() {
+        numUndoColumns = 0;
+        numUndoLessons = 0;
+        numTouchedRows = 0;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(rowStamps, 0);
+            Arrays.fill(columnStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private void undoMove() {
+        while (numUndoColumns > 0) {
+            applyFlip(undoColumns[--numUndoColumns]);
+        }
+        while (numUndoLessons > 0) {
+            numUndoLessons--;
+            lessonSlots[undoLessons[numUndoLessons]] = undoLessonSlots[numUndoLessons];
+        }
+    }
+
+    /**
+     * Invertiert eine Variable und merkt sie für {@link #undoMove()} vor.
+     */
+    private void flip(int column) {
+        applyFlip(column);
+        if (numUndoColumns == undoColumns.length) {
+            undoColumns = Arrays.copyOf(undoColumns, 2 * numUndoColumns);
+        }
+        undoColumns[numUndoColumns++] = column;
+    }
+
+    /**
+     * Invertiert eine Variable und aktualisiert die Summen und Verletzungen der betroffenen Zeilen.
+     */
+    private void applyFlip(int column) {
+        final boolean value = !values[column];
+        values[column] = value;
+        final double sign = value ? 1 : -1;
+        objectiveValue += sign * objectiveFactors[column];
+        for (int i = columnStarts[column]; i < columnStarts[column + 1]; i++) {
+            final int row = columnRows[i];
+            final double before = activities[row];
+            final double after = before + sign * columnCoefficients[i];
+            activities[row] = after;
+            final double violationBefore = getViolation(row, before);
+            final double violationAfter = getViolation(row, after);
+            if (violationBefore != violationAfter) {
+                violation += violationAfter - violationBefore;
+                updateViolated(row, violationAfter > 0);
+            }
+            if (rowStamps[row] != stamp) {
+                rowStamps[row] = stamp;
+                touchedRows[numTouchedRows++] = row;
+            }
+        }
+    }
+
+    /**
+     * Nimmt eine Zeile in {@link #violatedRows} auf oder entfernt sie daraus.
+     */
+    private void updateViolated(int row, boolean violated) {
+        final int position = violatedRowPositions[row];
+        if (violated && position < 0) {
+            violatedRowPositions[row] = numViolatedRows;
+            violatedRows[numViolatedRows++] = row;
+        } else if (!violated && position >= 0) {
+            final int last = violatedRows[--numViolatedRows];
+            violatedRows[position] = last;
+            violatedRowPositions[last] = position;
+            violatedRowPositions[row] = -1;
+        }
+    }
+
+    /**
+     * Verschiebt eine Stunde in einen anderen Zeitslot.
+     *
+     * @param einheitIdx Die Einheit, zu der die Stunde gehört.
+     * @param lesson Der Index der Stunde in {@link #lessonSlots}.
+     * @param slotIdx Der neue Zeitslot.
+     */
+    private void moveLesson(int einheitIdx, int lesson, int slotIdx) {
+        undoLessons[numUndoLessons] = lesson;
+        undoLessonSlots[numUndoLessons++] = lessonSlots[lesson];
+        flip(getColumn(einheitIdx, lessonSlots[lesson]));
+        flip(getColumn(einheitIdx, slotIdx));
+        lessonSlots[lesson] = slotIdx;
+    }
+
+    /**
+     * Passt die Hilfsvariablen in den Zeilen, die der aktuelle Zug berührt hat, gierig an: Eine Hilfsvariable wird
+     * invertiert, wenn das die Bewertung verbessert, oder wenn sie dadurch ohne Verschlechterung auf 0 fällt (und damit
+     * z.B. eine tolerierte Einzelstunde für später frei wird).
+     */
+    private void repairHilfsvariablen() {
+        final int numMain = numEinheiten * numZeitslots;
+        final int numRows = numTouchedRows;
+        for (int i = 0; i < numRows; i++) {
+            final int row = touchedRows[i];
+            if (!hasHilfsvariablen[row]) continue;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                final int column = matrix.getColumn(entry);
+                if (column < numMain || fixed[column] != FREE || columnStamps[column] == stamp) continue;
+                columnStamps[column] = stamp;
+                final double before = getCost();
+                applyFlip(column);
+                final double delta = getCost() - before;
+                if (delta < -EPSILON || (delta <= EPSILON && !values[column])) {
+                    if (numUndoColumns == undoColumns.length) {
+                        undoColumns = Arrays.copyOf(undoColumns, 2 * numUndoColumns);
+                    }
+                    undoColumns[numUndoColumns++] = column;
+                } else {
+                    applyFlip(column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Führt einen zufälligen Zug aus.
+     *
+     * @return False, wenn kein passender Zug gefunden wurde (dann wurde nichts verändert).
+     */
+    private boolean randomMove() {
+        if (numViolatedRows > 0 && random.nextInt(10) < 3) {
+            return repairMove();
+        }
+        final int einheitIdx = movableEinheiten[random.nextInt(movableEinheiten.length)];
+        final int lesson = randomMovableLesson(einheitIdx);
+        final int kind = random.nextInt(10);
+        if (kind < 5) {
+            return moveLessonMove(einheitIdx, lesson);
+        } else if (kind < 8) {
+            return swapMove(einheitIdx, lesson);
+        } else {
+            return doppelstundeMove(einheitIdx, lesson);
+        }
+    }
+
+    private int randomMovableLesson(int einheitIdx) {
+        return firstMovable[einheitIdx] + random.nextInt(lessonStarts[einheitIdx + 1] - firstMovable[einheitIdx]);
+    }
+
+    /**
+     * @return Ein zufälliger Zeitslot, an den die Einheit eine Stunde verschieben darf, oder -1.
+     */
+    private int randomFreeSlot(int einheitIdx) {
+        for (int i = 0; i < MAX_TRIES; i++) {
+            final int slotIdx = random.nextInt(numZeitslots);
+            if (isFree(einheitIdx, slotIdx)) return slotIdx;
+        }
+        return -1;
+    }
+
+    /**
+     * Zug: Eine Stunde so verschieben, dass sich eine zufällige verletzte Zeile ihrer Schranke nähert. Je nach Zeile
+     * und Vorzeichen des Koeffizienten wird dazu eine Stunde aus dem Zeitslot heraus oder in ihn hinein verschoben.
+     */
+    private boolean repairMove() {
+        final int row = violatedRows[random.nextInt(numViolatedRows)];
+        final boolean raise = activities[row] < lowerBounds[row];
+        final int rowStart = matrix.getRowStart(row);
+        final int rowLength = matrix.getRowEnd(row) - rowStart;
+        for (int i = 0; i < MAX_TRIES; i++) {
+            final int entry = rowStart + random.nextInt(rowLength);
+            final int column = matrix.getColumn(entry);
+            if (column >= numEinheiten * numZeitslots) continue;
+            final int einheitIdx = column / numZeitslots;
+            final int slotIdx = column % numZeitslots;
+            if (!isMovable(einheitIdx)) continue;
+            if (raise == matrix.getCoefficient(entry) > 0) {
+                // Die Einheit soll in diesem Zeitslot stattfinden.
+                if (!isFree(einheitIdx, slotIdx)) continue;
+                moveLesson(einheitIdx, randomMovableLesson(einheitIdx), slotIdx);
+                return true;
+            } else if (values[column]) {
+                // Die Einheit soll nicht in diesem Zeitslot stattfinden.
+                for (int lesson = firstMovable[einheitIdx]; lesson < lessonStarts[einheitIdx + 1]; lesson++) {
+                    if (lessonSlots[lesson] == slotIdx) {
+                        final int newSlotIdx = randomFreeSlot(einheitIdx);
+                        if (newSlotIdx < 0) break;
+                        moveLesson(einheitIdx, lesson, newSlotIdx);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Zug: Eine Stunde in einen freien Zeitslot verschieben.
+     */
+    private boolean moveLessonMove(int einheitIdx, int lesson) {
+        final int slotIdx = randomFreeSlot(einheitIdx);
+        if (slotIdx < 0) return false;
+        moveLesson(einheitIdx, lesson, slotIdx);
+        return true;
+    }
+
+    /**
+     * Zug: Die Zeitslots zweier Stunden tauschen, deren Einheiten eine gemeinsame Klasse haben.
+     */
+    private boolean swapMove(int einheitIdx, int lesson) {
+        final int[] klassen = einheitKlassen[einheitIdx];
+        if (klassen.length == 0) return false;
+        final int[] einheitenDerKlasse = klassenEinheiten[klassen[random.nextInt(klassen.length)]];
+        final int otherIdx = einheitenDerKlasse[random.nextInt(einheitenDerKlasse.length)];
+        if (otherIdx == einheitIdx) return false;
+        final int otherLesson = randomMovableLesson(otherIdx);
+        final int slotIdx = lessonSlots[lesson];
+        final int otherSlotIdx = lessonSlots[otherLesson];
+        if (!isFree(einheitIdx, otherSlotIdx) || !isFree(otherIdx, slotIdx)) return false;
+        moveLesson(einheitIdx, lesson, otherSlotIdx);
+        moveLesson(otherIdx, otherLesson, slotIdx);
+        return true;
+    }
+
+    /**
+     * Zug: Eine Doppelstunde in ein freies Doppelstunden-Paar verschieben. Ist die Stunde eine Einzelstunde, wird
+     * stattdessen eine andere Einzelstunde derselben Einheit zu ihr verschoben, sodass eine Doppelstunde entsteht.
+     */
+    private boolean doppelstundeMove(int einheitIdx, int lesson) {
+        final int partnerSlotIdx = doppelstunden[lessonSlots[lesson]];
+        if (partnerSlotIdx < 0) return false;
+        if (!values[getColumn(einheitIdx, partnerSlotIdx)]) {
+            final int other = randomMovableLesson(einheitIdx);
+            if (other == lesson || !isFree(einheitIdx, partnerSlotIdx)) return false;
+            final int otherPartnerSlotIdx = doppelstunden[lessonSlots[other]];
+            if (otherPartnerSlotIdx >= 0 && values[getColumn(einheitIdx, otherPartnerSlotIdx)]) return false;
+            moveLesson(einheitIdx, other, partnerSlotIdx);
+            return true;
+        }
+        int partnerLesson = -1;
+        for (int other = firstMovable[einheitIdx]; other < lessonStarts[einheitIdx + 1]; other++) {
+            if (lessonSlots[other] == partnerSlotIdx) {
+                partnerLesson = other;
+                break;
+            }
+        }
+        if (partnerLesson < 0) return false;
+        final int slotIdx = randomFreeSlot(einheitIdx);
+        if (slotIdx < 0 || doppelstunden[slotIdx] < 0 || !isFree(einheitIdx, doppelstunden[slotIdx])) return false;
+        moveLesson(einheitIdx, lesson, slotIdx);
+        moveLesson(einheitIdx, partnerLesson, doppelstunden[slotIdx]);
+        return true;
+    }
+
+    private boolean isBetterThanBest() {
+        return violation < bestViolation - EPSILON
+                || (violation <= bestViolation + EPSILON && objectiveValue > bestObjectiveValue + EPSILON);
+    }
+
+    private void saveBest() {
+        if (bestValues == null) {
+            bestValues = new boolean[values.length];
+        }
+        System.arraycopy(values, 0, bestValues, 0, values.length);
+        bestViolation = violation;
+        bestObjectiveValue = objectiveValue;
+        if (incumbent != null && bestViolation < EPSILON) {
+            incumbent.offer(bestValues, bestObjectiveValue);
+        }
+    }
+
+}
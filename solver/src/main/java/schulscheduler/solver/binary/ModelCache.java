@@ -0,0 +1,372 @@
+package schulscheduler.solver.binary;
+
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.model.eingabe.BerechnungsParameter;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.model.schule.Fach;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.schule.Stunde;
+import schulscheduler.model.schule.Zeitslot;
+import schulscheduler.model.unterricht.Klasse;
+import schulscheduler.model.unterricht.Kopplung;
+import schulscheduler.model.unterricht.KopplungsFach;
+import schulscheduler.model.unterricht.Zuweisung;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Speichert erzeugte {@link BinaryLP}s auf der lokalen Festplatte, damit dieselbe Eingabe (z.B. eine erneut geöffnete
+ * Schul-Datei oder ein nächtlicher Batch über unveränderte Eingaben) nicht jedes Mal neu übersetzt werden muss.
+ * Optional wird auch die letzte Lösung gespeichert, sodass das letzte Ergebnis ohne Solver wiederhergestellt werden
+ * kann.
+ * <p>
+ * Die Einträge werden über einen Fingerabdruck der für den Solver relevanten Teile der Eingabe gefunden, siehe
+ * {@link #computeFingerprint(Eingabedaten, boolean)}. Wenn die Einträge zusammen größer als die erlaubte Größe werden,
+ * werden die am längsten nicht verwendeten gelöscht.
+ */
+public class ModelCache {
+
+    /**
+     * Muss erhöht werden, wenn sich die Formulierung des Modells oder das Dateiformat ändert, damit alte Einträge nicht
+     * mehr gefunden werden.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x53534d43; // "SSMC"
+    private static final String MODEL_EXTENSION = ".model";
+    private static final String LOESUNG_EXTENSION = ".loesung";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory Das Verzeichnis für die Einträge. Es wird bei Bedarf angelegt und sollte keine anderen Dateien
+     * enthalten.
+     * @param maxBytes Die maximale Gesamtgröße aller Einträge.
+     */
+    public ModelCache(@Nonnull Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Liefert das Modell zur gegebenen Eingabe aus dem Cache, oder erzeugt und speichert es, wenn es dort nicht
+     * vorhanden ist. Fehler beim Lesen oder Schreiben des Caches führen nur dazu, dass das Modell neu erzeugt wird.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Siehe {@link BinaryLP#BinaryLP(Eingabedaten, boolean)}.
+     * @return Das Modell.
+     */
+    @Nonnull
+    public synchronized BinaryLP getBinaryLP(@Nonnull Eingabedaten eingabe, boolean aggregieren) {
+        final String fingerprint = computeFingerprint(eingabe, aggregieren);
+        final BinaryLP cached = readModel(eingabe, aggregieren, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        final BinaryLP binaryLP = new BinaryLP(eingabe, aggregieren);
+        try {
+            writeAtomically(getFile(fingerprint, MODEL_EXTENSION), out -> binaryLP.writeModel(out));
+            evict();
+        } catch (IOException e) {
+            // Dann eben ohne Cache.
+        }
+        return binaryLP;
+    }
+
+    /**
+     * Speichert die Lösung eines Modells, damit sie mit {@link #getErgebnis(Eingabedaten, boolean)} wiederhergestellt
+     * werden kann.
+     *
+     * @param binaryLP Ein Modell, für dessen Variablen eine Lösung gesetzt ist.
+     * @throws IOException Wenn die Lösung nicht gespeichert werden kann.
+     */
+    public synchronized void putLoesung(@Nonnull BinaryLP binaryLP) throws IOException {
+        final String fingerprint = computeFingerprint(binaryLP.getEingabe(), binaryLP.isAggregiert());
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        final BitSet loesung = new BitSet(variables.size());
+        for (BinaryVariable variable : variables) {
+            loesung.set(variable.getIndex(), variable.requireSolution());
+        }
+        writeAtomically(getFile(fingerprint, LOESUNG_EXTENSION), out -> {
+            out.writeInt(variables.size());
+            final long[] words = loesung.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        });
+        evict();
+    }
+
+    /**
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Siehe {@link BinaryLP#BinaryLP(Eingabedaten, boolean)}.
+     * @return Das Ergebnis zur zuletzt mit {@link #putLoesung(BinaryLP)} gespeicherten Lösung für diese Eingabe, oder
+     * null, wenn es keine gibt.
+     */
+    @Nullable
+    public synchronized Ergebnisdaten getErgebnis(@Nonnull Eingabedaten eingabe, boolean aggregieren) {
+        final String fingerprint = computeFingerprint(eingabe, aggregieren);
+        final Path file = getFile(fingerprint, LOESUNG_EXTENSION);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        final BinaryLP binaryLP = readModel(eingabe, aggregieren, fingerprint);
+        if (binaryLP == null) {
+            return null;
+        }
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        try (DataInputStream in = openForReading(file)) {
+            if (in.readInt() != variables.size()) {
+                return null;
+            }
+            final long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            final BitSet loesung = BitSet.valueOf(words);
+            for (BinaryVariable variable : variables) {
+                variable.setSolution(loesung.get(variable.getIndex()));
+            }
+            touch(file);
+        } catch (IOException e) {
+            return null;
+        }
+        return binaryLP.createErgebnis();
+    }
+
+    /**
+     * @return Das Modell aus dem Cache, oder null, wenn es nicht vorhanden oder nicht lesbar ist.
+     */
+    @Nullable
+    private BinaryLP readModel(@Nonnull Eingabedaten eingabe, boolean aggregieren, @Nonnull String fingerprint) {
+        final Path file = getFile(fingerprint, MODEL_EXTENSION);
+        try (DataInputStream in = openForReading(file)) {
+            final BinaryLP binaryLP = new BinaryLP(eingabe, aggregieren, in);
+            touch(file);
+            return binaryLP;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // Beschädigt oder veraltet, wird beim nächsten Speichern überschrieben.
+            return null;
+        }
+    }
+
+    private Path getFile(@Nonnull String fingerprint, @Nonnull String extension) {
+        return directory.resolve(fingerprint + extension);
+    }
+
+    private DataInputStream openForReading(@Nonnull Path file) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unbekanntes Format: " + file);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private interface Content {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Schreibt zuerst in eine temporäre Datei und benennt diese dann um, damit andere Prozesse nie eine halb
+     * geschriebene Datei lesen.
+     */
+    private void writeAtomically(@Nonnull Path file, @Nonnull Content content) throws IOException {
+        Files.createDirectories(directory);
+        final Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                content.writeTo(out);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Markiert die Datei als gerade verwendet, für die LRU-Reihenfolge in {@link #evict()}.
+     */
+    private static void touch(@Nonnull Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Dann wird der Eintrag eben früher gelöscht.
+        }
+    }
+
+    /**
+     * Löscht die am längsten nicht verwendeten Einträge, bis alle zusammen höchstens {@link #maxBytes} groß sind.
+     */
+    private void evict() throws IOException {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> {
+                final String name = file.getFileName().toString();
+                return name.endsWith(MODEL_EXTENSION) || name.endsWith(LOESUNG_EXTENSION);
+            }).collect(Collectors.toCollection(ArrayList::new));
+        }
+        final List<FileTime> lastModified = new ArrayList<>(files.size());
+        final List<Long> sizes = new ArrayList<>(files.size());
+        long totalBytes = 0;
+        for (Path file : files) {
+            lastModified.add(Files.getLastModifiedTime(file));
+            final long size = Files.size(file);
+            sizes.add(size);
+            totalBytes += size;
+        }
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(lastModified::get));
+        for (int i : order) {
+            if (totalBytes <= maxBytes) break;
+            Files.deleteIfExists(files.get(i));
+            totalBytes -= sizes.get(i);
+        }
+    }
+
+    /**
+     * Berechnet einen Fingerabdruck (SHA-256) aller Teile der Eingabe, die in das {@link BinaryLP} eingehen. Dazu
+     * gehören auch die IDs der Elemente, weil die Variablen und Bedingungen sie referenzieren. Namen, Kürzel und
+     * andere nur für die Anzeige relevante Eigenschaften gehören nicht dazu. Die JavaFX-basierten
+     * {@link Object#equals(Object)}/{@link Object#hashCode()} der Eingabe werden bewusst nicht verwendet.
+     *
+     * @param eingabe Die Problemformulierung im SchulScheduler-Datenmodell.
+     * @param aggregieren Siehe {@link BinaryLP#BinaryLP(Eingabedaten, boolean)}.
+     * @return Der Fingerabdruck als Hex-String.
+     */
+    @Nonnull
+    public static String computeFingerprint(@Nonnull Eingabedaten eingabe, boolean aggregieren) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // Muss jede JVM unterstützen.
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(),
+                digest))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeBoolean(aggregieren);
+            out.writeInt(eingabe.getStunden().size());
+            for (Stunde stunde : eingabe.getStunden()) {
+                out.writeInt(stunde.getId());
+                out.writeInt(stunde.getNummer());
+                writeEnum(out, stunde.getUnterrichtsprioritaet());
+                out.writeBoolean(stunde.isDoppelstunde());
+                out.writeInt(stunde.getGesperrtAm().size());
+                for (Enum<?> wochentag : stunde.getGesperrtAm()) {
+                    writeEnum(out, wochentag);
+                }
+            }
+            out.writeInt(eingabe.getZeitslots().size());
+            for (Zeitslot zeitslot : eingabe.getZeitslots()) {
+                out.writeInt(zeitslot.getId());
+                writeId(out, zeitslot.getStunde());
+                writeEnum(out, zeitslot.getWochentag());
+            }
+            writeIds(out, eingabe.getKlassen());
+            out.writeInt(eingabe.getFaecher().size());
+            for (Fach fach : eingabe.getFaecher()) {
+                out.writeInt(fach.getId());
+                out.writeBoolean(fach.isHart());
+            }
+            out.writeInt(eingabe.getLehrer().size());
+            for (Lehrer lehrer : eingabe.getLehrer()) {
+                out.writeInt(lehrer.getId());
+                out.writeInt(lehrer.getVerfuegbarkeit().size());
+                for (LehrerVerfuegbarkeit eintrag : lehrer.getVerfuegbarkeit()) {
+                    writeId(out, eintrag.getZeitslot());
+                    writeEnum(out, eintrag.getVerfuegbarkeit());
+                }
+            }
+            out.writeInt(eingabe.getZuweisungen().size());
+            for (Zuweisung zuweisung : eingabe.getZuweisungen()) {
+                out.writeInt(zuweisung.getId());
+                out.writeInt(zuweisung.getWochenstunden());
+                writeIds(out, zuweisung.getFixeStunden());
+                writeId(out, zuweisung.getLehrer());
+                writeId(out, zuweisung.getFach());
+                writeId(out, zuweisung.getKlasse());
+            }
+            out.writeInt(eingabe.getKopplungen().size());
+            for (Kopplung kopplung : eingabe.getKopplungen()) {
+                out.writeInt(kopplung.getId());
+                out.writeInt(kopplung.getWochenstunden());
+                writeIds(out, kopplung.getFixeStunden());
+                writeIds(out, kopplung.getKlassen());
+                writeIds(out, kopplung.getZuweisungen());
+                out.writeInt(kopplung.getFaecher().size());
+                for (KopplungsFach fach : kopplung.getFaecher()) {
+                    writeId(out, fach.getFach());
+                    writeIds(out, fach.getLehrer());
+                }
+            }
+            final BerechnungsParameter parameter = eingabe.getParameter();
+            writeEnum(out, parameter == null ? null : parameter.getHarteFaecherFolgen());
+            writeEnum(out, parameter == null ? null : parameter.getWeicheNachmittagsFaecher());
+        } catch (IOException e) {
+            throw new AssertionError(e); // Schreibt nur in den Digest.
+        }
+        final StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest()) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    private static void writeId(@Nonnull DataOutputStream out, @Nullable BaseElement element) throws IOException {
+        out.writeInt(element == null ? -1 : element.getId());
+    }
+
+    private static void writeIds(@Nonnull DataOutputStream out, @Nonnull List<? extends BaseElement> elements)
+            throws IOException {
+        out.writeInt(elements.size());
+        for (BaseElement element : elements) {
+            writeId(out, element);
+        }
+    }
+
+    private static void writeEnum(@Nonnull DataOutputStream out, @Nullable Enum<?> value) throws IOException {
+        out.writeInt(value == null ? -1 : value.ordinal());
+    }
+
+}
@@ -0,0 +1,273 @@
+package schulscheduler.solver.binary;
+
+import schulscheduler.solver.EnumConstraints;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kennzahlen zur Größe eines {@link BinaryLP} und zur Dauer seiner Erzeugung. Damit lässt sich für eine konkrete
+ * Schule nachvollziehen, welche Familien von Bedingungen das Modell aufblähen, und über Versionen hinweg verfolgen, ob
+ * sich die Modellgröße oder die Erzeugungsdauer verschlechtert.
+ */
+public final class ModelStatistics {
+
+    /**
+     * Anzahl der Variablen, Zeilen und Einträge, die zu einer Familie von Bedingungen gehören.
+     */
+    public static final class Family {
+        private int variables;
+        private int rows;
+        private int entries;
+
+        /**
+         * @return Die Anzahl der Hilfsvariablen, die für diese Familie angelegt wurden.
+         */
+        public int getVariables() {
+            return variables;
+        }
+
+        /**
+         * @return Die Anzahl der Zeilen (Bedingungen) dieser Familie.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return Die Anzahl der Einträge (Nicht-Null-Koeffizienten) in den Zeilen dieser Familie.
+         */
+        public int getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * Ein Abschnitt der Erzeugung des Modells, z.B. eine der `create*Constraints`-Methoden, oder dessen Übergabe an
+     * einen externen Solver.
+     */
+    public static final class Phase {
+        private final String name;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        private Phase(@Nonnull String name, long nanos, long allocatedBytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * Führt einen Abschnitt aus und misst dabei die Dauer und den im aktuellen Thread allozierten Speicher.
+         *
+         * @param name Der Name des Abschnitts.
+         * @param action Der Abschnitt.
+         * @return Die Messung.
+         */
+        @Nonnull
+        public static Phase measure(@Nonnull String name, @Nonnull Runnable action) {
+            final long bytesBefore = getCurrentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            action.run();
+            final long nanos = System.nanoTime() - start;
+            final long bytesAfter = getCurrentThreadAllocatedBytes();
+            return new Phase(name, nanos, bytesBefore < 0 || bytesAfter < 0 ? -1 : bytesAfter - bytesBefore);
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Die Wanduhr-Dauer des Abschnitts in Nanosekunden.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return Die Anzahl der Bytes, die während des Abschnitts alloziert wurden, oder -1, wenn die JVM das nicht
+         * messen kann.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    private final int numVariables;
+    private final int numMainVariables;
+    private final int numRows;
+    private final int numEntries;
+    private final int numFixedVariables;
+    private final int numObjectiveTerms;
+    private final Map<EnumConstraints, Family> families = new EnumMap<>(EnumConstraints.class);
+    private final List<Phase> phases;
+
+    /**
+     * Zählt die Variablen und Bedingungen des gegebenen Modells.
+     *
+     * @param variables Alle Variablen des Modells.
+     * @param matrix Alle Bedingungen des Modells.
+     * @param phases Die Messungen der Abschnitte, in denen das Modell erzeugt wurde.
+     */
+    ModelStatistics(@Nonnull List<BinaryVariable> variables, @Nonnull ConstraintMatrix matrix,
+                    @Nonnull List<Phase> phases) {
+        this.numVariables = variables.size();
+        this.numRows = matrix.getNumRows();
+        this.numEntries = matrix.getNumEntries();
+        this.phases = Collections.unmodifiableList(new ArrayList<>(phases));
+
+        int mainVariables = 0;
+        int objectiveTerms = 0;
+        for (BinaryVariable variable : variables) {
+            final EnumConstraints type = variable.getKey().getType();
+            if (type == null) {
+                mainVariables++;
+            } else {
+                getOrCreateFamily(type).variables++;
+            }
+            if (variable.getObjectiveFactor() != 0.0) {
+                objectiveTerms++;
+            }
+        }
+        this.numMainVariables = mainVariables;
+        this.numObjectiveTerms = objectiveTerms;
+
+        final boolean[] fixed = new boolean[numVariables];
+        int fixedVariables = 0;
+        for (int row = 0; row < numRows; row++) {
+            final EnumConstraints type = matrix.getKey(row).getType();
+            if (type != null) {
+                final Family family = getOrCreateFamily(type);
+                family.rows++;
+                family.entries += matrix.getRowEnd(row) - matrix.getRowStart(row);
+            }
+            if (matrix.getType(row) == EnumConstraintType.FORCE_VALUE) {
+                final int column = matrix.getColumn(matrix.getRowStart(row));
+                if (!fixed[column]) {
+                    fixed[column] = true;
+                    fixedVariables++;
+                }
+            }
+        }
+        this.numFixedVariables = fixedVariables;
+    }
+
+    private Family getOrCreateFamily(@Nonnull EnumConstraints type) {
+        return families.computeIfAbsent(type, t -> new Family());
+    }
+
+    /**
+     * @return Die Anzahl aller Variablen, inklusive Hilfsvariablen.
+     */
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    /**
+     * @return Die Anzahl der Hauptvariablen (eine pro Unterrichtseinheit und Zeitslot).
+     */
+    public int getNumMainVariables() {
+        return numMainVariables;
+    }
+
+    /**
+     * @return Die Anzahl aller Zeilen (Bedingungen).
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * @return Die Anzahl aller Einträge (Nicht-Null-Koeffizienten) über alle Zeilen hinweg.
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * @return Die Anzahl der Variablen, deren Wert durch eine {@link EnumConstraintType#FORCE_VALUE}-Bedingung
+     * festgelegt ist.
+     */
+    public int getNumFixedVariables() {
+        return numFixedVariables;
+    }
+
+    /**
+     * @return Die Anzahl der Variablen mit einem Faktor ungleich 0 in der Zielfunktion.
+     */
+    public int getNumObjectiveTerms() {
+        return numObjectiveTerms;
+    }
+
+    /**
+     * @return Pro Familie von Bedingungen ihre Anzahl an Variablen, Zeilen und Einträgen. Enthält nur Familien, die im
+     * Modell vorkommen.
+     */
+    @Nonnull
+    public Map<EnumConstraints, Family> getFamilies() {
+        return Collections.unmodifiableMap(families);
+    }
+
+    /**
+     * @param type Eine Familie von Bedingungen.
+     * @return Die Kennzahlen der Familie, oder null, wenn sie im Modell nicht vorkommt.
+     */
+    @Nullable
+    public Family getFamily(@Nonnull EnumConstraints type) {
+        return families.get(type);
+    }
+
+    /**
+     * @return Die Messungen der Abschnitte, in denen das Modell erzeugt wurde, in der Reihenfolge, in der sie zum
+     * Modell beigetragen haben. Die Familien von Bedingungen werden nebenläufig erzeugt, ihre Dauern überlappen sich
+     * also und ergeben in Summe mehr als die tatsächlich vergangene Zeit.
+     */
+    @Nonnull
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("Variablen: %d (davon %d Hauptvariablen, %d fixiert, %d in der Zielfunktion)%n",
+                numVariables, numMainVariables, numFixedVariables, numObjectiveTerms));
+        result.append(String.format("Bedingungen: %d mit %d Einträgen%n", numRows, numEntries));
+        for (Map.Entry<EnumConstraints, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            result.append(String.format("  %-24s %8d Zeilen %9d Einträge %8d Variablen%n",
+                    entry.getKey(), family.rows, family.entries, family.variables));
+        }
+        result.append(String.format("Erzeugung:%n"));
+        for (Phase phase : phases) {
+            result.append(String.format("  %-44s %8.1f ms %10s%n", phase.name, phase.nanos / 1e6,
+                    phase.allocatedBytes < 0 ? "?" : (phase.allocatedBytes / 1024) + " KiB"));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return Die Anzahl der Bytes, die der aktuelle Thread bisher alloziert hat, oder -1, wenn die JVM das nicht
+     * messen kann.
+     */
+    private static long getCurrentThreadAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+}
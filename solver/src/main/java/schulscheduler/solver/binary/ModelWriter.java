@@ -0,0 +1,311 @@
+package schulscheduler.solver.binary;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Schreibt ein Modell (Variablen, Bedingungen und Zielfunktion) in einem der {@link EnumModelFormat}s, damit es ohne
+ * JNI von externen Solvern gelöst werden kann. Die Zeilen werden direkt aus der {@link ConstraintMatrix} in den
+ * Ausgabestrom geschrieben, der Text wird also nie vollständig im Speicher aufgebaut.
+ * <p>
+ * Die Variable mit Index `i` (siehe {@link BinaryVariable#getIndex()}) heißt in allen Formaten `x(i+1)` und die Zeile
+ * `row` heißt `c(row+1)`, weil OPB nur Variablennamen ab `x1` zulässt. Die Lösung eines externen Solvers kann mit dem
+ * {@link SolutionReader} wieder eingelesen werden.
+ */
+public class ModelWriter {
+
+    /**
+     * Maximale Anzahl an Termen pro Textzeile im LP-Format, weil manche Parser die Zeilenlänge begrenzen.
+     */
+    private static final int LP_TERMS_PER_LINE = 8;
+
+    private final List<BinaryVariable> variables;
+    private final ConstraintMatrix matrix;
+    private final double objectiveOffset;
+
+    /**
+     * @param binaryLP Das vollständige Modell.
+     */
+    public ModelWriter(@Nonnull BinaryLP binaryLP) {
+        this(binaryLP.getVariables(), binaryLP.getMatrix(), 0.0);
+    }
+
+    /**
+     * @param presolve Das reduzierte Modell. Der konstante Anteil der Zielfunktion wird nur als Kommentar geschrieben.
+     */
+    public ModelWriter(@Nonnull Presolve presolve) {
+        this(presolve.getVariables(), presolve.getMatrix(), presolve.getObjectiveOffset());
+        if (presolve.isInfeasible()) {
+            throw new IllegalArgumentException("Das Modell ist unlösbar: " + presolve.getInfeasibleConstraintName());
+        }
+    }
+
+    private ModelWriter(@Nonnull List<BinaryVariable> variables, @Nonnull ConstraintMatrix matrix,
+                        double objectiveOffset) {
+        this.variables = variables;
+        this.matrix = matrix;
+        this.objectiveOffset = objectiveOffset;
+    }
+
+    /**
+     * @param variable Eine Variable des Modells.
+     * @return Der Name der Variable in den exportierten Dateien.
+     */
+    public static String getExportName(@Nonnull BinaryVariable variable) {
+        return "x" + (variable.getIndex() + 1);
+    }
+
+    /**
+     * Schreibt das Modell in eine Datei. Eine existierende Datei wird überschrieben.
+     *
+     * @param file Die Zieldatei.
+     * @param format Das Dateiformat.
+     * @throws IOException Wenn die Datei nicht geschrieben werden kann.
+     */
+    public void write(@Nonnull Path file, @Nonnull EnumModelFormat format) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try (Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.US_ASCII))) {
+            write(out, format);
+        }
+    }
+
+    /**
+     * Schreibt das Modell in einen Ausgabestrom. Der Strom wird nicht geschlossen.
+     *
+     * @param out Der Ausgabestrom, am besten gepuffert.
+     * @param format Das Dateiformat.
+     * @throws IOException Wenn der Ausgabestrom nicht geschrieben werden kann.
+     */
+    public void write(@Nonnull Writer out, @Nonnull EnumModelFormat format) throws IOException {
+        switch (format) {
+            case LP:
+                writeLp(out);
+                break;
+            case MPS:
+                writeMps(out);
+                break;
+            case OPB:
+                writeOpb(out);
+                break;
+            default:
+                throw new AssertionError();
+        }
+        out.flush();
+    }
+
+    private void writeLp(@Nonnull Writer out) throws IOException {
+        out.write("\\ SchulScheduler: " + variables.size() + " Variablen, " + matrix.getNumRows() + " Bedingungen\n");
+        if (objectiveOffset != 0.0) {
+            out.write("\\ Konstanter Anteil der Zielfunktion: " + formatNumber(objectiveOffset) + "\n");
+        }
+        out.write("Maximize\n obj:");
+        int terms = 0;
+        for (BinaryVariable variable : variables) {
+            if (variable.getObjectiveFactor() == 0.0) continue;
+            if (terms > 0 && terms % LP_TERMS_PER_LINE == 0) out.write("\n ");
+            writeLpTerm(out, variable.getObjectiveFactor(), variable.getIndex());
+            terms++;
+        }
+        if (terms == 0 && !variables.isEmpty()) {
+            writeLpTerm(out, 0.0, variables.get(0).getIndex());
+        }
+        out.write("\nSubject To\n");
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            out.write(" c" + (row + 1) + ":");
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                if (entry > matrix.getRowStart(row) && (entry - matrix.getRowStart(row)) % LP_TERMS_PER_LINE == 0) {
+                    out.write("\n ");
+                }
+                writeLpTerm(out, matrix.getCoefficient(entry), matrix.getColumn(entry));
+            }
+            switch (getSense(row)) {
+                case 'E':
+                    out.write(" = " + formatNumber(matrix.getLowerBound(row)) + "\n");
+                    break;
+                case 'L':
+                    out.write(" <= " + formatNumber(matrix.getUpperBound(row)) + "\n");
+                    break;
+                case 'G':
+                    out.write(" >= " + formatNumber(matrix.getLowerBound(row)) + "\n");
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+        }
+        out.write("Binary\n");
+        for (BinaryVariable variable : variables) {
+            out.write(" " + getExportName(variable) + "\n");
+        }
+        out.write("End\n");
+    }
+
+    private static void writeLpTerm(@Nonnull Writer out, double coefficient, int column) throws IOException {
+        out.write(coefficient < 0 ? " - " : " + ");
+        out.write(formatNumber(Math.abs(coefficient)));
+        out.write(" x");
+        out.write(Integer.toString(column + 1));
+    }
+
+    private void writeMps(@Nonnull Writer out) throws IOException {
+        out.write("* SchulScheduler: " + variables.size() + " Variablen, " + matrix.getNumRows() + " Bedingungen\n");
+        if (objectiveOffset != 0.0) {
+            out.write("* Konstanter Anteil der Zielfunktion: " + formatNumber(objectiveOffset) + "\n");
+        }
+        out.write("NAME SchulScheduler\nOBJSENSE\n    MAX\nROWS\n N obj\n");
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            out.write(" " + getSense(row) + " c" + (row + 1) + "\n");
+        }
+
+        // Das MPS-Format ist spaltenweise, daher wird die Matrix vorher transponiert (nur die Indizes).
+        final int numColumns = variables.stream().mapToInt(BinaryVariable::getIndex).max().orElse(-1) + 1;
+        final int[] columnStarts = new int[numColumns + 1];
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                columnStarts[matrix.getColumn(entry) + 1]++;
+            }
+        }
+        for (int column = 0; column < numColumns; column++) {
+            columnStarts[column + 1] += columnStarts[column];
+        }
+        final int[] entriesByColumn = new int[columnStarts[numColumns]];
+        final int[] fill = columnStarts.clone();
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                entriesByColumn[fill[matrix.getColumn(entry)]++] = entry;
+            }
+        }
+        // Pro Eintrag seine Zeile, damit der Name beim spaltenweisen Schreiben bekannt ist.
+        final int[] rowOfEntry = new int[matrix.getNumEntries()];
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                rowOfEntry[entry] = row;
+            }
+        }
+
+        out.write("COLUMNS\n");
+        for (BinaryVariable variable : variables) {
+            final String name = getExportName(variable);
+            final int column = variable.getIndex();
+            final boolean hasEntries = columnStarts[column] < columnStarts[column + 1];
+            if (variable.getObjectiveFactor() != 0.0 || !hasEntries) {
+                out.write("    " + name + " obj " + formatNumber(variable.getObjectiveFactor()) + "\n");
+            }
+            for (int i = columnStarts[column]; i < columnStarts[column + 1]; i++) {
+                final int entry = entriesByColumn[i];
+                out.write("    " + name + " c" + (rowOfEntry[entry] + 1) + " "
+                        + formatNumber(matrix.getCoefficient(entry)) + "\n");
+            }
+        }
+        out.write("RHS\n");
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            final double rhs = getSense(row) == 'L' ? matrix.getUpperBound(row) : matrix.getLowerBound(row);
+            if (rhs != 0.0) {
+                out.write("    RHS c" + (row + 1) + " " + formatNumber(rhs) + "\n");
+            }
+        }
+        out.write("BOUNDS\n");
+        for (BinaryVariable variable : variables) {
+            out.write(" BV BND " + getExportName(variable) + "\n");
+        }
+        out.write("ENDATA\n");
+    }
+
+    private void writeOpb(@Nonnull Writer out) throws IOException {
+        // Im Kopf steht der höchste Variablenname, weil Solver danach ihre Variablen anlegen.
+        final int maxVariable = variables.stream().mapToInt(BinaryVariable::getIndex).max().orElse(-1) + 1;
+        int numConstraints = 0;
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (isRowWritten(row)) numConstraints++;
+        }
+        out.write("* #variable= " + maxVariable + " #constraint= " + numConstraints + "\n");
+        if (objectiveOffset != 0.0) {
+            out.write("* Konstanter Anteil der Zielfunktion: " + formatNumber(objectiveOffset) + "\n");
+        }
+        // OPB kennt nur Minimierung, daher wird die Zielfunktion negiert.
+        if (variables.stream().anyMatch(variable -> variable.getObjectiveFactor() != 0.0)) {
+            out.write("min:");
+            for (BinaryVariable variable : variables) {
+                if (variable.getObjectiveFactor() == 0.0) continue;
+                writeOpbTerm(out, -variable.getObjectiveFactor(), variable.getIndex());
+            }
+            out.write(" ;\n");
+        }
+        // OPB kennt nur >= und =, daher werden <=-Bedingungen negiert.
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (!isRowWritten(row)) continue;
+            final char sense = getSense(row);
+            final double sign = sense == 'L' ? -1.0 : 1.0;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                writeOpbTerm(out, sign * matrix.getCoefficient(entry), matrix.getColumn(entry));
+            }
+            final double rhs = sense == 'L' ? -matrix.getUpperBound(row) : matrix.getLowerBound(row);
+            out.write((sense == 'E' ? " = " : " >= ") + formatInteger(rhs) + " ;\n");
+        }
+    }
+
+    private static void writeOpbTerm(@Nonnull Writer out, double coefficient, int column) throws IOException {
+        out.write(coefficient < 0 ? " -" : " +");
+        out.write(formatInteger(Math.abs(coefficient)));
+        out.write(" x");
+        out.write(Integer.toString(column + 1));
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Ob die Zeile geschrieben wird. Leere Zeilen werden weggelassen, weil nicht alle Formate sie erlauben.
+     * @throws IllegalArgumentException Wenn die Zeile leer und damit unerfüllbar ist.
+     */
+    private boolean isRowWritten(int row) {
+        if (matrix.getRowStart(row) < matrix.getRowEnd(row)) {
+            return true;
+        }
+        if (matrix.getLowerBound(row) > 0 || matrix.getUpperBound(row) < 0) {
+            throw new IllegalArgumentException("Das Modell ist unlösbar: " + matrix.getName(row));
+        }
+        return false;
+    }
+
+    /**
+     * @param row Der Index einer Zeile.
+     * @return Die Art der Zeile im MPS-Format: E für Gleichungen, L für <= und G für >=.
+     */
+    private char getSense(int row) {
+        final double lowerBound = matrix.getLowerBound(row);
+        final double upperBound = matrix.getUpperBound(row);
+        if (lowerBound == upperBound) {
+            return 'E';
+        } else if (lowerBound == Double.NEGATIVE_INFINITY) {
+            return 'L';
+        } else if (upperBound == Double.POSITIVE_INFINITY) {
+            return 'G';
+        } else {
+            throw new AssertionError("Zweiseitige Bedingungen werden nicht unterstützt: " + matrix.getName(row));
+        }
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static String formatInteger(double value) {
+        if (value != Math.rint(value)) {
+            throw new IllegalArgumentException("OPB erlaubt nur ganzzahlige Koeffizienten, nicht " + value);
+        }
+        return Long.toString((long) value);
+    }
+
+}
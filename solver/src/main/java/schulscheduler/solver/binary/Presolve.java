@@ -0,0 +1,367 @@
+package schulscheduler.solver.binary;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Vereinfacht ein {@link BinaryLP}, bevor es an einen Solver übergeben wird: Variablen, deren Wert durch die
+ * Bedingungen bereits feststeht (z.B. durch gesperrte Stunden, fixe Stunden oder nicht verfügbare Lehrer), werden
+ * eingesetzt und die dadurch trivial gewordenen Bedingungen entfernt. Die Festlegungen werden dabei weiter propagiert
+ * (z.B. bei Doppelstunden oder wenn eine Summe ihre Schranke bereits erreicht hat). Offensichtlich unerfüllbare
+ * Bedingungen werden dabei erkannt, siehe {@link #isInfeasible()}.
+ * <p>
+ * Das reduzierte Modell besteht aus {@link #getVariables()} und {@link #getMatrix()}. Die Spalten der Matrix sind
+ * weiterhin die Indizes der Variablen in {@link BinaryLP#getVariables()}. Nachdem der Solver die Lösung für die
+ * verbliebenen Variablen gesetzt hat, setzt {@link #postsolve()} die Lösung für die festgelegten Variablen.
+ */
+public class Presolve {
+
+    private static final byte FREE = -1;
+
+    private final BinaryLP binaryLP;
+
+    /**
+     * Pro Variable (Index in {@link BinaryLP#getVariables()}) der festgelegte Wert 0 oder 1, oder {@link #FREE}.
+     */
+    private final byte[] values;
+
+    /**
+     * Die Transponierte der ursprünglichen Matrix, d.h. pro Variable die Zeilen, in denen sie vorkommt. Die Zeilen der
+     * Variable `column` stehen in {@link #columnRows} von `columnStarts[column]` bis `columnStarts[column + 1]`.
+     */
+    private final int[] columnStarts;
+    private final int[] columnRows;
+
+    /**
+     * Die Zeilen, die erneut ausgewertet werden müssen, weil sich eine ihrer Variablen geändert hat.
+     */
+    private final int[] queue;
+    private final boolean[] queued;
+    private int queueHead = 0;
+    private int queueSize = 0;
+
+    /**
+     * Die erste als unerfüllbar erkannte Zeile der ursprünglichen Matrix, oder -1.
+     */
+    private int infeasibleRow = -1;
+
+    private final ConstraintMatrix reducedMatrix;
+    private final List<BinaryVariable> reducedVariables = new ArrayList<>();
+
+    /**
+     * Führt die Vereinfachung durch.
+     *
+     * @param binaryLP Das zu vereinfachende Modell. Es wird nicht verändert.
+     */
+    public Presolve(@Nonnull BinaryLP binaryLP) {
+        this.binaryLP = binaryLP;
+        final ConstraintMatrix matrix = binaryLP.getMatrix();
+        final int numVariables = binaryLP.getVariables().size();
+        final int numRows = matrix.getNumRows();
+
+        values = new byte[numVariables];
+        Arrays.fill(values, FREE);
+
+        columnStarts = new int[numVariables + 1];
+        for (int entry = 0; entry < matrix.getNumEntries(); entry++) {
+            columnStarts[matrix.getColumn(entry) + 1]++;
+        }
+        for (int column = 0; column < numVariables; column++) {
+            columnStarts[column + 1] += columnStarts[column];
+        }
+        columnRows = new int[matrix.getNumEntries()];
+        final int[] fill = Arrays.copyOf(columnStarts, numVariables);
+        for (int row = 0; row < numRows; row++) {
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                columnRows[fill[matrix.getColumn(entry)]++] = row;
+            }
+        }
+
+        queue = new int[numRows];
+        queued = new boolean[numRows];
+        for (int row = 0; row < numRows; row++) {
+            enqueue(row);
+        }
+        propagate(matrix);
+
+        reducedMatrix = new ConstraintMatrix(matrix.getElements());
+        if (infeasibleRow < 0) {
+            for (int row = 0; row < numRows; row++) {
+                writeReducedRow(matrix, row);
+            }
+            for (BinaryVariable variable : binaryLP.getVariables()) {
+                if (values[variable.getIndex()] == FREE) {
+                    reducedVariables.add(variable);
+                }
+            }
+        }
+    }
+
+    private void enqueue(int row) {
+        if (queued[row]) return;
+        queued[row] = true;
+        queue[(queueHead + queueSize) % queue.length] = row;
+        queueSize++;
+    }
+
+    private int dequeue() {
+        final int row = queue[queueHead];
+        queueHead = (queueHead + 1) % queue.length;
+        queueSize--;
+        queued[row] = false;
+        return row;
+    }
+
+    /**
+     * Wertet die Zeilen in der Warteschlange aus, bis sich keine Variable mehr festlegen lässt oder eine Zeile
+     * unerfüllbar ist.
+     */
+    private void propagate(@Nonnull ConstraintMatrix matrix) {
+        while (queueSize > 0 && infeasibleRow < 0) {
+            final int row = dequeue();
+            if (!propagateRow(matrix, row)) {
+                infeasibleRow = row;
+            }
+        }
+    }
+
+    /**
+     * Legt die Variablen fest, deren Wert sich aus der Zeile allein ergibt.
+     *
+     * @return False, wenn die Zeile mit den bisherigen Festlegungen unerfüllbar ist.
+     */
+    private boolean propagateRow(@Nonnull ConstraintMatrix matrix, int row) {
+        final int start = matrix.getRowStart(row);
+        final int end = matrix.getRowEnd(row);
+        switch (matrix.getType(row)) {
+            case FORCE_VALUE:
+                return fix(matrix.getColumn(start), matrix.getRhs(row));
+            case VAR_EQ: {
+                final int column1 = matrix.getColumn(start);
+                final int column2 = matrix.getColumn(start + 1);
+                if (values[column1] != FREE) return fix(column2, values[column1]);
+                if (values[column2] != FREE) return fix(column1, values[column2]);
+                return true;
+            }
+            case VAR_IMPLIES_OR: {
+                final int lhsColumn = matrix.getColumn(start);
+                if (values[lhsColumn] == 0) return true;
+                int freeColumn = -1;
+                int numFree = 0;
+                for (int entry = start + 1; entry < end; entry++) {
+                    final int column = matrix.getColumn(entry);
+                    if (values[column] == 1) return true;
+                    if (values[column] == FREE) {
+                        freeColumn = column;
+                        numFree++;
+                    }
+                }
+                if (numFree == 0) return fix(lhsColumn, 0);
+                if (numFree == 1 && values[lhsColumn] == 1) return fix(freeColumn, 1);
+                return true;
+            }
+            case SUM_LEQ:
+            case SUM_EQ:
+            case SUM_GEQ: {
+                final int numFree = countFree(matrix, row);
+                final int rhs = getReducedRhs(matrix, row);
+                final EnumConstraintType type = matrix.getType(row);
+                if (type != EnumConstraintType.SUM_GEQ && rhs < 0) return false;
+                if (type != EnumConstraintType.SUM_LEQ && rhs > numFree) return false;
+                if (type != EnumConstraintType.SUM_GEQ && rhs == 0) return fixFree(matrix, row, 0);
+                if (type != EnumConstraintType.SUM_LEQ && rhs == numFree) return fixFree(matrix, row, 1);
+                return true;
+            }
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * @return Die Anzahl der noch nicht festgelegten Variablen in der Zeile.
+     */
+    private int countFree(@Nonnull ConstraintMatrix matrix, int row) {
+        int numFree = 0;
+        for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+            if (values[matrix.getColumn(entry)] == FREE) {
+                numFree++;
+            }
+        }
+        return numFree;
+    }
+
+    /**
+     * @return Die rechte Seite einer Summen-Zeile, nachdem die auf 1 festgelegten Variablen abgezogen wurden.
+     */
+    private int getReducedRhs(@Nonnull ConstraintMatrix matrix, int row) {
+        int rhs = matrix.getRhs(row);
+        for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+            if (values[matrix.getColumn(entry)] == 1) {
+                rhs--;
+            }
+        }
+        return rhs;
+    }
+
+    /**
+     * Legt alle noch freien Variablen der Zeile auf den gegebenen Wert fest.
+     *
+     * @return Immer true, zur einfacheren Verwendung in {@link #propagateRow(ConstraintMatrix, int)}.
+     */
+    private boolean fixFree(@Nonnull ConstraintMatrix matrix, int row, int value) {
+        for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+            if (values[matrix.getColumn(entry)] == FREE) {
+                fix(matrix.getColumn(entry), value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Legt eine Variable fest und merkt alle Zeilen, in denen sie vorkommt, zur erneuten Auswertung vor.
+     *
+     * @return False, wenn die Variable bereits auf den anderen Wert festgelegt ist.
+     */
+    private boolean fix(int column, int value) {
+        if (values[column] != FREE) return values[column] == value;
+        values[column] = (byte) value;
+        for (int i = columnStarts[column]; i < columnStarts[column + 1]; i++) {
+            enqueue(columnRows[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Übernimmt eine Zeile der ursprünglichen Matrix in die reduzierte Matrix, sofern sie nach dem Einsetzen der
+     * festgelegten Variablen nicht trivial erfüllt ist.
+     */
+    private void writeReducedRow(@Nonnull ConstraintMatrix matrix, int row) {
+        final int start = matrix.getRowStart(row);
+        final int end = matrix.getRowEnd(row);
+        final int numFree = countFree(matrix, row);
+        if (numFree == 0) return; // Die Propagierung hat sichergestellt, dass die Zeile erfüllt ist.
+        switch (matrix.getType(row)) {
+            case FORCE_VALUE:
+            case VAR_EQ:
+                // Wenn eine der Variablen festgelegt ist, sind es alle, siehe oben.
+                break;
+            case VAR_IMPLIES_OR: {
+                final int lhsColumn = matrix.getColumn(start);
+                if (values[lhsColumn] == 0) return;
+                for (int entry = start + 1; entry < end; entry++) {
+                    if (values[matrix.getColumn(entry)] == 1) return;
+                }
+                if (values[lhsColumn] == 1) {
+                    // 1 -> OR(rhs)  <==>  SUM(rhs) >= 1
+                    reducedMatrix.addRow(EnumConstraintType.SUM_GEQ, matrix.getKey(row), 1);
+                    copyFreeEntries(matrix, row);
+                    return;
+                }
+                break;
+            }
+            case SUM_LEQ:
+                if (getReducedRhs(matrix, row) >= numFree) return;
+                break;
+            case SUM_EQ:
+                break;
+            case SUM_GEQ:
+                if (getReducedRhs(matrix, row) <= 0) return;
+                break;
+            default:
+                throw new AssertionError();
+        }
+        final EnumConstraintType type = matrix.getType(row);
+        final boolean isSum = type == EnumConstraintType.SUM_LEQ || type == EnumConstraintType.SUM_EQ
+                || type == EnumConstraintType.SUM_GEQ;
+        reducedMatrix.addRow(type, matrix.getKey(row), isSum ? getReducedRhs(matrix, row) : matrix.getRhs(row));
+        copyFreeEntries(matrix, row);
+    }
+
+    private void copyFreeEntries(@Nonnull ConstraintMatrix matrix, int row) {
+        for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+            if (values[matrix.getColumn(entry)] == FREE) {
+                reducedMatrix.addEntry(matrix.getColumn(entry), matrix.getCoefficient(entry));
+            }
+        }
+    }
+
+    /**
+     * @return True, wenn eine Bedingung schon ohne Solver als unerfüllbar erkannt wurde. Dann ist das reduzierte Modell
+     * leer.
+     */
+    public boolean isInfeasible() {
+        return infeasibleRow >= 0;
+    }
+
+    /**
+     * @return Der Name der ersten als unerfüllbar erkannten Bedingung, oder null.
+     */
+    @Nullable
+    public String getInfeasibleConstraintName() {
+        return infeasibleRow < 0 ? null : binaryLP.getMatrix().getName(infeasibleRow);
+    }
+
+    /**
+     * @return Die Variablen, deren Wert noch nicht feststeht.
+     */
+    public List<BinaryVariable> getVariables() {
+        return Collections.unmodifiableList(reducedVariables);
+    }
+
+    /**
+     * @return Die verbliebenen Bedingungen. Die Spalten sind die Indizes der Variablen in
+     * {@link BinaryLP#getVariables()} und beziehen sich nur auf {@link #getVariables()}.
+     */
+    public ConstraintMatrix getMatrix() {
+        return reducedMatrix;
+    }
+
+    /**
+     * @return Die verbliebenen Bedingungen als Objekte, siehe {@link BinaryLP#getConstraints()}.
+     */
+    public List<Constraint> getConstraints() {
+        final List<BinaryVariable> allVariables = binaryLP.getVariables();
+        return new AbstractList<>() {
+            @Override
+            public Constraint get(int index) {
+                return reducedMatrix.toConstraint(index, allVariables);
+            }
+
+            @Override
+            public int size() {
+                return reducedMatrix.getNumRows();
+            }
+        };
+    }
+
+    /**
+     * @return Der Beitrag der festgelegten Variablen zur Zielfunktion.
+     */
+    public double getObjectiveOffset() {
+        double offset = 0.0;
+        for (BinaryVariable variable : binaryLP.getVariables()) {
+            if (values[variable.getIndex()] == 1) {
+                offset += variable.getObjectiveFactor();
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Setzt die Lösung für alle Variablen, deren Wert durch die Vereinfachung festgelegt wurde. Die Lösung für die
+     * übrigen Variablen (siehe {@link #getVariables()}) muss der Solver setzen.
+     */
+    public void postsolve() {
+        if (isInfeasible()) throw new IllegalStateException("Problem is infeasible");
+        for (BinaryVariable variable : binaryLP.getVariables()) {
+            if (values[variable.getIndex()] != FREE) {
+                variable.setSolution(values[variable.getIndex()] == 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package schulscheduler.solver.binary;
+
+import schulscheduler.solver.sat.Cdcl;
+import schulscheduler.solver.sat.Totalizer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Löst ein {@link BinaryLP} mit dem SAT-Solver {@link Cdcl}. Jede Spalte der {@link ConstraintMatrix} wird zu einer
+ * SAT-Variable mit derselben Nummer, und jede Zeile wird in Klauseln übersetzt: Die Summen-Bedingungen als
+ * Kardinalitätsbedingungen (siehe {@link Totalizer}), die übrigen Bedingungen direkt.
+ * <p>
+ * Zuerst wird nur nach einer Belegung gesucht, die alle harten Bedingungen erfüllt. Danach wird die Zielfunktion
+ * schrittweise verbessert, indem ihre Schranke jeweils knapp unter den Wert der letzten Lösung gesetzt und erneut
+ * gesucht wird, bis das keine Lösung mehr ergibt (dann ist die letzte Lösung optimal) oder die Zeit abgelaufen ist.
+ * Dazu wird die zu maximierende Zielfunktion als zu minimierende Strafe SUM(weight_i * literal_i) mit positiven
+ * Gewichten umgeschrieben: Eine Variable mit negativem Faktor kostet, wenn sie wahr ist, eine mit positivem Faktor, wenn
+ * sie falsch ist. Die Faktoren werden dabei auf ganze Zahlen gerundet.
+ * <p>
+ * Laufen mehrere Suchen parallel (siehe {@link #setIncumbent(Incumbent)}), so wird regelmäßig geprüft, ob eine andere
+ * eine bessere Lösung gefunden hat. Deren Wert wird dann als Schranke übernommen und ihre Belegung als Startpunkt für
+ * die nächsten Entscheidungen.
+ */
+public class SatSearch {
+
+    /**
+     * So lange wird höchstens am Stück gesucht, bevor wieder nach Lösungen anderer Suchen geschaut wird.
+     */
+    private static final long SLICE_NANOS = 500_000_000;
+
+    private final BinaryLP binaryLP;
+    private final Cdcl cdcl = new Cdcl();
+    private final int numColumns;
+
+    /**
+     * Die Literale und Gewichte der Strafe, siehe oben.
+     */
+    private final int[] objectiveLiterals;
+    private final long[] objectiveWeights;
+
+    private boolean[] bestValues;
+    private long bestPenalty;
+
+    /**
+     * Die aktuelle Schranke für die Strafe, oder {@link Long#MAX_VALUE}, solange keine gesetzt ist.
+     */
+    private long bound = Long.MAX_VALUE;
+
+    /**
+     * Der Wert der Zielfunktion der zuletzt aus {@link #incumbent} übernommenen Lösung.
+     */
+    private double adoptedObjectiveValue = Double.NEGATIVE_INFINITY;
+
+    @Nullable
+    private Incumbent incumbent;
+    private boolean infeasible;
+    private boolean optimal;
+    private int numSolutions;
+
+    /**
+     * Übersetzt das Modell in Klauseln.
+     *
+     * @param binaryLP Das zu lösende Modell. Die Lösung wird mit {@link BinaryVariable#setSolution(boolean)} in dessen
+     * Variablen geschrieben, ansonsten wird es nicht verändert.
+     */
+    public SatSearch(@Nonnull BinaryLP binaryLP) {
+        this.binaryLP = binaryLP;
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        this.numColumns = variables.size();
+        for (int column = 0; column < numColumns; column++) {
+            cdcl.newVariable();
+        }
+        final ConstraintMatrix matrix = binaryLP.getMatrix();
+        for (int row = 0; row < matrix.getNumRows() && cdcl.isOk(); row++) {
+            addRow(matrix, row);
+        }
+
+        final List<Integer> literals = new ArrayList<>();
+        final List<Long> weights = new ArrayList<>();
+        for (int column = 0; column < numColumns; column++) {
+            final long factor = Math.round(variables.get(column).getObjectiveFactor());
+            if (factor != 0) {
+                literals.add(Cdcl.literal(column, factor < 0));
+                weights.add(Math.abs(factor));
+            }
+        }
+        objectiveLiterals = literals.stream().mapToInt(Integer::intValue).toArray();
+        objectiveWeights = weights.stream().mapToLong(Long::longValue).toArray();
+        cdcl.setObjective(objectiveLiterals, objectiveWeights);
+        infeasible = !cdcl.isOk();
+    }
+
+    private void addRow(@Nonnull ConstraintMatrix matrix, int row) {
+        final int start = matrix.getRowStart(row);
+        final int[] literals = new int[matrix.getRowEnd(row) - start];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = Cdcl.literal(matrix.getColumn(start + i), true);
+        }
+        final int rhs = matrix.getRhs(row);
+        switch (matrix.getType(row)) {
+            case SUM_LEQ:
+                Totalizer.atMost(cdcl, literals, rhs);
+                break;
+            case SUM_EQ:
+                Totalizer.exactly(cdcl, literals, rhs);
+                break;
+            case SUM_GEQ:
+                Totalizer.atLeast(cdcl, literals, rhs);
+                break;
+            case VAR_EQ:
+                cdcl.addClause(Cdcl.not(literals[0]), literals[1]);
+                cdcl.addClause(literals[0], Cdcl.not(literals[1]));
+                break;
+            case VAR_IMPLIES_OR:
+                // Der erste Eintrag ist die Voraussetzung.
+                literals[0] = Cdcl.not(literals[0]);
+                cdcl.addClause(literals);
+                break;
+            case FORCE_VALUE:
+                cdcl.addClause(rhs == 1 ? literals[0] : Cdcl.not(literals[0]));
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * @param incumbent Die gemeinsame beste Belegung mehrerer paralleler Suchen. Jede gefundene Lösung wird dorthin
+     * gemeldet, bessere Lösungen von dort werden übernommen, und ein Beweis der Optimalität oder Unzulässigkeit wird
+     * dort vermerkt.
+     */
+    public void setIncumbent(@Nullable Incumbent incumbent) {
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * Führt die Suche durch und schreibt die beste gefundene Belegung in die Variablen des Modells.
+     *
+     * @param timeLimitMillis Die maximale Dauer der Suche in Millisekunden.
+     * @return True, wenn eine Belegung gefunden wurde, die alle harten Bedingungen erfüllt.
+     * @throws InterruptedException Wenn der Thread während der Suche unterbrochen wurde.
+     */
+    public boolean solve(long timeLimitMillis) throws InterruptedException {
+        if (!search(timeLimitMillis)) return false;
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        for (int column = 0; column < numColumns; column++) {
+            variables.get(column).setSolution(bestValues[column]);
+        }
+        return true;
+    }
+
+    /**
+     * Führt die Suche durch, ohne das Modell zu verändern. Daher können mehrere Suchen parallel auf demselben Modell
+     * laufen und ihre Lösungen über {@link #setIncumbent(Incumbent)} austauschen.
+     *
+     * @param timeLimitMillis Die maximale Dauer der Suche in Millisekunden.
+     * @return True, wenn diese Suche selbst eine Belegung gefunden hat, die alle harten Bedingungen erfüllt.
+     * @throws InterruptedException Wenn der Thread während der Suche unterbrochen wurde.
+     */
+    public boolean search(long timeLimitMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeLimitMillis * 1_000_000;
+        while (!infeasible && !optimal) {
+            if (incumbent != null) {
+                if (incumbent.isFinished()) break;
+                adoptIncumbent();
+                if (optimal) break;
+            }
+            final long sliceEnd = incumbent == null ? deadline : Math.min(deadline, System.nanoTime() + SLICE_NANOS);
+            final Boolean result = cdcl.solve(sliceEnd);
+            if (result == null) {
+                if (System.nanoTime() >= deadline) break;
+            } else if (result) {
+                saveModel();
+                tightenBound(bestPenalty - 1);
+            } else if (bound == Long.MAX_VALUE) {
+                infeasible = true;
+            } else {
+                // Unter der Schranke gibt es nichts mehr, also ist die Lösung, aus der sie stammt, optimal.
+                optimal = true;
+            }
+        }
+        if (incumbent != null) {
+            if (infeasible) incumbent.setInfeasible();
+            if (optimal) incumbent.setOptimal();
+        }
+        return bestValues != null;
+    }
+
+    /**
+     * Übernimmt die Lösung aus {@link #incumbent}, wenn sie besser ist als alles, was diese Suche kennt.
+     */
+    private void adoptIncumbent() {
+        final double objectiveValue = incumbent.getObjectiveValue();
+        if (objectiveValue <= adoptedObjectiveValue || objectiveValue <= getObjectiveValue()) return;
+        final boolean[] values = incumbent.getValues();
+        if (values == null) return;
+        adoptedObjectiveValue = objectiveValue;
+        for (int column = 0; column < numColumns; column++) {
+            cdcl.setPhase(column, values[column]);
+        }
+        tightenBound(getPenalty(values) - 1);
+    }
+
+    /**
+     * Setzt die Schranke der Strafe, wenn sie schärfer als die bisherige ist. Da es immer eine Lösung mit der Strafe
+     * bound + 1 gibt, ist diese optimal, wenn die Klauseln dadurch unerfüllbar werden.
+     */
+    private void tightenBound(long newBound) {
+        if (newBound >= bound) return;
+        bound = newBound;
+        if (newBound < 0 || !cdcl.setObjectiveBound(newBound)) {
+            optimal = true;
+        }
+    }
+
+    private void saveModel() {
+        bestValues = new boolean[numColumns];
+        for (int column = 0; column < numColumns; column++) {
+            bestValues[column] = cdcl.getModelValue(column);
+        }
+        bestPenalty = getPenalty(bestValues);
+        numSolutions++;
+        if (incumbent != null) {
+            incumbent.offer(bestValues, getObjectiveValue());
+        }
+    }
+
+    private long getPenalty(@Nonnull boolean[] values) {
+        long penalty = 0;
+        for (int i = 0; i < objectiveLiterals.length; i++) {
+            final int literal = objectiveLiterals[i];
+            if (values[literal >> 1] == (literal == Cdcl.literal(literal >> 1, true))) {
+                penalty += objectiveWeights[i];
+            }
+        }
+        return penalty;
+    }
+
+    /**
+     * @return True, wenn bewiesen wurde, dass es keine Belegung gibt, die alle harten Bedingungen erfüllt.
+     */
+    public boolean isInfeasible() {
+        return infeasible;
+    }
+
+    /**
+     * @return True, wenn bewiesen wurde, dass die beste gefundene Belegung optimal ist. Wurden Lösungen aus einem
+     * {@link Incumbent} übernommen, kann das auch eine von dort sein.
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return Der Wert der Zielfunktion der besten selbst gefundenen Belegung, oder -∞, wenn keine gefunden wurde.
+     */
+    public double getObjectiveValue() {
+        if (bestValues == null) return Double.NEGATIVE_INFINITY;
+        final List<BinaryVariable> variables = binaryLP.getVariables();
+        double objective = 0;
+        for (int column = 0; column < numColumns; column++) {
+            if (bestValues[column]) objective += variables.get(column).getObjectiveFactor();
+        }
+        return objective;
+    }
+
+    /**
+     * @return Die Anzahl der gefundenen, jeweils besseren Belegungen.
+     */
+    public int getNumSolutions() {
+        return numSolutions;
+    }
+
+    /**
+     * @return Die Anzahl der Variablen und Klauseln der Übersetzung.
+     */
+    public String getSizeDescription() {
+        return cdcl.getNumVariables() + " SAT-Variablen, " + cdcl.getNumClauses() + " Klauseln";
+    }
+
+    /**
+     * @return Die Anzahl der Konflikte, die der SAT-Solver insgesamt analysiert hat.
+     */
+    public long getNumConflicts() {
+        return cdcl.getNumConflicts();
+    }
+
+}
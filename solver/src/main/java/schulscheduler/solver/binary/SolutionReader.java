@@ -0,0 +1,105 @@
+package schulscheduler.solver.binary;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Liest die Lösung eines externen Solvers für ein Modell, das mit dem {@link ModelWriter} exportiert wurde, und setzt
+ * sie mit {@link BinaryVariable#setSolution(boolean)}. Unterstützt werden die gängigen Lösungsdateien, in denen pro
+ * Zeile ein Variablenname gefolgt von seinem Wert steht (z.B. von SCIP, Gurobi, HiGHS und, mit vorangestellter
+ * Nummer, CBC), sowie die `v`-Zeilen der Pseudo-Boolean Competition (z.B. `v x1 -x2 x3`).
+ * <p>
+ * Variablen, die in der Datei nicht vorkommen, werden auf 0 gesetzt, weil viele Solver nur die Variablen mit Wert
+ * ungleich 0 ausgeben.
+ */
+public class SolutionReader {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern VARIABLE_NAME = Pattern.compile("x[1-9][0-9]*");
+
+    private final Map<String, BinaryVariable> variablesByName = new HashMap<>();
+
+    /**
+     * @param variables Die Variablen, die exportiert wurden, z.B. {@link BinaryLP#getVariables()} oder
+     * {@link Presolve#getVariables()}.
+     */
+    public SolutionReader(@Nonnull List<BinaryVariable> variables) {
+        for (BinaryVariable variable : variables) {
+            variablesByName.put(ModelWriter.getExportName(variable), variable);
+        }
+    }
+
+    /**
+     * Liest eine Lösungsdatei, siehe oben.
+     *
+     * @param file Die Lösungsdatei.
+     * @return Die Anzahl der Variablen, deren Wert in der Datei angegeben war.
+     * @throws IOException Wenn die Datei nicht gelesen werden kann.
+     */
+    public int read(@Nonnull Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Liest eine Lösung, siehe oben. Der Eingabestrom wird nicht geschlossen.
+     *
+     * @param in Der Eingabestrom.
+     * @return Die Anzahl der Variablen, deren Wert in der Eingabe angegeben war.
+     * @throws IOException Wenn der Eingabestrom nicht gelesen werden kann.
+     * @throws IllegalArgumentException Wenn die Eingabe einen Variablennamen enthält, der nicht exportiert wurde.
+     */
+    public int read(@Nonnull BufferedReader in) throws IOException {
+        variablesByName.values().forEach(variable -> variable.setSolution(false));
+        int count = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            final String[] tokens = WHITESPACE.split(line.trim());
+            if (tokens[0].equals("v")) {
+                // Pseudo-Boolean Competition: Literale x5 (wahr) und -x5 (falsch).
+                for (int i = 1; i < tokens.length; i++) {
+                    final boolean negated = tokens[i].startsWith("-");
+                    final String name = negated ? tokens[i].substring(1) : tokens[i];
+                    if (VARIABLE_NAME.matcher(name).matches()) {
+                        getVariable(name).setSolution(!negated);
+                        count++;
+                    }
+                }
+                continue;
+            }
+            // Sonst der erste Token, der wie ein Variablenname aussieht, gefolgt von seinem Wert.
+            for (int i = 0; i + 1 < tokens.length; i++) {
+                if (VARIABLE_NAME.matcher(tokens[i]).matches()) {
+                    final double value;
+                    try {
+                        value = Double.parseDouble(tokens[i + 1]);
+                    } catch (NumberFormatException e) {
+                        break; // Keine Wertzuweisung, z.B. ein Kommentar.
+                    }
+                    getVariable(tokens[i]).setSolution(value > 0.5);
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private BinaryVariable getVariable(@Nonnull String name) {
+        final BinaryVariable variable = variablesByName.get(name);
+        if (variable == null) {
+            throw new IllegalArgumentException("Unbekannte Variable in der Lösung: " + name);
+        }
+        return variable;
+    }
+
+}
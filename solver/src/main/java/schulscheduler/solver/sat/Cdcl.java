@@ -0,0 +1,742 @@
+package schulscheduler.solver.sat;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ein SAT-Solver nach dem CDCL-Verfahren (Conflict-Driven Clause Learning) mit zwei beobachteten Literalen pro
+ * Klausel, VSIDS-Variablenwahl, Phasen-Speicherung, Neustarts nach der Luby-Folge und regelmäßigem Aufräumen der
+ * gelernten Klauseln.
+ * <p>
+ * Zusätzlich zu den Klauseln kann eine gewichtete Zielfunktion SUM(weight_i * literal_i) <= bound angegeben werden,
+ * die direkt propagiert wird (siehe {@link #setObjective(int[], long[])}). Ihre Schranke kann zwischen zwei Aufrufen von
+ * {@link #solve(long)} verschärft werden, sodass eine Lösung schrittweise verbessert werden kann, ohne die gelernten
+ * Klauseln zu verlieren.
+ * <p>
+ * Variablen sind fortlaufend ab 0 nummeriert. Ein Literal ist `2 * variable` (positiv) oder `2 * variable + 1`
+ * (negiert), siehe {@link #literal(int, boolean)} und {@link #not(int)}.
+ */
+public class Cdcl {
+
+    private static final byte UNDEFINED = -1;
+    private static final byte FALSE = 0;
+    private static final byte TRUE = 1;
+
+    private static final int RESTART_BASE = 100;
+    private static final double VAR_DECAY = 0.95;
+    private static final double CLAUSE_DECAY = 0.999;
+
+    /**
+     * Eine Klausel. Die ersten beiden Literale sind die beobachteten.
+     */
+    private static final class Clause {
+        final int[] literals;
+        final boolean learnt;
+        double activity;
+        boolean deleted;
+
+        Clause(int[] literals, boolean learnt) {
+            this.literals = literals;
+            this.learnt = learnt;
+        }
+    }
+
+    /**
+     * Platzhalter als Begründung für Literale, die von der Zielfunktion propagiert wurden. Die eigentliche Begründung
+     * wird erst bei Bedarf erzeugt, siehe {@link #explain(Clause, int)}.
+     */
+    private static final Clause OBJECTIVE_REASON = new Clause(new int[0], false);
+
+    private int numVariables;
+    private byte[] assigns = new byte[0];
+    private int[] levels = new int[0];
+    private Clause[] reasons = new Clause[0];
+    private int[] trailPositions = new int[0];
+    private boolean[] polarity = new boolean[0];
+    private boolean[] seen = new boolean[0];
+    private double[] activity = new double[0];
+    private double varIncrement = 1;
+    private double clauseIncrement = 1;
+    private final VarHeap heap = new VarHeap();
+
+    private Clause[][] watches = new Clause[0][];
+    private int[] numWatches = new int[0];
+
+    private int[] trail = new int[0];
+    private int trailSize;
+    private int propagationHead;
+    private int[] trailLimits = new int[0];
+    private int numLevels;
+
+    private final List<Clause> learnts = new ArrayList<>();
+    private int numClauses;
+    private double maxLearnts;
+
+    /**
+     * False, sobald die Klauseln (zusammen mit der Zielfunktion) als unerfüllbar erkannt wurden.
+     */
+    private boolean ok = true;
+
+    private long[] objectiveWeights;
+    private int[] objectiveLiterals;
+    private long objectiveBound = Long.MAX_VALUE / 2;
+    private long objectiveSlack = Long.MAX_VALUE / 2;
+
+    /**
+     * So viele der ersten {@link #objectiveLiterals} hat {@link #propagateObjective()} seit dem letzten Zurückspringen
+     * bereits belegt. Da die Schranke bis dahin nur kleiner wird, muss es bei den nachfolgenden Aufrufen nicht erneut
+     * über sie laufen.
+     */
+    private int objectivePropagated;
+
+    /**
+     * Puffer für die Erklärungen der Zielfunktion.
+     */
+    private int[] explanation;
+
+    private boolean[] model;
+    private long numConflicts;
+    private long numDecisions;
+
+    /**
+     * @param variable Eine Variable.
+     * @param positive Ob das Literal die Variable selbst (true) oder ihre Negation (false) ist.
+     * @return Das Literal.
+     */
+    public static int literal(int variable, boolean positive) {
+        return 2 * variable + (positive ? 0 : 1);
+    }
+
+    /**
+     * @return Die Negation des Literals.
+     */
+    public static int not(int literal) {
+        return literal ^ 1;
+    }
+
+    /**
+     * Legt eine neue Variable an.
+     *
+     * @return Die Nummer der Variable.
+     */
+    public int newVariable() {
+        final int variable = numVariables++;
+        if (variable == assigns.length) {
+            final int capacity = Math.max(16, 2 * variable);
+            assigns = Arrays.copyOf(assigns, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            trailPositions = Arrays.copyOf(trailPositions, capacity);
+            polarity = Arrays.copyOf(polarity, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            activity = Arrays.copyOf(activity, capacity);
+            trail = Arrays.copyOf(trail, capacity);
+            trailLimits = Arrays.copyOf(trailLimits, capacity);
+            watches = Arrays.copyOf(watches, 2 * capacity);
+            numWatches = Arrays.copyOf(numWatches, 2 * capacity);
+            if (objectiveWeights != null) {
+                objectiveWeights = Arrays.copyOf(objectiveWeights, 2 * capacity);
+            }
+        }
+        assigns[variable] = UNDEFINED;
+        watches[2 * variable] = new Clause[4];
+        watches[2 * variable + 1] = new Clause[4];
+        heap.insert(variable);
+        return variable;
+    }
+
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    public int getNumClauses() {
+        return numClauses;
+    }
+
+    public long getNumConflicts() {
+        return numConflicts;
+    }
+
+    public long getNumDecisions() {
+        return numDecisions;
+    }
+
+    /**
+     * @return False, wenn die Klauseln bereits als unerfüllbar erkannt wurden.
+     */
+    public boolean isOk() {
+        return ok;
+    }
+
+    /**
+     * Fügt eine Klausel hinzu. Darf nur außerhalb von {@link #solve(long)} aufgerufen werden.
+     *
+     * @param literals Die Literale der Klausel, von denen mindestens eines wahr sein muss.
+     * @return False, wenn die Klauseln dadurch als unerfüllbar erkannt wurden.
+     */
+    public boolean addClause(int... literals) {
+        if (!ok) return false;
+        final int[] sorted = literals.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            final int literal = sorted[i];
+            final byte value = value(literal);
+            if (value == TRUE || (i > 0 && sorted[i - 1] == not(literal))) {
+                return true; // Bereits erfüllt.
+            }
+            if (value == UNDEFINED && (size == 0 || sorted[size - 1] != literal)) {
+                sorted[size++] = literal;
+            }
+        }
+        if (size == 0) {
+            return ok = false;
+        } else if (size == 1) {
+            assign(sorted[0], null);
+            return ok = propagate() == null;
+        }
+        final Clause clause = new Clause(Arrays.copyOf(sorted, size), false);
+        attach(clause);
+        numClauses++;
+        return true;
+    }
+
+    /**
+     * Legt die Zielfunktion fest. Ihre Schranke ist anfangs unbeschränkt, siehe {@link #setObjectiveBound(long)}.
+     *
+     * @param literals Die Literale, deren Gewichte zählen, wenn sie wahr sind. Jedes Literal darf nur einmal vorkommen.
+     * @param weights Die positiven Gewichte der Literale.
+     */
+    public void setObjective(int[] literals, long[] weights) {
+        if (objectiveLiterals != null) throw new IllegalStateException("Die Zielfunktion ist bereits festgelegt");
+        objectiveWeights = new long[watches.length];
+        for (int i = 0; i < literals.length; i++) {
+            if (weights[i] <= 0) throw new IllegalArgumentException("Gewicht muss positiv sein");
+            objectiveWeights[literals[i]] = weights[i];
+            if (value(literals[i]) == TRUE) {
+                objectiveSlack -= weights[i];
+            }
+        }
+        objectiveLiterals = Arrays.stream(literals).boxed()
+                .sorted(Comparator.comparingLong(literal -> -objectiveWeights[literal]))
+                .mapToInt(Integer::intValue).toArray();
+        explanation = new int[literals.length + 1];
+    }
+
+    /**
+     * Verschärft die Schranke der Zielfunktion. Lockern ist nicht möglich, da die gelernten Klauseln auch aus der
+     * bisherigen Schranke folgen können. Darf nur außerhalb von {@link #solve(long)} aufgerufen werden, nachdem
+     * {@link #setObjective(int[], long[])} aufgerufen wurde.
+     *
+     * @param bound Die neue Schranke für SUM(weight_i * literal_i), höchstens die bisherige.
+     * @return False, wenn die Klauseln dadurch als unerfüllbar erkannt wurden.
+     * @throws IllegalArgumentException Wenn die Schranke größer als die bisherige ist.
+     */
+    public boolean setObjectiveBound(long bound) {
+        if (bound > objectiveBound) {
+            throw new IllegalArgumentException("Die Schranke kann nur verschärft werden: " + bound + " > "
+                    + objectiveBound);
+        }
+        if (!ok) return false;
+        objectiveSlack += bound - objectiveBound;
+        objectiveBound = bound;
+        objectivePropagated = 0;
+        if (objectiveSlack < 0) return ok = false;
+        propagateObjective();
+        return ok = propagate() == null;
+    }
+
+    /**
+     * Sucht eine Belegung, die alle Klauseln und die Zielfunktion erfüllt.
+     *
+     * @param deadlineNanos Der Zeitpunkt (siehe {@link System#nanoTime()}), an dem die Suche abgebrochen wird.
+     * @return True, wenn eine Belegung gefunden wurde (siehe {@link #getModelValue(int)}), false, wenn es keine gibt, und
+     * null, wenn die Zeit abgelaufen ist.
+     * @throws InterruptedException Wenn der Thread während der Suche unterbrochen wurde.
+     */
+    @Nullable
+    public Boolean solve(long deadlineNanos) throws InterruptedException {
+        if (!ok) return false;
+        if (maxLearnts == 0) {
+            maxLearnts = Math.max(numClauses / 3.0, 10_000);
+        }
+        try {
+            for (int restart = 0; ; restart++) {
+                final int result = search(RESTART_BASE * luby(restart), deadlineNanos);
+                if (result == TRUE) return true;
+                if (result == FALSE) return ok = false;
+                if (System.nanoTime() >= deadlineNanos) return null;
+                maxLearnts *= 1.05;
+            }
+        } finally {
+            cancelUntil(0);
+        }
+    }
+
+    /**
+     * Legt fest, welchen Wert die Variable bei der nächsten Entscheidung bekommt, z.B. um die Suche in der Nähe einer
+     * bekannten Belegung zu beginnen. Darf nur außerhalb von {@link #solve(long)} aufgerufen werden.
+     */
+    public void setPhase(int variable, boolean value) {
+        polarity[variable] = value;
+    }
+
+    /**
+     * @param variable Eine Variable.
+     * @return Ihr Wert in der zuletzt von {@link #solve(long)} gefundenen Belegung.
+     */
+    public boolean getModelValue(int variable) {
+        return model[variable];
+    }
+
+    /**
+     * Sucht bis zum nächsten Neustart.
+     *
+     * @return {@link #TRUE} bzw. {@link #FALSE}, wenn die Klauseln erfüllbar bzw. unerfüllbar sind, sonst
+     * {@link #UNDEFINED}.
+     */
+    private int search(int maxConflicts, long deadlineNanos) throws InterruptedException {
+        int conflicts = 0;
+        final List<Integer> learnt = new ArrayList<>();
+        while (true) {
+            final Clause conflict = propagate();
+            if (conflict != null) {
+                numConflicts++;
+                conflicts++;
+                if (numLevels == 0) return FALSE;
+                learnt.clear();
+                final int backtrackLevel = analyze(conflict, learnt);
+                cancelUntil(backtrackLevel);
+                if (learnt.size() == 1) {
+                    assign(learnt.get(0), null);
+                } else {
+                    final Clause clause = new Clause(learnt.stream().mapToInt(Integer::intValue).toArray(), true);
+                    attach(clause);
+                    learnts.add(clause);
+                    bumpClause(clause);
+                    assign(clause.literals[0], clause);
+                }
+                varIncrement /= VAR_DECAY;
+                clauseIncrement /= CLAUSE_DECAY;
+                if ((numConflicts & 0xFF) == 0) {
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    if (System.nanoTime() >= deadlineNanos) return UNDEFINED;
+                }
+            } else {
+                if (conflicts >= maxConflicts) {
+                    cancelUntil(0);
+                    return UNDEFINED;
+                }
+                if (learnts.size() - trailSize >= maxLearnts) {
+                    reduceLearnts();
+                }
+                final int next = pickBranchLiteral();
+                if (next < 0) {
+                    model = new boolean[numVariables];
+                    for (int variable = 0; variable < numVariables; variable++) {
+                        model[variable] = assigns[variable] == TRUE;
+                    }
+                    return TRUE;
+                }
+                numDecisions++;
+                trailLimits[numLevels++] = trailSize;
+                assign(next, null);
+            }
+        }
+    }
+
+    private byte value(int literal) {
+        final byte value = assigns[literal >> 1];
+        return value == UNDEFINED ? UNDEFINED : (byte) (value ^ (literal & 1));
+    }
+
+    private void assign(int literal, @Nullable Clause reason) {
+        final int variable = literal >> 1;
+        assigns[variable] = (literal & 1) == 0 ? TRUE : FALSE;
+        levels[variable] = numLevels;
+        reasons[variable] = reason;
+        trailPositions[variable] = trailSize;
+        trail[trailSize++] = literal;
+        if (objectiveWeights != null) {
+            objectiveSlack -= objectiveWeights[literal];
+        }
+    }
+
+    private void cancelUntil(int level) {
+        if (numLevels <= level) return;
+        for (int i = trailSize - 1; i >= trailLimits[level]; i--) {
+            final int literal = trail[i];
+            final int variable = literal >> 1;
+            polarity[variable] = (literal & 1) == 0;
+            assigns[variable] = UNDEFINED;
+            reasons[variable] = null;
+            if (objectiveWeights != null) {
+                objectiveSlack += objectiveWeights[literal];
+            }
+            if (!heap.contains(variable)) {
+                heap.insert(variable);
+            }
+        }
+        trailSize = trailLimits[level];
+        propagationHead = trailSize;
+        numLevels = level;
+        objectivePropagated = 0;
+    }
+
+    private void attach(Clause clause) {
+        addWatch(clause.literals[0], clause);
+        addWatch(clause.literals[1], clause);
+    }
+
+    private void addWatch(int literal, Clause clause) {
+        if (numWatches[literal] == watches[literal].length) {
+            watches[literal] = Arrays.copyOf(watches[literal], 2 * numWatches[literal]);
+        }
+        watches[literal][numWatches[literal]++] = clause;
+    }
+
+    /**
+     * Propagiert alle noch nicht verarbeiteten Literale des Trails.
+     *
+     * @return Eine Klausel, deren Literale alle falsch sind, oder null.
+     */
+    @Nullable
+    private Clause propagate() {
+        while (propagationHead < trailSize) {
+            final int trueLiteral = trail[propagationHead++];
+            final int falseLiteral = not(trueLiteral);
+            final Clause[] watchList = watches[falseLiteral];
+            final int size = numWatches[falseLiteral];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                final Clause clause = watchList[i];
+                if (clause.deleted) continue;
+                final int[] literals = clause.literals;
+                if (literals[0] == falseLiteral) {
+                    literals[0] = literals[1];
+                    literals[1] = falseLiteral;
+                }
+                final int first = literals[0];
+                if (value(first) == TRUE) {
+                    watchList[kept++] = clause;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < literals.length; k++) {
+                    if (value(literals[k]) != FALSE) {
+                        literals[1] = literals[k];
+                        literals[k] = falseLiteral;
+                        addWatch(literals[1], clause);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+                watchList[kept++] = clause;
+                if (value(first) == FALSE) {
+                    System.arraycopy(watchList, i + 1, watchList, kept, size - i - 1);
+                    numWatches[falseLiteral] = kept + size - i - 1;
+                    propagationHead = trailSize;
+                    return clause;
+                }
+                assign(first, clause);
+            }
+            numWatches[falseLiteral] = kept;
+            if (objectiveWeights != null && objectiveWeights[trueLiteral] > 0) {
+                if (objectiveSlack < 0) {
+                    propagationHead = trailSize;
+                    return explainObjectiveConflict();
+                }
+                propagateObjective();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Setzt alle Literale der Zielfunktion auf falsch, deren Gewicht die verbleibende Schranke überschreiten würde.
+     */
+    private void propagateObjective() {
+        if (objectiveLiterals == null) return;
+        int i = objectivePropagated;
+        for (; i < objectiveLiterals.length; i++) {
+            final int literal = objectiveLiterals[i];
+            if (objectiveWeights[literal] <= objectiveSlack) break;
+            if (value(literal) == UNDEFINED) {
+                assign(not(literal), OBJECTIVE_REASON);
+            }
+        }
+        objectivePropagated = i;
+    }
+
+    /**
+     * @return Eine Klausel aus den Negationen von wahren Literalen der Zielfunktion, deren Gewichte zusammen die
+     * Schranke überschreiten. Es werden die schwersten genommen, damit die Klausel möglichst kurz ist.
+     */
+    private Clause explainObjectiveConflict() {
+        return new Clause(collectObjectiveReason(Integer.MAX_VALUE, objectiveBound, 0), false);
+    }
+
+    /**
+     * @param reason Die Begründung für die Belegung des Literals.
+     * @param literal Das wahre Literal, dessen Belegung erklärt wird.
+     * @return Die Literale einer Klausel, die das Literal erzwingt (inklusive des Literals selbst).
+     */
+    private int[] explain(Clause reason, int literal) {
+        if (reason != OBJECTIVE_REASON) return reason.literals;
+        // Das Literal wurde gesetzt, weil die vorher wahren Literale zusammen mit dem Gewicht seiner Negation die
+        // Schranke überschritten hätten.
+        explanation[0] = literal;
+        return collectObjectiveReason(trailPositions[literal >> 1], objectiveBound - objectiveWeights[not(literal)], 1);
+    }
+
+    /**
+     * Sammelt die Negationen der schwersten wahren Literale der Zielfunktion, bis ihre Gewichte zusammen die Grenze
+     * überschreiten.
+     *
+     * @param position Nur Literale, die vor dieser Position im Trail stehen, werden berücksichtigt.
+     * @param limit Die zu überschreitende Grenze.
+     * @param size So viele Literale stehen schon am Anfang von {@link #explanation}.
+     * @return Die Literale.
+     */
+    private int[] collectObjectiveReason(int position, long limit, int size) {
+        long sum = 0;
+        for (int i = 0; i < objectiveLiterals.length && sum <= limit; i++) {
+            final int objectiveLiteral = objectiveLiterals[i];
+            if (value(objectiveLiteral) == TRUE && trailPositions[objectiveLiteral >> 1] < position) {
+                explanation[size++] = not(objectiveLiteral);
+                sum += objectiveWeights[objectiveLiteral];
+            }
+        }
+        return Arrays.copyOf(explanation, size);
+    }
+
+    /**
+     * Analysiert einen Konflikt und leitet eine Klausel nach dem First-UIP-Schema ab.
+     *
+     * @param conflict Die Klausel, deren Literale alle falsch sind.
+     * @param learnt Nimmt die gelernte Klausel auf. Das erste Literal ist das, das nach dem Zurückspringen gilt.
+     * @return Die Entscheidungsebene, auf die zurückgesprungen werden muss.
+     */
+    private int analyze(Clause conflict, List<Integer> learnt) {
+        learnt.add(-1);
+        int pathCount = 0;
+        int literal = -1;
+        int index = trailSize - 1;
+        Clause reason = conflict;
+        do {
+            if (reason.learnt) bumpClause(reason);
+            for (int other : explain(reason, literal)) {
+                if (other == literal) continue;
+                final int variable = other >> 1;
+                if (!seen[variable] && levels[variable] > 0) {
+                    bumpVariable(variable);
+                    seen[variable] = true;
+                    if (levels[variable] >= numLevels) {
+                        pathCount++;
+                    } else {
+                        learnt.add(other);
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            literal = trail[index--];
+            reason = reasons[literal >> 1];
+            seen[literal >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt.set(0, not(literal));
+
+        // Literale entfernen, deren Begründung bereits vollständig in der Klausel enthalten ist.
+        final int[] candidates = learnt.stream().mapToInt(Integer::intValue).toArray();
+        int kept = 1;
+        for (int i = 1; i < candidates.length; i++) {
+            if (!isRedundant(candidates[i])) {
+                learnt.set(kept++, candidates[i]);
+            }
+        }
+        for (int i = 1; i < candidates.length; i++) {
+            seen[candidates[i] >> 1] = false;
+        }
+        learnt.subList(kept, learnt.size()).clear();
+
+        int backtrackLevel = 0;
+        for (int i = 1; i < learnt.size(); i++) {
+            if (levels[learnt.get(i) >> 1] > backtrackLevel) {
+                backtrackLevel = levels[learnt.get(i) >> 1];
+                final int tmp = learnt.get(1);
+                learnt.set(1, learnt.get(i));
+                learnt.set(i, tmp);
+            }
+        }
+        return backtrackLevel;
+    }
+
+    /**
+     * @param literal Ein falsches Literal der gelernten Klausel.
+     * @return True, wenn alle anderen Literale seiner Begründung auch in der Klausel stehen oder auf Ebene 0 gesetzt
+     * sind.
+     */
+    private boolean isRedundant(int literal) {
+        final Clause reason = reasons[literal >> 1];
+        if (reason == null || reason == OBJECTIVE_REASON) return false;
+        for (int other : reason.literals) {
+            final int variable = other >> 1;
+            if (variable != literal >> 1 && !seen[variable] && levels[variable] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void bumpVariable(int variable) {
+        activity[variable] += varIncrement;
+        if (activity[variable] > 1e100) {
+            for (int other = 0; other < numVariables; other++) {
+                activity[other] *= 1e-100;
+            }
+            varIncrement *= 1e-100;
+        }
+        heap.update(variable);
+    }
+
+    private void bumpClause(Clause clause) {
+        clause.activity += clauseIncrement;
+        if (clause.activity > 1e20) {
+            for (Clause learnt : learnts) {
+                learnt.activity *= 1e-20;
+            }
+            clauseIncrement *= 1e-20;
+        }
+    }
+
+    /**
+     * Entfernt die weniger aktive Hälfte der gelernten Klauseln, sofern sie nicht gerade als Begründung dienen.
+     */
+    private void reduceLearnts() {
+        learnts.sort(Comparator.comparingDouble(clause -> clause.activity));
+        int kept = 0;
+        for (int i = 0; i < learnts.size(); i++) {
+            final Clause clause = learnts.get(i);
+            final int first = clause.literals[0];
+            final boolean locked = reasons[first >> 1] == clause && value(first) == TRUE;
+            if (i < learnts.size() / 2 && !locked && clause.literals.length > 2) {
+                clause.deleted = true;
+            } else {
+                learnts.set(kept++, clause);
+            }
+        }
+        learnts.subList(kept, learnts.size()).clear();
+    }
+
+    private int pickBranchLiteral() {
+        while (!heap.isEmpty()) {
+            final int variable = heap.removeMax();
+            if (assigns[variable] == UNDEFINED) {
+                return literal(variable, polarity[variable]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Das i-te Element der Luby-Folge 1, 1, 2, 1, 1, 2, 4, 1, ...
+     */
+    private static int luby(int i) {
+        int size = 1;
+        int sequence = 0;
+        while (size < i + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) / 2;
+            sequence--;
+            i = i % size;
+        }
+        return 1 << sequence;
+    }
+
+    /**
+     * Ein binärer Max-Heap der Variablen nach ihrer {@link #activity}.
+     */
+    private final class VarHeap {
+        private int[] heap = new int[16];
+        private int[] positions = new int[0];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int variable) {
+            return variable < positions.length && positions[variable] >= 0;
+        }
+
+        void insert(int variable) {
+            if (variable >= positions.length) {
+                final int oldLength = positions.length;
+                positions = Arrays.copyOf(positions, Math.max(variable + 1, 2 * oldLength));
+                Arrays.fill(positions, oldLength, positions.length, -1);
+            }
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            heap[size] = variable;
+            positions[variable] = size;
+            siftUp(size++);
+        }
+
+        void update(int variable) {
+            if (contains(variable)) {
+                siftUp(positions[variable]);
+            }
+        }
+
+        int removeMax() {
+            final int max = heap[0];
+            positions[max] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return max;
+        }
+
+        private void siftUp(int index) {
+            final int variable = heap[index];
+            while (index > 0) {
+                final int parent = (index - 1) / 2;
+                if (activity[heap[parent]] >= activity[variable]) break;
+                heap[index] = heap[parent];
+                positions[heap[index]] = index;
+                index = parent;
+            }
+            heap[index] = variable;
+            positions[variable] = index;
+        }
+
+        private void siftDown(int index) {
+            final int variable = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) break;
+                if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) child++;
+                if (activity[heap[child]] <= activity[variable]) break;
+                heap[index] = heap[child];
+                positions[heap[index]] = index;
+                index = child;
+            }
+            heap[index] = variable;
+            positions[variable] = index;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package schulscheduler.solver.sat;
+
+import java.util.Arrays;
+
+/**
+ * Kodiert Kardinalitätsbedingungen (mindestens/höchstens/genau k von n Literalen sind wahr) als Klauseln für
+ * {@link Cdcl}. Allgemein wird ein Totalizer verwendet: Ein Binärbaum, der an jedem Knoten die Anzahl der wahren
+ * Literale darunter unär zählt. Gezählt wird nur bis k + 1, sodass die Größe O(n * k) statt O(n²) ist. Einfache
+ * Sonderfälle (k = 0, k = n, eine einzelne Klausel, paarweise höchstens eins) werden direkt kodiert.
+ */
+public final class Totalizer {
+
+    /**
+     * Bis zu dieser Anzahl Literale wird "höchstens eins" paarweise kodiert.
+     */
+    private static final int MAX_PAIRWISE = 6;
+
+    private Totalizer() {
+    }
+
+    /**
+     * Fügt SUM(literals) <= k hinzu.
+     *
+     * @return False, wenn die Klauseln dadurch als unerfüllbar erkannt wurden.
+     */
+    public static boolean atMost(Cdcl cdcl, int[] literals, int k) {
+        if (k >= literals.length) return cdcl.isOk();
+        if (k < 0) return cdcl.addClause();
+        if (k == 0) return allFalse(cdcl, literals);
+        if (k == 1 && literals.length <= MAX_PAIRWISE) {
+            for (int i = 0; i < literals.length; i++) {
+                for (int j = i + 1; j < literals.length; j++) {
+                    if (!cdcl.addClause(Cdcl.not(literals[i]), Cdcl.not(literals[j]))) return false;
+                }
+            }
+            return true;
+        }
+        final int[] outputs = encode(cdcl, literals, k + 1);
+        return cdcl.addClause(Cdcl.not(outputs[k]));
+    }
+
+    /**
+     * Fügt SUM(literals) >= k hinzu.
+     *
+     * @return False, wenn die Klauseln dadurch als unerfüllbar erkannt wurden.
+     */
+    public static boolean atLeast(Cdcl cdcl, int[] literals, int k) {
+        if (k <= 0) return cdcl.isOk();
+        if (k > literals.length) return cdcl.addClause();
+        if (k == literals.length) return allTrue(cdcl, literals);
+        if (k == 1) return cdcl.addClause(literals);
+        final int[] outputs = encode(cdcl, literals, k);
+        return cdcl.addClause(outputs[k - 1]);
+    }
+
+    /**
+     * Fügt SUM(literals) == k hinzu.
+     *
+     * @return False, wenn die Klauseln dadurch als unerfüllbar erkannt wurden.
+     */
+    public static boolean exactly(Cdcl cdcl, int[] literals, int k) {
+        if (k < 0 || k > literals.length) return cdcl.addClause();
+        if (k == 0) return allFalse(cdcl, literals);
+        if (k == literals.length) return allTrue(cdcl, literals);
+        final int[] outputs = encode(cdcl, literals, k + 1);
+        return cdcl.addClause(outputs[k - 1]) && cdcl.addClause(Cdcl.not(outputs[k]));
+    }
+
+    private static boolean allFalse(Cdcl cdcl, int[] literals) {
+        for (int literal : literals) {
+            if (!cdcl.addClause(Cdcl.not(literal))) return false;
+        }
+        return true;
+    }
+
+    private static boolean allTrue(Cdcl cdcl, int[] literals) {
+        for (int literal : literals) {
+            if (!cdcl.addClause(literal)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Erzeugt den Totalizer über den Literalen.
+     *
+     * @param limit Bis zu welcher Anzahl gezählt wird.
+     * @return Die Ausgänge r_1, ..., r_m mit m = min(n, limit), wobei r_j genau dann wahr ist, wenn mindestens j der
+     * Literale wahr sind.
+     */
+    static int[] encode(Cdcl cdcl, int[] literals, int limit) {
+        if (literals.length == 1) return literals;
+        final int middle = literals.length / 2;
+        final int[] left = encode(cdcl, Arrays.copyOfRange(literals, 0, middle), limit);
+        final int[] right = encode(cdcl, Arrays.copyOfRange(literals, middle, literals.length), limit);
+        final int size = Math.min(left.length + right.length, limit);
+        final int[] outputs = new int[size];
+        for (int j = 0; j < size; j++) {
+            outputs[j] = Cdcl.literal(cdcl.newVariable(), true);
+        }
+        // Der Index i bzw. j steht für "mindestens i bzw. j wahr"; 0 ist immer wahr und length + 1 immer falsch.
+        for (int i = 0; i <= left.length; i++) {
+            for (int j = 0; j <= right.length; j++) {
+                // left >= i und right >= j  =>  outputs >= min(i + j, size)
+                if (i + j > 0) {
+                    addClause(cdcl, i > 0 ? Cdcl.not(left[i - 1]) : -1, j > 0 ? Cdcl.not(right[j - 1]) : -1,
+                            outputs[Math.min(i + j, size) - 1]);
+                }
+                // left < i + 1 und right < j + 1  =>  outputs < i + j + 1
+                if (i + j < size) {
+                    addClause(cdcl, i < left.length ? left[i] : -1, j < right.length ? right[j] : -1,
+                            Cdcl.not(outputs[i + j]));
+                }
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Fügt eine Klausel aus bis zu drei Literalen hinzu, wobei -1 für "kein Literal" steht.
+     */
+    private static void addClause(Cdcl cdcl, int a, int b, int c) {
+        if (a < 0 && b < 0) {
+            cdcl.addClause(c);
+        } else if (a < 0) {
+            cdcl.addClause(b, c);
+        } else if (b < 0) {
+            cdcl.addClause(a, c);
+        } else {
+            cdcl.addClause(a, b, c);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.base.BaseElement;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.schule.Zeitslot;
+import schulscheduler.model.unterricht.Klasse;
+import schulscheduler.solver.binary.BinaryLP;
+import schulscheduler.solver.binary.ConstraintMatrix;
+import schulscheduler.testutils.TestData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConstraintKeyTest {
+
+    /**
+     * @return All elements of the input that constraint keys may refer to, by ID.
+     */
+    private static Map<Integer, BaseElement> getElements(Eingabedaten eingabe) {
+        Map<Integer, BaseElement> elements = new HashMap<>();
+        Stream.of(eingabe.getKlassen(), eingabe.getLehrer(), eingabe.getFaecher(), eingabe.getZeitslots(),
+                eingabe.getZuweisungen(), eingabe.getKopplungen())
+                .flatMap(List::stream)
+                .forEach(element -> elements.put(element.getId(), element));
+        return elements;
+    }
+
+    @Test
+    public void testRenderMatchesEnumConstraints() {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Map<Integer, BaseElement> elements = getElements(eingabe);
+        for (Klasse klasse : eingabe.getKlassen()) {
+            for (Zeitslot zeitslot : eingabe.getZeitslots()) {
+                assertThat(EnumConstraints.KONFLIKTFREIHEIT.key(klasse, zeitslot).render(elements::get),
+                        is(EnumConstraints.KONFLIKTFREIHEIT.get(klasse, zeitslot)));
+                assertThat(EnumConstraints.MAX_HARTE_FAECHER.key(klasse, zeitslot, 3).render(elements::get),
+                        is(EnumConstraints.MAX_HARTE_FAECHER.get(klasse, zeitslot, 3)));
+            }
+        }
+        Zeitslot zeitslot = eingabe.getZeitslots().get(0);
+        assertThat(EnumConstraints.EINZELSTUNDE.key(zeitslot, 7).withSuffix("-Var").render(elements::get),
+                is(EnumConstraints.EINZELSTUNDE.get(zeitslot, 7) + "-Var"));
+        assertThat(ConstraintKey.of(null, zeitslot, 7).render(elements::get), is(zeitslot.toShortString() + "-7"));
+    }
+
+    @Test
+    public void testModelNamesMatchEnumConstraints() {
+        // The names of all rows of the model are the same as the EnumConstraints strings built from the input.
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Map<Integer, BaseElement> elements = getElements(eingabe);
+        ConstraintMatrix matrix = new BinaryLP(eingabe).getMatrix();
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            ConstraintKey key = matrix.getKey(row);
+            Object[] parameters = new Object[key.getParameterCount()];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = key.isElement(i) ? elements.get(key.getParameter(i)) : key.getParameter(i);
+            }
+            String name = matrix.getName(row);
+            assertThat(name, name.startsWith(key.getType().get(parameters)), is(true));
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Klasse klasse = eingabe.getKlassen().get(0);
+        for (ConstraintKey key : List.of(
+                EnumConstraints.KERNSTUNDE.key(klasse, eingabe.getZeitslots().get(0)),
+                EnumConstraints.WOCHENSTUNDEN.key(klasse, -5).withSuffix("-Tolerance"),
+                ConstraintKey.of(null))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            key.writeTo(new DataOutputStream(bytes));
+            ConstraintKey copy = ConstraintKey.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertThat(copy, is(key));
+            assertThat(copy.hashCode(), is(key.hashCode()));
+            assertThat(copy.toString(), is(key.toString()));
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.model.schule.Fach;
+import schulscheduler.model.schule.Lehrer;
+import schulscheduler.model.unterricht.Klasse;
+import schulscheduler.model.unterricht.Zuweisung;
+import schulscheduler.testutils.TestData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DecomposingSolverTest {
+
+    @Test
+    public void testSingleComponent() {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        List<Eingabedaten> components = DecomposingSolver.decompose(eingabe);
+        assertThat(components.size(), is(1));
+        assertThat(components.get(0), sameInstance(eingabe));
+    }
+
+    @Test
+    public void testTwoSchools() throws InterruptedException {
+        Eingabedaten eingabe = Eingabedaten.createDefault();
+        Fach fach = eingabe.addFach();
+        Lehrer lehrer1 = eingabe.addLehrer();
+        Lehrer lehrer2 = eingabe.addLehrer();
+        Lehrer lehrer3 = eingabe.addLehrer();
+        Klasse klasse1 = eingabe.addKlasse();
+        Klasse klasse2 = eingabe.addKlasse();
+        Klasse klasse3 = eingabe.addKlasse();
+        eingabe.getZuweisungen().add(new Zuweisung(2, null, lehrer1, fach, klasse1));
+        eingabe.getZuweisungen().add(new Zuweisung(3, null, lehrer2, fach, klasse2));
+        eingabe.getZuweisungen().add(new Zuweisung(1, null, lehrer1, fach, klasse3));
+
+        List<Eingabedaten> components = DecomposingSolver.decompose(eingabe);
+        assertThat(components.size(), is(2));
+        assertThat(components.get(0).getKlassen(), contains(klasse1, klasse3));
+        // Lehrer 3 has no Unterricht and therefore ends up in the first component.
+        assertThat(components.get(0).getLehrer(), contains(lehrer1, lehrer3));
+        assertThat(components.get(1).getKlassen(), contains(klasse2));
+        assertThat(components.get(1).getLehrer(), contains(lehrer2));
+        assertThat(components.get(1).getZuweisungen().size(), is(1));
+
+        Ergebnisdaten ergebnis = new DecomposingSolver(() -> new SatSolver(10_000)).solve(eingabe);
+        assertThat(ergebnis, notNullValue());
+        assertThat(ergebnis.getEingabedaten(), sameInstance(eingabe));
+        assertThat(ergebnis.getUnterricht().size(), is(6));
+        assertThat(ergebnis.getKlassenStundenplaene().size(), is(3));
+        assertThat(ergebnis.getKlassenStundenplaene().get(1).getKlasse(), is(klasse2));
+        assertThat(ergebnis.getLehrerStundenplaene().size(), is(2));
+    }
+
+    @Test
+    public void testPassesPreviousSolution() throws InterruptedException {
+        Eingabedaten eingabe = Eingabedaten.createDefault();
+        Fach fach = eingabe.addFach();
+        eingabe.getZuweisungen().add(new Zuweisung(2, null, eingabe.addLehrer(), fach, eingabe.addKlasse()));
+        eingabe.getZuweisungen().add(new Zuweisung(2, null, eingabe.addLehrer(), fach, eingabe.addKlasse()));
+        Ergebnisdaten vorher = new Ergebnisdaten();
+
+        // Every component receives the whole previous solution.
+        List<Ergebnisdaten> received = new CopyOnWriteArrayList<>();
+        Solver solver = new Solver() {
+            @Override
+            public Ergebnisdaten solve(@Nonnull Eingabedaten component) throws InterruptedException {
+                return new SatSolver(10_000).solve(component);
+            }
+
+            @Override
+            public Ergebnisdaten solve(@Nonnull Eingabedaten component, @Nullable Ergebnisdaten previous)
+                    throws InterruptedException {
+                received.add(previous);
+                return solve(component);
+            }
+        };
+        assertThat(new DecomposingSolver(() -> solver).solve(eingabe, vorher), notNullValue());
+        assertThat(received, contains(sameInstance(vorher), sameInstance(vorher)));
+    }
+
+    @Test
+    public void testPropagatesInterruption() {
+        Eingabedaten eingabe = Eingabedaten.createDefault();
+        Fach fach = eingabe.addFach();
+        eingabe.getZuweisungen().add(new Zuweisung(2, null, eingabe.addLehrer(), fach, eingabe.addKlasse()));
+        eingabe.getZuweisungen().add(new Zuweisung(2, null, eingabe.addLehrer(), fach, eingabe.addKlasse()));
+
+        Solver interrupted = component -> {
+            throw new InterruptedException();
+        };
+        assertThrows(InterruptedException.class, () -> new DecomposingSolver(() -> interrupted).solve(eingabe));
+    }
+
+}
@@ -0,0 +1,45 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.testutils.TestData;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PortfolioSolverTest {
+
+    @Test
+    public void testPortfolioSolver() throws InterruptedException {
+        PortfolioSolver solver = new PortfolioSolver(
+                List.of(PortfolioSolver.satSearch(), PortfolioSolver.localSearch(1)), 10_000);
+        Ergebnisdaten ergebnis = solver.solve(TestData.readTestdataset());
+        assertThat(ergebnis, notNullValue());
+    }
+
+    @Test
+    public void testStopsWhenInfeasible() throws InterruptedException {
+        PortfolioSolver solver = new PortfolioSolver(
+                List.of(PortfolioSolver.satSearch(), PortfolioSolver.localSearch(1)), 60_000);
+        long start = System.nanoTime();
+        assertThat(solver.solve(TestData.readUnloesbar()), nullValue());
+        // The SAT search proves infeasibility right away, so the portfolio must not wait for the time limit.
+        assertThat(System.nanoTime() - start, lessThan(10_000_000_000L));
+    }
+
+    @Test
+    public void testThrowsWhenAllStrategiesFail() {
+        PortfolioSolver.Strategy failing = (binaryLP, incumbent, timeLimitMillis) -> {
+            throw new IllegalStateException("Strategy failed");
+        };
+        PortfolioSolver solver = new PortfolioSolver(List.of(failing, failing), 10_000);
+        // A crash must not look like an infeasible problem.
+        assertThrows(IllegalStateException.class, () -> solver.solve(TestData.readTestdataset()));
+    }
+
+}
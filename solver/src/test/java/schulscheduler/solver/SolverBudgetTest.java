@@ -0,0 +1,40 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.BerechnungsParameter;
+import schulscheduler.model.eingabe.EnumGewichtung;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class SolverBudgetTest {
+
+    @Test
+    public void testDefault() {
+        assertThat(SolverBudget.of(null), is(SolverBudget.DEFAULT));
+        assertThat(SolverBudget.of(BerechnungsParameter.createDefault()), is(SolverBudget.DEFAULT));
+        assertThat(SolverBudget.DEFAULT.getGapLimit(), is(0.0));
+    }
+
+    @Test
+    public void testLongerRechendauerGivesMoreTime() {
+        EnumGewichtung[] values = EnumGewichtung.berechnungPrioritaetValues();
+        for (int i = 1; i < values.length; i++) {
+            SolverBudget shorter = SolverBudget.forRechendauer(values[i - 1]);
+            SolverBudget longer = SolverBudget.forRechendauer(values[i]);
+            assertThat(longer.getTimeLimitSeconds(), greaterThan(shorter.getTimeLimitSeconds()));
+            assertThat(longer.getGapLimit(), lessThan(shorter.getGapLimit() + 1e-9));
+        }
+    }
+
+    @Test
+    public void testWithTimeLimit() {
+        SolverBudget budget = SolverBudget.forRechendauer(EnumGewichtung.NIEDRIG).withTimeLimitSeconds(7);
+        assertThat(budget.getTimeLimitSeconds(), is(7.0));
+        assertThat(budget.getNodeLimit(), is(SolverBudget.forRechendauer(EnumGewichtung.NIEDRIG).getNodeLimit()));
+        assertThat(budget.getGapLimit(), is(SolverBudget.forRechendauer(EnumGewichtung.NIEDRIG).getGapLimit()));
+    }
+
+}
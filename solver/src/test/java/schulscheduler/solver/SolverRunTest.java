@@ -0,0 +1,139 @@
+package schulscheduler.solver;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.testutils.TestData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+
+public class SolverRunTest {
+
+    /**
+     * Collects all published events.
+     */
+    private static class Collector implements Flow.Subscriber<SolutionEvent> {
+        final List<SolutionEvent> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch first = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(SolutionEvent item) {
+            events.add(item);
+            first.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void testPublishesImprovingSolutions() throws Exception {
+        PortfolioSolver solver = new PortfolioSolver(List.of(PortfolioSolver.localSearch(1)), 5_000);
+        Collector collector = new Collector();
+        SolverRun run = SolverRun.start(solver, TestData.readTestdataset(), null, collector);
+
+        Ergebnisdaten ergebnis = run.getResult().get(1, TimeUnit.MINUTES);
+        assertThat(ergebnis, notNullValue());
+        assertThat(collector.done.await(1, TimeUnit.MINUTES), is(true));
+        assertThat(collector.events, not(empty()));
+        // The last event is the final result.
+        assertThat(collector.events.get(collector.events.size() - 1).getErgebnis(), sameInstance(ergebnis));
+        for (int i = 1; i < collector.events.size() - 1; i++) {
+            assertThat(collector.events.get(i).getObjectiveValue(),
+                    greaterThan(collector.events.get(i - 1).getObjectiveValue()));
+        }
+    }
+
+    @Test
+    public void testSubscriberReceivesImmediateSolution() throws Exception {
+        // The solver publishes right away, before a subscriber added after starting could have subscribed.
+        Ergebnisdaten ergebnis = new Ergebnisdaten();
+        Solver solver = new Solver() {
+            @Override
+            public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe) {
+                return ergebnis;
+            }
+
+            @Override
+            public Ergebnisdaten solve(@Nonnull Eingabedaten eingabe, @Nullable Ergebnisdaten vorher,
+                                       @Nullable Consumer<SolutionEvent> listener) {
+                listener.accept(new SolutionEvent(ergebnis, 1, 1, 0));
+                return ergebnis;
+            }
+        };
+        Collector collector = new Collector();
+        SolverRun run = SolverRun.start(solver, new Eingabedaten(), null, collector);
+
+        assertThat(run.getResult().get(1, TimeUnit.MINUTES), sameInstance(ergebnis));
+        assertThat(collector.done.await(1, TimeUnit.MINUTES), is(true));
+        assertThat(collector.events.size(), is(1));
+        assertThat(collector.events.get(0).getErgebnis(), sameInstance(ergebnis));
+    }
+
+    @Test
+    public void testConcurrentRunsOfSameSolver() throws Exception {
+        // Each run only receives the solutions of its own input, although both use the same solver at the same time.
+        PortfolioSolver solver = new PortfolioSolver(List.of(PortfolioSolver.localSearch(1)), 5_000);
+        Eingabedaten eingabe1 = TestData.readTestdataset();
+        Eingabedaten eingabe2 = TestData.readTestdataset();
+        Collector collector1 = new Collector();
+        Collector collector2 = new Collector();
+        SolverRun run1 = SolverRun.start(solver, eingabe1, null, collector1);
+        SolverRun run2 = SolverRun.start(solver, eingabe2, null, collector2);
+
+        assertThat(run1.getResult().get(1, TimeUnit.MINUTES).getEingabedaten(), sameInstance(eingabe1));
+        assertThat(run2.getResult().get(1, TimeUnit.MINUTES).getEingabedaten(), sameInstance(eingabe2));
+        assertThat(collector1.done.await(1, TimeUnit.MINUTES), is(true));
+        assertThat(collector2.done.await(1, TimeUnit.MINUTES), is(true));
+        assertThat(collector1.events, not(empty()));
+        assertThat(collector2.events, not(empty()));
+        for (SolutionEvent event : collector1.events) {
+            assertThat(event.getErgebnis().getEingabedaten(), sameInstance(eingabe1));
+        }
+        for (SolutionEvent event : collector2.events) {
+            assertThat(event.getErgebnis().getEingabedaten(), sameInstance(eingabe2));
+        }
+    }
+
+    @Test
+    public void testStopReturnsBestSolutionSoFar() throws Exception {
+        PortfolioSolver solver = new PortfolioSolver(List.of(PortfolioSolver.localSearch(1)), 600_000);
+        Collector collector = new Collector();
+        SolverRun run = SolverRun.start(solver, TestData.readTestdataset(), null, collector);
+
+        assertThat(collector.first.await(1, TimeUnit.MINUTES), is(true));
+        run.stop();
+        Ergebnisdaten ergebnis = run.getResult().get(1, TimeUnit.MINUTES);
+        assertThat(ergebnis, sameInstance(run.getLatest().getErgebnis()));
+        assertThat(collector.done.await(1, TimeUnit.MINUTES), is(true));
+    }
+
+}
@@ -0,0 +1,145 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.model.ergebnis.Unterricht;
+import schulscheduler.model.schule.Zeitslot;
+import schulscheduler.model.unterricht.Unterrichtseinheit;
+import schulscheduler.model.unterricht.Zuweisung;
+import schulscheduler.solver.EnumConstraints;
+import schulscheduler.testutils.TestData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class BinaryLPTest {
+
+    @Test
+    public void testAggregiertGleichartigeEinheiten() {
+        // Eine Zuweisung in zwei gleichartige Zuweisungen aufteilen.
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Zuweisung original = eingabe.getZuweisungen().stream()
+                .filter(z -> z.getWochenstunden() >= 2 && z.getFixeStunden().isEmpty())
+                .filter(z -> !z.isGekoppelt(eingabe.getKopplungen()))
+                .findFirst().orElseThrow();
+        original.setWochenstunden(original.getWochenstunden() - 1);
+        Zuweisung kopie = new Zuweisung(1, null, original.getLehrer(), original.getFach(), original.getKlasse());
+        eingabe.getZuweisungen().add(kopie);
+
+        BinaryLP einzeln = new BinaryLP(eingabe);
+        BinaryLP aggregiert = new BinaryLP(eingabe, true);
+        assertThat(aggregiert.getEinheiten().size(), is(einzeln.getEinheiten().size() - 1));
+        assertThat(aggregiert.getVariables().size() < einzeln.getVariables().size(), is(true));
+
+        int einheitIdx = aggregiert.getEinheiten().indexOf(original);
+        assertThat(aggregiert.getGruppe(einheitIdx).size(), is(2));
+        assertThat(aggregiert.getGruppe(einheitIdx).contains(kopie), is(true));
+        for (int idx = 0; idx < aggregiert.getEinheiten().size(); idx++) {
+            Unterrichtseinheit einheit = aggregiert.getEinheiten().get(idx);
+            assertThat(aggregiert.getGruppe(idx).get(0), is(einheit));
+        }
+
+        assertThat(new Presolve(aggregiert).isInfeasible(), is(false));
+    }
+
+    @Test
+    public void testStartwerteGleicherEinheiten() throws InterruptedException {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        Zuweisung original = eingabe.getZuweisungen().stream()
+                .filter(z -> z.getWochenstunden() >= 3 && z.getFixeStunden().isEmpty())
+                .filter(z -> !z.isGekoppelt(eingabe.getKopplungen()))
+                .findFirst().orElseThrow();
+        BinaryLP binaryLP = new BinaryLP(eingabe, true);
+        assertThat(new LocalSearch(binaryLP, 1).solve(5_000), is(true));
+        Ergebnisdaten vorher = binaryLP.createErgebnis();
+        Unterricht unterricht = vorher.getUnterricht().stream()
+                .filter(u -> u.getKlassen().equals(List.of(original.getKlasse())))
+                .filter(u -> u.getLehrer().equals(List.of(original.getLehrer())))
+                .filter(u -> u.getFaecher().equals(List.of(original.getFach())))
+                .findFirst().orElseThrow();
+        Zeitslot fix = eingabe.getZeitslots().stream()
+                .filter(zeitslot -> zeitslot.getId().equals(unterricht.getZeitslot().getId()))
+                .findFirst().orElseThrow();
+
+        // Zwei Stunden, davon eine fix, in eine gleiche Zuweisung auslagern. Wegen der fixen Stunde werden die beiden
+        // Zuweisungen nicht zusammengefasst.
+        int wochenstunden = original.getWochenstunden();
+        original.setWochenstunden(wochenstunden - 2);
+        Zuweisung kopie = new Zuweisung(2, List.of(fix), original.getLehrer(), original.getFach(),
+                original.getKlasse());
+        eingabe.getZuweisungen().add(kopie);
+
+        for (boolean aggregieren : new boolean[]{false, true}) {
+            BinaryLP neu = new BinaryLP(eingabe, aggregieren);
+            byte[] startwerte = neu.getStartwerte(vorher);
+            Map<Zeitslot, BinaryVariable> originalVars = neu.getMainVariablesAsMap().get(original);
+            Map<Zeitslot, BinaryVariable> kopieVars = neu.getMainVariablesAsMap().get(kopie);
+            // Die fixe Stunde bleibt bei der Kopie, die übrigen früheren Stunden werden nach Wochenstunden verteilt.
+            assertThat(startwerte[kopieVars.get(fix).getIndex()], is((byte) 1));
+            assertThat(countStartwerte(startwerte, kopieVars.values(), 1), is(2));
+            assertThat(countStartwerte(startwerte, originalVars.values(), 1), is(wochenstunden - 2));
+            assertThat(countStartwerte(startwerte, kopieVars.values(), -1), is(0));
+            assertThat(countStartwerte(startwerte, originalVars.values(), -1), is(0));
+        }
+    }
+
+    private static int countStartwerte(byte[] startwerte, Collection<BinaryVariable> variables, int wert) {
+        return (int) variables.stream().filter(variable -> startwerte[variable.getIndex()] == wert).count();
+    }
+
+    @Test
+    public void testStatistics() {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset());
+        ModelStatistics statistics = binaryLP.getStatistics();
+        assertThat(statistics.getNumVariables(), is(binaryLP.getVariables().size()));
+        assertThat(statistics.getNumRows(), is(binaryLP.getMatrix().getNumRows()));
+        assertThat(statistics.getNumMainVariables(),
+                is(binaryLP.getEinheiten().size() * binaryLP.getZeitslots().size()));
+        assertThat(statistics.getFamily(EnumConstraints.WOCHENSTUNDEN).getRows(), is(binaryLP.getEinheiten().size()));
+
+        // Jede Zeile und jede Hilfsvariable gehört zu genau einer Familie.
+        int rows = 0;
+        int entries = 0;
+        int variables = statistics.getNumMainVariables();
+        for (ModelStatistics.Family family : statistics.getFamilies().values()) {
+            rows += family.getRows();
+            entries += family.getEntries();
+            variables += family.getVariables();
+        }
+        assertThat(rows, is(statistics.getNumRows()));
+        assertThat(entries, is(statistics.getNumEntries()));
+        assertThat(variables, is(statistics.getNumVariables()));
+
+        assertThat(statistics.getPhases().stream().anyMatch(
+                phase -> phase.getName().equals("createFachProTagConstraints")), is(true));
+    }
+
+    @Test
+    public void testConcurrentFamiliesMatchSequential() throws Exception {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        BinaryLP concurrent = new BinaryLP(eingabe, true);
+        // In einem Pool mit nur einem Thread werden die Familien nacheinander erzeugt.
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        BinaryLP sequential;
+        try {
+            sequential = singleThread.submit(() -> new BinaryLP(eingabe, true)).get();
+        } finally {
+            singleThread.shutdown();
+        }
+
+        ConstraintMatrixTest.assertEquals(concurrent.getMatrix(), sequential.getMatrix());
+        assertThat(concurrent.getVariables().size(), is(sequential.getVariables().size()));
+        for (int i = 0; i < sequential.getVariables().size(); i++) {
+            BinaryVariable variable = sequential.getVariables().get(i);
+            assertThat(concurrent.getVariables().get(i).getName(), is(variable.getName()));
+            assertThat(concurrent.getVariables().get(i).getObjectiveFactor(), is(variable.getObjectiveFactor()));
+        }
+    }
+
+}
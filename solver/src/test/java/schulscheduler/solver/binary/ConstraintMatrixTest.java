@@ -0,0 +1,132 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.solver.ConstraintKey;
+import schulscheduler.solver.EnumConstraints;
+import schulscheduler.testutils.TestData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class ConstraintMatrixTest {
+
+    private static ConstraintMatrix createMatrix() {
+        ConstraintMatrix matrix = new ConstraintMatrix(id -> null);
+        matrix.addRow(EnumConstraintType.SUM_LEQ, EnumConstraints.KONFLIKTFREIHEIT.key(1, 2), 1);
+        matrix.addEntry(0, 1);
+        matrix.addEntry(1, 1);
+        matrix.addEntry(2, 1);
+        matrix.addRow(EnumConstraintType.VAR_EQ, EnumConstraints.DOPPELSTUNDE.key(3, 4, 5), 0);
+        matrix.addEntry(1, 1);
+        matrix.addEntry(2, -1);
+        matrix.addRow(EnumConstraintType.FORCE_VALUE, EnumConstraints.FIXE_STUNDE.key(3, 4), 1);
+        matrix.addEntry(0, 1);
+        matrix.addRow(EnumConstraintType.SUM_GEQ, EnumConstraints.KERNSTUNDE.key(6, 7).withSuffix("-Var"), 2);
+        matrix.addEntry(0, 1);
+        matrix.addEntry(2, 0.5); // Nicht ganzzahlig, wird beim Schreiben gesondert kodiert.
+        return matrix;
+    }
+
+    @Test
+    public void testRows() {
+        ConstraintMatrix matrix = createMatrix();
+        assertThat(matrix.getNumRows(), is(4));
+        assertThat(matrix.getNumEntries(), is(8));
+        assertThat(matrix.getRowStart(1), is(3));
+        assertThat(matrix.getRowEnd(1), is(5));
+        assertThat(matrix.getColumn(4), is(2));
+        assertThat(matrix.getCoefficient(4), is(-1.0));
+        assertThat(matrix.getName(0), is("KONFLIKTFREIHEIT-1-2"));
+        assertThat(matrix.getName(3), is("KERNSTUNDE-6-7-Var"));
+    }
+
+    @Test
+    public void testBounds() {
+        ConstraintMatrix matrix = new ConstraintMatrix(id -> null);
+        for (EnumConstraintType type : EnumConstraintType.values()) {
+            matrix.addRow(type, ConstraintKey.of(null, type.ordinal()), 3);
+        }
+        assertThat(matrix.getLowerBound(EnumConstraintType.SUM_LEQ.ordinal()), is(Double.NEGATIVE_INFINITY));
+        assertThat(matrix.getUpperBound(EnumConstraintType.SUM_LEQ.ordinal()), is(3.0));
+        assertThat(matrix.getLowerBound(EnumConstraintType.SUM_EQ.ordinal()), is(3.0));
+        assertThat(matrix.getUpperBound(EnumConstraintType.SUM_EQ.ordinal()), is(3.0));
+        assertThat(matrix.getLowerBound(EnumConstraintType.SUM_GEQ.ordinal()), is(3.0));
+        assertThat(matrix.getUpperBound(EnumConstraintType.SUM_GEQ.ordinal()), is(Double.POSITIVE_INFINITY));
+        assertThat(matrix.getLowerBound(EnumConstraintType.VAR_EQ.ordinal()), is(0.0));
+        assertThat(matrix.getUpperBound(EnumConstraintType.VAR_EQ.ordinal()), is(0.0));
+        assertThat(matrix.getLowerBound(EnumConstraintType.VAR_IMPLIES_OR.ordinal()), is(0.0));
+        assertThat(matrix.getUpperBound(EnumConstraintType.VAR_IMPLIES_OR.ordinal()), is(Double.POSITIVE_INFINITY));
+        assertThat(matrix.getLowerBound(EnumConstraintType.FORCE_VALUE.ordinal()), is(3.0));
+        assertThat(matrix.getUpperBound(EnumConstraintType.FORCE_VALUE.ordinal()), is(3.0));
+    }
+
+    @Test
+    public void testAppend() {
+        ConstraintMatrix other = new ConstraintMatrix(id -> null);
+        other.addRow(EnumConstraintType.VAR_IMPLIES_OR, EnumConstraints.EINZELSTUNDE.key(1, 2, 3), 0);
+        other.addEntry(5, -1);
+        other.addEntry(-1, 1); // Vorläufige Spalten
+        other.addEntry(-2, 1);
+
+        ConstraintMatrix matrix = createMatrix();
+        matrix.append(other, 10);
+        assertThat(matrix.getNumRows(), is(5));
+        assertThat(matrix.getType(4), is(EnumConstraintType.VAR_IMPLIES_OR));
+        assertThat(matrix.getKey(4), is(other.getKey(0)));
+        int start = matrix.getRowStart(4);
+        assertThat(matrix.getRowEnd(4) - start, is(3));
+        assertThat(matrix.getColumn(start), is(5));
+        assertThat(matrix.getColumn(start + 1), is(10));
+        assertThat(matrix.getColumn(start + 2), is(11));
+        assertThat(matrix.getCoefficient(start), is(-1.0));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        ConstraintMatrix original = createMatrix();
+        ConstraintMatrix copy = new ConstraintMatrix(id -> null);
+        copy.readFrom(new DataInputStream(new ByteArrayInputStream(write(original))), 3);
+        assertEquals(copy, original);
+    }
+
+    @Test
+    public void testWriteAndReadModel() throws IOException {
+        ConstraintMatrix original = new BinaryLP(TestData.readTestdataset(), true).getMatrix();
+        ConstraintMatrix copy = new ConstraintMatrix(original.getElements());
+        copy.readFrom(new DataInputStream(new ByteArrayInputStream(write(original))), Integer.MAX_VALUE);
+        assertEquals(copy, original);
+    }
+
+    private static byte[] write(ConstraintMatrix matrix) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        matrix.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Vergleicht zwei Matrizen Zeile für Zeile, einschließlich der Schlüssel.
+     */
+    static void assertEquals(ConstraintMatrix actual, ConstraintMatrix expected) {
+        assertThat(actual.getNumRows(), is(expected.getNumRows()));
+        assertThat(actual.getNumEntries(), is(expected.getNumEntries()));
+        for (int row = 0; row < expected.getNumRows(); row++) {
+            assertThat(actual.getType(row), is(expected.getType(row)));
+            assertThat(actual.getKey(row), is(expected.getKey(row)));
+            assertThat(actual.getName(row), is(expected.getName(row)));
+            assertThat(actual.getRhs(row), is(expected.getRhs(row)));
+            assertThat(actual.getRowStart(row), is(expected.getRowStart(row)));
+            assertThat(actual.getRowEnd(row), is(expected.getRowEnd(row)));
+        }
+        for (int entry = 0; entry < expected.getNumEntries(); entry++) {
+            assertThat(actual.getColumn(entry), is(expected.getColumn(entry)));
+            assertThat(actual.getCoefficient(entry), is(expected.getCoefficient(entry)));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static schulscheduler.testutils.TestModels.toLp;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.schule.EnumVerfuegbarkeit;
+import schulscheduler.model.schule.LehrerVerfuegbarkeit;
+import schulscheduler.model.unterricht.Zuweisung;
+import schulscheduler.testutils.TestData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class IncrementalBinaryLPTest {
+
+    private static List<String> getPhaseNames(BinaryLP binaryLP) {
+        return binaryLP.getStatistics().getPhases().stream()
+                .map(ModelStatistics.Phase::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testUpdatesOnlyChangedFamilies() throws IOException {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        IncrementalBinaryLP incremental = new IncrementalBinaryLP(eingabe, false);
+        BinaryLP first = incremental.getBinaryLP();
+        assertThat(incremental.getBinaryLP(), is(sameInstance(first)));
+
+        // Verfügbarkeit eines Lehrers ändern.
+        LehrerVerfuegbarkeit eintrag = eingabe.getLehrer().stream()
+                .flatMap(lehrer -> lehrer.getVerfuegbarkeit().stream())
+                .filter(e -> e.getVerfuegbarkeit() == EnumVerfuegbarkeit.NORMAL)
+                .findFirst().orElseThrow();
+        eintrag.setVerfuegbarkeit(EnumVerfuegbarkeit.NICHT);
+        BinaryLP second = incremental.getBinaryLP();
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(getPhaseNames(second).contains("createLehrerVerfuegbarkeitConstraints"), is(true));
+        assertThat(getPhaseNames(second).contains("createFachProTagConstraints"), is(false));
+        assertThat(toLp(second), is(toLp(new BinaryLP(eingabe))));
+
+        // Wochenstunden einer Zuweisung ändern.
+        Zuweisung zuweisung = eingabe.getZuweisungen().stream()
+                .filter(z -> z.getWochenstunden() > z.getFixeStunden().size() + 1)
+                .filter(z -> !z.isGekoppelt(eingabe.getKopplungen()))
+                .findFirst().orElseThrow();
+        zuweisung.setWochenstunden(zuweisung.getWochenstunden() - 1);
+        BinaryLP third = incremental.getBinaryLP();
+        assertThat(getPhaseNames(third).contains("createDoppelstundenConstraints"), is(true));
+        assertThat(getPhaseNames(third).contains("createKonfliktfreiheitConstraints"), is(false));
+        assertThat(toLp(third), is(toLp(new BinaryLP(eingabe))));
+
+        // Eine neue Zuweisung ändert die Hauptvariablen, also wird alles neu erzeugt.
+        Zuweisung neu = new Zuweisung(1, null, zuweisung.getLehrer(), zuweisung.getFach(), zuweisung.getKlasse());
+        eingabe.getZuweisungen().add(neu);
+        BinaryLP fourth = incremental.getBinaryLP();
+        assertThat(getPhaseNames(fourth).contains("createKonfliktfreiheitConstraints"), is(true));
+        assertThat(toLp(fourth), is(toLp(new BinaryLP(eingabe))));
+
+        // Die neue Zuweisung wird ebenfalls beobachtet.
+        neu.setWochenstunden(2);
+        BinaryLP fifth = incremental.getBinaryLP();
+        assertThat(fifth, is(not(sameInstance(fourth))));
+        assertThat(toLp(fifth), is(toLp(new BinaryLP(eingabe))));
+
+        incremental.dispose();
+    }
+
+}
@@ -0,0 +1,65 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.testutils.TestData;
+
+public class LocalSearchTest {
+
+    @Test
+    public void testFindsFeasibleSolution() throws InterruptedException {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset(), true);
+        LocalSearch search = new LocalSearch(binaryLP, 1);
+        assertThat(search.solve(15_000), is(true));
+        assertThat(search.getViolation(), is(0.0));
+
+        // Alle Bedingungen sind erfüllt, und die Zielfunktion stimmt mit der gemeldeten überein.
+        ConstraintMatrix matrix = binaryLP.getMatrix();
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            double sum = 0;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                if (binaryLP.getVariables().get(matrix.getColumn(entry)).requireSolution()) {
+                    sum += matrix.getCoefficient(entry);
+                }
+            }
+            assertThat(matrix.getName(row), sum, greaterThanOrEqualTo(matrix.getLowerBound(row)));
+            assertThat(matrix.getName(row), sum, lessThanOrEqualTo(matrix.getUpperBound(row)));
+        }
+        double objective = binaryLP.getVariables().stream()
+                .filter(BinaryVariable::requireSolution)
+                .mapToDouble(BinaryVariable::getObjectiveFactor)
+                .sum();
+        assertThat(objective, is(search.getObjectiveValue()));
+        assertThat(binaryLP.createErgebnis(), notNullValue());
+    }
+
+    @Test
+    public void testWarmStart() throws InterruptedException {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset(), true);
+        assertThat(new LocalSearch(binaryLP, 1).solve(5_000), is(true));
+        Ergebnisdaten vorher = binaryLP.createErgebnis();
+
+        // Die Startwerte aus dem Ergebnis entsprechen genau der Lösung, aus der es erzeugt wurde.
+        BinaryLP neu = new BinaryLP(TestData.readTestdataset(), true);
+        byte[] startwerte = neu.getStartwerte(vorher);
+        for (int column = 0; column < startwerte.length; column++) {
+            BinaryVariable variable = binaryLP.getVariables().get(column);
+            if (startwerte[column] != -1) {
+                assertThat(variable.getName(), startwerte[column] == 1, is(variable.requireSolution()));
+            }
+        }
+
+        // Ausgehend davon ist sofort wieder eine zulässige Lösung da.
+        LocalSearch search = new LocalSearch(neu, 2);
+        search.setStartwerte(startwerte);
+        assertThat(search.solve(1_000), is(true));
+        assertThat(search.getViolation(), is(0.0));
+    }
+
+}
@@ -0,0 +1,92 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static schulscheduler.testutils.TestModels.toLp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import schulscheduler.model.eingabe.Eingabedaten;
+import schulscheduler.model.ergebnis.Ergebnisdaten;
+import schulscheduler.testutils.TestData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ModelCacheTest {
+
+    private static List<String> listFiles(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testFingerprint() {
+        Eingabedaten eingabe = TestData.readTestdataset();
+        String fingerprint = ModelCache.computeFingerprint(eingabe, false);
+        assertThat(ModelCache.computeFingerprint(TestData.readTestdataset(), false), is(fingerprint));
+        assertThat(ModelCache.computeFingerprint(eingabe, true), is(not(fingerprint)));
+
+        // Anzeigenamen sind für das Modell irrelevant.
+        eingabe.getLehrer().get(0).setName("Umbenannt");
+        assertThat(ModelCache.computeFingerprint(eingabe, false), is(fingerprint));
+
+        eingabe.getFaecher().get(0).setHart(!eingabe.getFaecher().get(0).isHart());
+        assertThat(ModelCache.computeFingerprint(eingabe, false), is(not(fingerprint)));
+    }
+
+    @Test
+    public void testGetBinaryLP(@TempDir Path folder) throws IOException {
+        ModelCache cache = new ModelCache(folder, Long.MAX_VALUE);
+        BinaryLP built = cache.getBinaryLP(TestData.readTestdataset(), false);
+        assertThat(listFiles(folder).size(), is(1));
+
+        BinaryLP cached = cache.getBinaryLP(TestData.readTestdataset(), false);
+        assertThat(cached.getStatistics().getPhases().stream().map(ModelStatistics.Phase::getName)
+                .anyMatch(name -> name.equals("readModel")), is(true));
+        assertThat(toLp(cached), is(toLp(built)));
+    }
+
+    @Test
+    public void testEviction(@TempDir Path folder) throws IOException {
+        ModelCache cache = new ModelCache(folder, 1);
+        Eingabedaten eingabe = TestData.readTestdataset();
+        cache.getBinaryLP(eingabe, false);
+        cache.getBinaryLP(eingabe, true);
+        // Jeder Eintrag ist größer als erlaubt, also bleibt nichts übrig.
+        assertThat(listFiles(folder).size(), is(0));
+
+        cache = new ModelCache(folder, Long.MAX_VALUE);
+        cache.getBinaryLP(eingabe, false);
+        cache.getBinaryLP(eingabe, true);
+        assertThat(listFiles(folder).size(), is(2));
+    }
+
+    @Test
+    public void testErgebnis(@TempDir Path folder) throws IOException {
+        ModelCache cache = new ModelCache(folder, Long.MAX_VALUE);
+        Eingabedaten eingabe = TestData.readTestdataset();
+        assertThat(cache.getErgebnis(eingabe, false), is(nullValue()));
+
+        BinaryLP binaryLP = cache.getBinaryLP(eingabe, false);
+        for (BinaryVariable variable : binaryLP.getVariables()) {
+            variable.setSolution(variable.getIndex() % 3 == 0);
+        }
+        Ergebnisdaten expected = binaryLP.createErgebnis();
+        cache.putLoesung(binaryLP);
+
+        Ergebnisdaten ergebnis = cache.getErgebnis(eingabe, false);
+        assertThat(ergebnis.getUnterricht().size(), is(expected.getUnterricht().size()));
+        for (int i = 0; i < expected.getUnterricht().size(); i++) {
+            assertThat(ergebnis.getUnterricht().get(i).getZeitslot(), is(expected.getUnterricht().get(i).getZeitslot()));
+        }
+    }
+
+}
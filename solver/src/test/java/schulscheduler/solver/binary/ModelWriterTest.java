@@ -0,0 +1,75 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.testutils.TestData;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+public class ModelWriterTest {
+
+    private static String write(ModelWriter writer, EnumModelFormat format) throws IOException {
+        StringWriter out = new StringWriter();
+        writer.write(out, format);
+        return out.toString();
+    }
+
+    private static long countLines(String text, String prefix) {
+        return text.lines().filter(line -> line.startsWith(prefix)).count();
+    }
+
+    @Test
+    public void testWriteFormats() throws IOException {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset());
+        Presolve presolve = new Presolve(binaryLP);
+        ModelWriter writer = new ModelWriter(presolve);
+        int numVariables = presolve.getVariables().size();
+        int numRows = presolve.getMatrix().getNumRows();
+
+        String lp = write(writer, EnumModelFormat.LP);
+        assertThat(countLines(lp, " c"), is((long) numRows));
+        assertThat(lp.trim().endsWith("End"), is(true));
+
+        String mps = write(writer, EnumModelFormat.MPS);
+        assertThat(countLines(mps, " BV BND "), is((long) numVariables));
+        assertThat(countLines(mps, " L c") + countLines(mps, " E c") + countLines(mps, " G c"), is((long) numRows));
+
+        String opb = write(writer, EnumModelFormat.OPB);
+        assertThat(opb, startsWith("* #variable= "));
+        assertThat(opb.lines().findFirst().orElseThrow().endsWith(" #constraint= " + numRows), is(true));
+        assertThat(countLines(opb, "min:"), is(1L));
+        assertThat(opb.lines().filter(line -> line.endsWith(" ;")).count(), is(numRows + 1L));
+    }
+
+    @Test
+    public void testReadSolution() throws IOException {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset());
+        List<BinaryVariable> variables = binaryLP.getVariables();
+        SolutionReader reader = new SolutionReader(variables);
+
+        // SCIP-Format: Nur Variablen ungleich 0, mit Zielfunktionsbeitrag in Klammern.
+        String scip = "solution status: optimal solution found\n"
+                + "objective value:                                   42\n"
+                + "x1                                                  1 \t(obj:0)\n"
+                + "x3                                                  1 \t(obj:0)\n";
+        assertThat(reader.read(new BufferedReader(new StringReader(scip))), is(2));
+        assertThat(variables.get(0).requireSolution(), is(true));
+        assertThat(variables.get(1).requireSolution(), is(false));
+        assertThat(variables.get(2).requireSolution(), is(true));
+
+        // Pseudo-Boolean Competition.
+        String pb = "s OPTIMUM FOUND\nv -x1 x2\nv -x3\n";
+        assertThat(reader.read(new BufferedReader(new StringReader(pb))), is(3));
+        assertThat(variables.get(0).requireSolution(), is(false));
+        assertThat(variables.get(1).requireSolution(), is(true));
+        assertThat(variables.get(2).requireSolution(), is(false));
+    }
+
+}
@@ -0,0 +1,56 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.testutils.TestData;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class PresolveTest {
+
+    @Test
+    public void testReducesModel() {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset());
+        Presolve presolve = new Presolve(binaryLP);
+        assertThat(presolve.isInfeasible(), is(false));
+        assertThat(presolve.getVariables().size(), lessThan(binaryLP.getVariables().size()));
+        assertThat(presolve.getMatrix().getNumRows(), lessThan(binaryLP.getMatrix().getNumRows()));
+
+        // Die reduzierten Bedingungen beziehen sich nur auf die verbliebenen Variablen.
+        Set<Integer> freeColumns = new HashSet<>();
+        presolve.getVariables().forEach(variable -> freeColumns.add(variable.getIndex()));
+        ConstraintMatrix reduced = presolve.getMatrix();
+        for (int row = 0; row < reduced.getNumRows(); row++) {
+            assertThat(reduced.getType(row) == EnumConstraintType.FORCE_VALUE, is(false));
+            for (int entry = reduced.getRowStart(row); entry < reduced.getRowEnd(row); entry++) {
+                assertThat(freeColumns.contains(reduced.getColumn(entry)), is(true));
+            }
+        }
+
+        // Nach dem Postsolve haben alle Variablen eine Lösung, und die erzwungenen Werte stimmen.
+        presolve.getVariables().forEach(variable -> variable.setSolution(false));
+        presolve.postsolve();
+        binaryLP.getVariables().forEach(variable -> assertThat(variable.getSolution(), notNullValue()));
+        ConstraintMatrix matrix = binaryLP.getMatrix();
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            if (matrix.getType(row) == EnumConstraintType.FORCE_VALUE) {
+                BinaryVariable variable = binaryLP.getVariables().get(matrix.getColumn(matrix.getRowStart(row)));
+                assertThat(variable.requireSolution(), is(matrix.getRhs(row) == 1));
+            }
+        }
+    }
+
+    @Test
+    public void testDetectsInfeasibility() {
+        BinaryLP binaryLP = new BinaryLP(TestData.readUnloesbar());
+        Presolve presolve = new Presolve(binaryLP);
+        assertThat(presolve.isInfeasible(), is(true));
+        assertThat(presolve.getInfeasibleConstraintName(), notNullValue());
+    }
+
+}
@@ -0,0 +1,48 @@
+package schulscheduler.solver.binary;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.jupiter.api.Test;
+import schulscheduler.testutils.TestData;
+
+public class SatSearchTest {
+
+    @Test
+    public void testFindsFeasibleSolution() throws InterruptedException {
+        BinaryLP binaryLP = new BinaryLP(TestData.readTestdataset(), true);
+        SatSearch search = new SatSearch(binaryLP);
+        assertThat(search.solve(10_000), is(true));
+        assertThat(search.isInfeasible(), is(false));
+
+        // Alle Bedingungen sind erfüllt, und die Zielfunktion stimmt mit der gemeldeten überein.
+        ConstraintMatrix matrix = binaryLP.getMatrix();
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            double sum = 0;
+            for (int entry = matrix.getRowStart(row); entry < matrix.getRowEnd(row); entry++) {
+                if (binaryLP.getVariables().get(matrix.getColumn(entry)).requireSolution()) {
+                    sum += matrix.getCoefficient(entry);
+                }
+            }
+            assertThat(matrix.getName(row), sum, greaterThanOrEqualTo(matrix.getLowerBound(row)));
+            assertThat(matrix.getName(row), sum, lessThanOrEqualTo(matrix.getUpperBound(row)));
+        }
+        double objective = binaryLP.getVariables().stream()
+                .filter(BinaryVariable::requireSolution)
+                .mapToDouble(BinaryVariable::getObjectiveFactor)
+                .sum();
+        assertThat(objective, is(search.getObjectiveValue()));
+        assertThat(binaryLP.createErgebnis(), notNullValue());
+    }
+
+    @Test
+    public void testDetectsInfeasibility() throws InterruptedException {
+        SatSearch search = new SatSearch(new BinaryLP(TestData.readUnloesbar(), true));
+        assertThat(search.solve(10_000), is(false));
+        assertThat(search.isInfeasible(), is(true));
+    }
+
+}
@@ -0,0 +1,102 @@
+package schulscheduler.solver.sat;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class CdclTest {
+
+    /**
+     * Vergleicht für zufällige kleine Klauselmengen mit Zielfunktion das Ergebnis mit dem Durchprobieren aller
+     * Belegungen.
+     */
+    @Test
+    public void testRandomInstances() throws InterruptedException {
+        Random random = new Random(1);
+        for (int iteration = 0; iteration < 50_000; iteration++) {
+            int numVariables = 4 + random.nextInt(9);
+            int[][] clauses = new int[random.nextInt(3 * numVariables)][];
+            for (int i = 0; i < clauses.length; i++) {
+                clauses[i] = new int[2 + random.nextInt(2)];
+                for (int j = 0; j < clauses[i].length; j++) {
+                    clauses[i][j] = Cdcl.literal(random.nextInt(numVariables), random.nextBoolean());
+                }
+            }
+            int[] objectiveLiterals = new int[random.nextInt(numVariables + 1)];
+            long[] objectiveWeights = new long[objectiveLiterals.length];
+            for (int i = 0; i < objectiveLiterals.length; i++) {
+                objectiveLiterals[i] = Cdcl.literal(i, random.nextBoolean());
+                objectiveWeights[i] = 1 + random.nextInt(5);
+            }
+            long bound = random.nextInt(12);
+
+            Cdcl cdcl = new Cdcl();
+            for (int i = 0; i < numVariables; i++) {
+                cdcl.newVariable();
+            }
+            for (int[] clause : clauses) {
+                cdcl.addClause(clause);
+            }
+            cdcl.setObjective(objectiveLiterals, objectiveWeights);
+            cdcl.setObjectiveBound(bound);
+            Boolean result = cdcl.isOk() ? cdcl.solve(Long.MAX_VALUE) : Boolean.FALSE;
+
+            long minPenalty = Long.MAX_VALUE;
+            for (int mask = 0; mask < (1 << numVariables); mask++) {
+                if (countTrue(clauses, mask) == clauses.length) {
+                    minPenalty = Math.min(minPenalty, getPenalty(objectiveLiterals, objectiveWeights, mask));
+                }
+            }
+            assertThat("Iteration " + iteration, result, is(minPenalty <= bound));
+            if (result) {
+                int mask = 0;
+                for (int i = 0; i < numVariables; i++) {
+                    if (cdcl.getModelValue(i)) mask |= 1 << i;
+                }
+                assertThat(countTrue(clauses, mask), is(clauses.length));
+                assertThat(getPenalty(objectiveLiterals, objectiveWeights, mask) <= bound, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testObjectiveBoundCannotBeLoosened() {
+        Cdcl cdcl = new Cdcl();
+        cdcl.newVariable();
+        cdcl.newVariable();
+        cdcl.setObjective(new int[]{Cdcl.literal(0, true), Cdcl.literal(1, true)}, new long[]{1, 1});
+        assertThat(cdcl.setObjectiveBound(1), is(true));
+        assertThat(cdcl.setObjectiveBound(1), is(true));
+        assertThrows(IllegalArgumentException.class, () -> cdcl.setObjectiveBound(2));
+    }
+
+    private static boolean isTrue(int literal, int mask) {
+        return ((mask >> (literal >> 1)) & 1) == ((literal & 1) == 0 ? 1 : 0);
+    }
+
+    private static int countTrue(int[][] clauses, int mask) {
+        int count = 0;
+        for (int[] clause : clauses) {
+            for (int literal : clause) {
+                if (isTrue(literal, mask)) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long getPenalty(int[] literals, long[] weights, int mask) {
+        long penalty = 0;
+        for (int i = 0; i < literals.length; i++) {
+            if (isTrue(literals[i], mask)) penalty += weights[i];
+        }
+        return penalty;
+    }
+
+}
@@ -0,0 +1,46 @@
+package schulscheduler.solver.sat;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class TotalizerTest {
+
+    private static final int N = 7;
+
+    /**
+     * Prüft für alle k, dass die Kodierung genau die Belegungen mit der richtigen Anzahl wahrer Literale zulässt.
+     */
+    @Test
+    public void testAllAssignments() throws InterruptedException {
+        for (int k = -1; k <= N + 1; k++) {
+            for (int mask = 0; mask < (1 << N); mask++) {
+                int count = Integer.bitCount(mask);
+                assertThat("atMost " + k + " " + mask, isSatisfiable(0, k, mask), is(count <= k));
+                assertThat("atLeast " + k + " " + mask, isSatisfiable(1, k, mask), is(count >= k));
+                assertThat("exactly " + k + " " + mask, isSatisfiable(2, k, mask), is(count == k));
+            }
+        }
+    }
+
+    private static boolean isSatisfiable(int kind, int k, int mask) throws InterruptedException {
+        Cdcl cdcl = new Cdcl();
+        int[] literals = new int[N];
+        for (int i = 0; i < N; i++) {
+            literals[i] = Cdcl.literal(cdcl.newVariable(), true);
+        }
+        if (kind == 0) {
+            Totalizer.atMost(cdcl, literals, k);
+        } else if (kind == 1) {
+            Totalizer.atLeast(cdcl, literals, k);
+        } else {
+            Totalizer.exactly(cdcl, literals, k);
+        }
+        for (int i = 0; i < N; i++) {
+            cdcl.addClause((mask & (1 << i)) != 0 ? literals[i] : Cdcl.not(literals[i]));
+        }
+        return cdcl.isOk() && cdcl.solve(Long.MAX_VALUE) == Boolean.TRUE;
+    }
+
+}
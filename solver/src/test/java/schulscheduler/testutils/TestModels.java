@@ -0,0 +1,28 @@
+package schulscheduler.testutils;
+
+import schulscheduler.solver.binary.BinaryLP;
+import schulscheduler.solver.binary.EnumModelFormat;
+import schulscheduler.solver.binary.ModelWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Hilfsfunktionen für Tests, die Modelle miteinander vergleichen.
+ */
+public abstract class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * @param binaryLP Das zu schreibende Modell.
+     * @return Das Modell im LP-Format, z.B. um zwei Modelle textuell zu vergleichen.
+     */
+    public static String toLp(BinaryLP binaryLP) throws IOException {
+        StringWriter out = new StringWriter();
+        new ModelWriter(binaryLP).write(out, EnumModelFormat.LP);
+        return out.toString();
+    }
+
+}